@@ -0,0 +1,189 @@
+package color.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON results, such as a baseline and a new run : for every
+ * benchmark and map found in both, the throughput and the allocation per
+ * operation, with their relative change.
+ *
+ * Usage : {@code BaselineDiff baseline.json result.json}
+ */
+public class BaselineDiff {
+	private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: BaselineDiff baseline.json result.json");
+			System.exit(2);
+		}
+		Map<String, double[]> baseline = read(args[0]);
+		Map<String, double[]> result = read(args[1]);
+		System.out.printf("%-60s %12s %12s %8s %14s %14s %8s\n", "Benchmark", "Base ops/s", "New ops/s", "Change",
+				"Base B/op", "New B/op", "Change");
+		for (Map.Entry<String, double[]> entry : result.entrySet()) {
+			double[] before = baseline.get(entry.getKey());
+			if (before == null) continue;
+			double[] after = entry.getValue();
+			System.out.printf("%-60s %12.2f %12.2f %+7.1f%% %14.0f %14.0f %+7.1f%%\n", entry.getKey(), before[0],
+					after[0], change(before[0], after[0]), before[1], after[1], change(before[1], after[1]));
+		}
+	}
+
+	private static double change(double before, double after) {
+		return before == 0 ? 0 : 100 * (after - before) / before;
+	}
+
+	/*
+	 * Throughput and bytes allocated per operation, by benchmark and parameters.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, double[]> read(String file) throws IOException {
+		String json = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+		Map<String, double[]> scores = new LinkedHashMap<>();
+		for (Object item : (List<Object>) new Json(json).value()) {
+			Map<String, Object> run = (Map<String, Object>) item;
+			String name = (String) run.get("benchmark");
+			name = name.substring(name.lastIndexOf('.') + 1);
+			Map<String, Object> params = (Map<String, Object>) run.get("params");
+			if (params != null) {
+				name += " " + params.values();
+			}
+			double throughput = score((Map<String, Object>) run.get("primaryMetric"));
+			double allocation = Double.NaN;
+			Map<String, Object> secondary = (Map<String, Object>) run.get("secondaryMetrics");
+			if (secondary != null) {
+				for (Map.Entry<String, Object> metric : secondary.entrySet()) {
+					// Le nom du profileur est précédé d'un point médian
+					if (metric.getKey().endsWith(ALLOCATION)) {
+						allocation = score((Map<String, Object>) metric.getValue());
+					}
+				}
+			}
+			scores.put(name, new double[] { throughput, allocation });
+		}
+		return scores;
+	}
+
+	private static double score(Map<String, Object> metric) {
+		Object score = metric.get("score");
+		return score instanceof Number ? ((Number) score).doubleValue() : Double.NaN;
+	}
+
+	/*
+	 * Minimal JSON reader : objects, arrays, strings, numbers, booleans and
+	 * null, enough for the JMH results.
+	 */
+	private static class Json {
+		private final String text;
+		private int position;
+
+		Json(String text) {
+			this.text = text;
+		}
+
+		Object value() {
+			skipWhitespace();
+			char c = text.charAt(position);
+			if (c == '{') return object();
+			if (c == '[') return array();
+			if (c == '"') return string();
+			if (text.startsWith("true", position)) return literal("true", Boolean.TRUE);
+			if (text.startsWith("false", position)) return literal("false", Boolean.FALSE);
+			if (text.startsWith("null", position)) return literal("null", null);
+			if (text.startsWith("\"NaN\"", position)) return literal("\"NaN\"", Double.NaN);
+			return number();
+		}
+
+		private Map<String, Object> object() {
+			Map<String, Object> object = new LinkedHashMap<>();
+			position++;
+			skipWhitespace();
+			if (text.charAt(position) == '}') {
+				position++;
+				return object;
+			}
+			while (true) {
+				skipWhitespace();
+				String key = string();
+				skipWhitespace();
+				expect(':');
+				object.put(key, value());
+				skipWhitespace();
+				if (text.charAt(position++) == '}') return object;
+			}
+		}
+
+		private List<Object> array() {
+			List<Object> array = new ArrayList<>();
+			position++;
+			skipWhitespace();
+			if (text.charAt(position) == ']') {
+				position++;
+				return array;
+			}
+			while (true) {
+				array.add(value());
+				skipWhitespace();
+				if (text.charAt(position++) == ']') return array;
+			}
+		}
+
+		private String string() {
+			expect('"');
+			StringBuilder builder = new StringBuilder();
+			for (char c = text.charAt(position++); c != '"'; c = text.charAt(position++)) {
+				if (c == '\\') {
+					c = text.charAt(position++);
+					switch (c) {
+					case 'n': c = '\n'; break;
+					case 't': c = '\t'; break;
+					case 'r': c = '\r'; break;
+					case 'b': c = '\b'; break;
+					case 'f': c = '\f'; break;
+					case 'u':
+						c = (char) Integer.parseInt(text.substring(position, position + 4), 16);
+						position += 4;
+						break;
+					default:
+						break;
+					}
+				}
+				builder.append(c);
+			}
+			return builder.toString();
+		}
+
+		private Double number() {
+			int start = position;
+			while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+				position++;
+			}
+			return Double.valueOf(text.substring(start, position));
+		}
+
+		private Object literal(String word, Object value) {
+			position += word.length();
+			return value;
+		}
+
+		private void expect(char c) {
+			if (text.charAt(position++) != c) {
+				throw new IllegalArgumentException("Expected " + c + " at " + (position - 1));
+			}
+		}
+
+		private void skipWhitespace() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package color.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the stage benchmarks with the GC profiler (-prof gc, for the
+ * allocation rate) and writes the results as JSON, to be compared with
+ * {@link BaselineDiff}.
+ *
+ * Usage, from the project directory, with JMH and the project classes on the
+ * class path : {@code BenchmarkRunner [result.json [map...]]}, for example
+ * {@code BenchmarkRunner bench/baseline.json small_map synthetic-1}. All the
+ * maps are run by default.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String result = args.length > 0 ? args[0] : "bench/baseline.json";
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.include(StageBenchmarks.class.getName())
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(result);
+		if (args.length > 1) {
+			String[] maps = new String[args.length - 1];
+			System.arraycopy(args, 1, maps, 0, maps.length);
+			options.param("map", maps);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,63 @@
+package color.jmh;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import color.BorderMask;
+import color.ComponentLabeler;
+import color.ZoneAdjacency;
+import color.ZoneGraph;
+import graph_samples.SyntheticMap;
+import graphics.Image;
+
+/**
+ * A map and the output of every stage, computed once per trial so that each
+ * benchmark measures a single stage.
+ */
+@State(Scope.Benchmark)
+public class MapState {
+	static final Color BORDER = Color.BLACK;
+	static final int ADJACENCY_DISTANCE = 4;
+
+	/**
+	 * A fixture of img/maps, or synthetic-N for a synthetic map of N megapixels.
+	 */
+	@Param({ "small_map", "truchet_tiling", "three_colors_tiling", "hat_monotile", "USA_map",
+			"conformally-regular-pentagonal-tiling", "synthetic-1", "synthetic-4", "synthetic-16", "synthetic-64" })
+	public String map;
+
+	BufferedImage image;
+	BorderMask mask;
+	int[] labels;
+	int zoneCount;
+	ZoneGraph graph;
+	int[] zoneRgb;
+
+	@Setup
+	public void setUp() {
+		if (map.startsWith("synthetic-")) {
+			// Carré d'environ N mégapixels, une zone pour 64x64 pixels
+			int size = (int) Math.sqrt(Integer.parseInt(map.substring("synthetic-".length())) * 1e6);
+			image = SyntheticMap.rectangles(size, size, size * size / 4096, 2, BORDER, 42).getImage();
+		} else {
+			image = Image.loadImage("img/maps/" + map + ".png");
+			if (image == null) {
+				throw new IllegalStateException("Cannot load img/maps/" + map + ".png, run from the project directory");
+			}
+		}
+		mask = new BorderMask(image, BORDER);
+		ComponentLabeler labeler = new ComponentLabeler(mask);
+		labels = labeler.getLabels();
+		zoneCount = labeler.getZoneCount();
+		graph = new ZoneGraph(zoneCount, new ZoneAdjacency(labels, image.getWidth(), ADJACENCY_DISTANCE).getEdges());
+		zoneRgb = new int[zoneCount];
+		for (int zone = 0; zone < zoneCount; zone++) {
+			zoneRgb[zone] = Color.HSBtoRGB(zone / (float) Math.max(1, zoneCount), 0.6f, 1f);
+		}
+	}
+}
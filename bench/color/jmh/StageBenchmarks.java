@@ -0,0 +1,75 @@
+package color.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.alg.color.SaturationDegreeColoring;
+import org.jgrapht.alg.interfaces.VertexColoringAlgorithm.Coloring;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import color.BorderMask;
+import color.ComponentLabeler;
+import color.MapColoring;
+import color.ZoneAdjacency;
+import color.ZonePainter;
+
+/**
+ * One benchmark per stage of the coloring of a map, each starting from the
+ * output of the previous stage, and the whole coloring.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g", "-Djava.awt.headless=true", "-Djava.util.logging.config.file=/dev/null",
+		"--add-modules=jdk.incubator.vector" })
+public class StageBenchmarks {
+
+	@Benchmark
+	public BorderMask borderExtraction(MapState state) {
+		return new BorderMask(state.image, MapState.BORDER);
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = { "-Xmx8g", "-Djava.awt.headless=true", "-Djava.util.logging.config.file=/dev/null",
+			"-Dcolor.scalarBorderKernel=true" })
+	public BorderMask borderExtractionScalar(MapState state) {
+		return new BorderMask(state.image, MapState.BORDER);
+	}
+
+	@Benchmark
+	public int[] componentLabeling(MapState state) {
+		return new ComponentLabeler(state.mask).getLabels();
+	}
+
+	@Benchmark
+	public long[] zoneAdjacency(MapState state) {
+		return new ZoneAdjacency(state.labels, state.image.getWidth(), MapState.ADJACENCY_DISTANCE).getEdges();
+	}
+
+	@Benchmark
+	public Coloring<Integer> coloring(MapState state) {
+		return new SaturationDegreeColoring<>(state.graph).getColoring();
+	}
+
+	/*
+	 * The painting of colorMap(), over the same image at every call : border
+	 * pixels are left untouched, so the map is unchanged.
+	 */
+	@Benchmark
+	public void painting(MapState state) {
+		new ZonePainter(state.labels, state.zoneRgb).paint(state.image);
+	}
+
+	@Benchmark
+	public MapColoring mapColoring(MapState state) {
+		MapColoring mc = new MapColoring(state.image, MapState.BORDER);
+		mc.colorMap();
+		return mc;
+	}
+}
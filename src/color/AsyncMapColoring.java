@@ -0,0 +1,162 @@
+package color;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Coloring of a map image in the background, with a future per stage of its
+ * {@link MapColoringPipeline} : zones labeled, adjacency graph ready, coloring
+ * ready (and validated) and image painted.
+ *
+ * Each stage runs as a task of the executor given by the caller, once the
+ * stage before it is completed, so that a thread is only held while a stage
+ * computes. A client can render the number of zones or the adjacency graph
+ * as soon as they are known, without waiting for the painted image.
+ *
+ * {@link #cancel()} cancels the stages not completed yet : the stages not
+ * started are never run, and the thread running a stage is interrupted. The
+ * stages don't poll the interruption flag : a stage reading a pixel source
+ * may stop on it, a stage computing in memory completes and its result is
+ * discarded. A stage which fails completes its future, and the futures of the
+ * stages after it, with the cause of the error wrapped in a
+ * {@link CompletionException}.
+ *
+ * <pre>
+ * AsyncMapColoring task = MapColoring.colorAsync(image, Color.BLACK, executor);
+ * task.labels().thenAccept(labels -> respond(labels.getValue().getZoneCount()));
+ * </pre>
+ */
+public class AsyncMapColoring {
+	private static final Logger logger = Logger.getLogger(AsyncMapColoring.class.getName());
+
+	private final MapColoringPipeline pipeline;
+	private final CompletableFuture<StageResult<ComponentLabeler>> labels;
+	private final CompletableFuture<StageResult<ZoneGraph>> adjacency;
+	private final CompletableFuture<StageResult<IntColoring>> coloring;
+	private final CompletableFuture<StageResult<BufferedImage>> painted;
+	private boolean cancelled;
+	// Thread exécutant une étape, interrompu par cancel()
+	private Thread running;
+	private Thread interrupted;
+
+	/**
+	 * Starts the stages of a pipeline (see {@link MapColoringPipeline#runAsync(Executor)}).
+	 *
+	 * @param pipeline the pipeline whose stages are computed
+	 * @param executor the executor running the stages
+	 * @throws NullPointerException if any input parameter is null
+	 */
+	AsyncMapColoring(MapColoringPipeline pipeline, Executor executor) {
+		if (pipeline == null || executor == null) {
+			throw new NullPointerException("Pipeline and executor cannot be null");
+		}
+		this.pipeline = pipeline;
+		this.labels = CompletableFuture.supplyAsync(() -> {
+			stage(pipeline::mask);
+			return stage(pipeline::labels);
+		}, executor);
+		this.adjacency = labels.thenApplyAsync(result -> stage(pipeline::adjacency), executor);
+		this.coloring = adjacency.thenApplyAsync(result -> {
+			StageResult<IntColoring> colors = stage(pipeline::coloring);
+			stage(pipeline::validation);
+			return colors;
+		}, executor);
+		this.painted = coloring.thenApplyAsync(result -> stage(pipeline::painted), executor);
+	}
+
+	/**
+	 * Returns the zones of the map, after the border mask.
+	 * @return the future of the labels stage
+	 */
+	public CompletableFuture<StageResult<ComponentLabeler>> labels() {
+		return labels;
+	}
+
+	/**
+	 * Returns the adjacency graph of the zones.
+	 * @return the future of the adjacency stage
+	 */
+	public CompletableFuture<StageResult<ZoneGraph>> adjacency() {
+		return adjacency;
+	}
+
+	/**
+	 * Returns the coloring of the zones, completed once it is validated.
+	 * @return the future of the coloring stage
+	 */
+	public CompletableFuture<StageResult<IntColoring>> coloring() {
+		return coloring;
+	}
+
+	/**
+	 * Returns the painted image.
+	 * @return the future of the painting stage
+	 */
+	public CompletableFuture<StageResult<BufferedImage>> painted() {
+		return painted;
+	}
+
+	/**
+	 * Returns the pipeline running the stages, whose stage results tell what
+	 * each stage cost once its future is completed.
+	 * @return the pipeline of the coloring
+	 */
+	public MapColoringPipeline getPipeline() {
+		return pipeline;
+	}
+
+	/**
+	 * Cancels the stages not completed yet, and interrupts the thread running
+	 * one of them.
+	 *
+	 * @return true if a stage was cancelled by this call
+	 */
+	public boolean cancel() {
+		synchronized (this) {
+			cancelled = true;
+			if (running != null) {
+				interrupted = running;
+				running.interrupt();
+			}
+		}
+		boolean stopped = false;
+		// Du dernier au premier : une étape annulée ne fait pas échouer les suivantes avant leur annulation
+		for (CompletableFuture<?> stage : new CompletableFuture<?>[] { painted, coloring, adjacency, labels }) {
+			stopped |= stage.cancel(false);
+		}
+		if (stopped) logger.info("Map coloring cancelled");
+		return stopped;
+	}
+
+	/**
+	 * Tells whether {@link #cancel()} was called.
+	 * @return true if the coloring was cancelled
+	 */
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	private <T> T stage(Supplier<T> computation) {
+		synchronized (this) {
+			if (cancelled) throw new CancellationException("Map coloring cancelled");
+			running = Thread.currentThread();
+		}
+		try {
+			return computation.get();
+		} finally {
+			synchronized (this) {
+				running = null;
+				// L'interruption ne visait que l'étape : le thread retourne à l'executor sans elle
+				if (interrupted == Thread.currentThread()) {
+					interrupted = null;
+					Thread.interrupted();
+				}
+			}
+		}
+	}
+}
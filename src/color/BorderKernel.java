@@ -0,0 +1,131 @@
+package color;
+
+import java.util.logging.Logger;
+
+/**
+ * Classification of a run of ARGB pixels as border or not, packed into the
+ * bits of a {@link BorderMask}.
+ *
+ * A pixel is a border pixel when each of its four channels is within the
+ * tolerance of the channel of the border color ; a tolerance of 0 is an exact
+ * compare. The vector kernel (color.VectorBorderKernel, in the src_vector
+ * folder) compares whole lanes of pixels with the jdk.incubator.vector API ;
+ * it is used when the module is present at run time, with
+ * --add-modules jdk.incubator.vector, and the scalar kernel otherwise.
+ */
+abstract class BorderKernel {
+	private static final Logger logger = Logger.getLogger(BorderKernel.class.getName());
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+	private static final String VECTOR_KERNEL = "color.VectorBorderKernel";
+	// Désactive le noyau vectoriel, pour comparer les deux
+	static final String SCALAR_PROPERTY = "color.scalarBorderKernel";
+	private static final boolean VECTOR = !Boolean.getBoolean(SCALAR_PROPERTY)
+			&& ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent() && vectorKernel(0, 0) != null;
+
+	final int borderRgb;
+	final int tolerance;
+
+	BorderKernel(int borderRgb, int tolerance) {
+		if (tolerance < 0 || tolerance > 255) {
+			throw new IllegalArgumentException("Tolerance must be in 0..255");
+		}
+		this.borderRgb = borderRgb;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Returns the fastest kernel available.
+	 *
+	 * @param borderRgb the ARGB border color
+	 * @param tolerance the largest difference of a channel with the border color, in 0..255
+	 * @return the vector kernel if the Vector API is available, the scalar kernel otherwise
+	 * @throws IllegalArgumentException if the tolerance is outside 0..255
+	 */
+	static BorderKernel of(int borderRgb, int tolerance) {
+		if (VECTOR) {
+			BorderKernel kernel = vectorKernel(borderRgb, tolerance);
+			if (kernel != null) return kernel;
+		}
+		return scalar(borderRgb, tolerance);
+	}
+
+	/**
+	 * Returns the scalar kernel.
+	 *
+	 * @param borderRgb the ARGB border color
+	 * @param tolerance the largest difference of a channel with the border color, in 0..255
+	 * @return a kernel comparing one pixel at a time
+	 * @throws IllegalArgumentException if the tolerance is outside 0..255
+	 */
+	static BorderKernel scalar(int borderRgb, int tolerance) {
+		return tolerance == 0 ? new Exact(borderRgb) : new Scalar(borderRgb, tolerance);
+	}
+
+	static boolean isVectorized() {
+		return VECTOR;
+	}
+
+	private static BorderKernel vectorKernel(int borderRgb, int tolerance) {
+		if (tolerance < 0 || tolerance > 255) {
+			throw new IllegalArgumentException("Tolerance must be in 0..255");
+		}
+		try {
+			return (BorderKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor(int.class, int.class)
+					.newInstance(borderRgb, tolerance);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			logger.fine("Vector border kernel unavailable: " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Sets the bits of the border pixels of a run of pixels, and leaves the
+	 * other bits unchanged.
+	 *
+	 * @param pixels the ARGB pixels
+	 * @param from the index of the first pixel of the run
+	 * @param count the number of pixels of the run
+	 * @param alpha bits or-ed to every pixel, 0xFF000000 for pixels without alpha
+	 * @param words the packed bits of the mask
+	 * @param firstBit the bit of the first pixel of the run
+	 */
+	abstract void mark(int[] pixels, int from, int count, int alpha, long[] words, long firstBit);
+
+	private static final class Exact extends BorderKernel {
+
+		Exact(int borderRgb) {
+			super(borderRgb, 0);
+		}
+
+		@Override
+		void mark(int[] pixels, int from, int count, int alpha, long[] words, long firstBit) {
+			long bit = firstBit;
+			for (int p = from, end = from + count; p < end; p++, bit++) {
+				if ((pixels[p] | alpha) == borderRgb) {
+					words[(int) (bit >>> 6)] |= 1L << bit;
+				}
+			}
+		}
+	}
+
+	private static final class Scalar extends BorderKernel {
+
+		Scalar(int borderRgb, int tolerance) {
+			super(borderRgb, tolerance);
+		}
+
+		@Override
+		void mark(int[] pixels, int from, int count, int alpha, long[] words, long firstBit) {
+			long bit = firstBit;
+			for (int p = from, end = from + count; p < end; p++, bit++) {
+				int pixel = pixels[p] | alpha;
+				if (Math.abs((pixel >>> 24) - (borderRgb >>> 24)) <= tolerance
+						&& Math.abs((pixel >> 16 & 0xFF) - (borderRgb >> 16 & 0xFF)) <= tolerance
+						&& Math.abs((pixel >> 8 & 0xFF) - (borderRgb >> 8 & 0xFF)) <= tolerance
+						&& Math.abs((pixel & 0xFF) - (borderRgb & 0xFF)) <= tolerance) {
+					words[(int) (bit >>> 6)] |= 1L << bit;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+
+import graphics.PixelSource;
+
+/**
+ * Packed bitset of the border pixels of a map image (1 bit per pixel, in
+ * row-major order).
+ *
+ * The pixels are read straight from the data buffer of the image when its
+ * raster is int-packed or byte-interleaved, a scanline at a time through
+ * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)} otherwise.
+ * Int pixels are compared by a {@link BorderKernel}, a lane at a time when
+ * the Vector API is available.
+ */
+public class BorderMask {
+	private final int width;
+	private final int height;
+	private final long[] words;
+
+	/**
+	 * Constructor
+	 *
+	 * @param image a bitmap image representing a map
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @throws NullPointerException if any input parameter is null
+	 */
+	public BorderMask(BufferedImage image, Color borderColor) {
+		this(image, borderColor, 0);
+	}
+
+	/**
+	 * Constructor for maps whose borders are drawn in shades of a color : a
+	 * pixel is a border pixel when each of its channels, alpha included, is
+	 * within the tolerance of the channel of the border color.
+	 *
+	 * @param image a bitmap image representing a map
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param tolerance the largest difference of a channel with the border color, 0 for the exact color
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if the tolerance is outside 0..255
+	 */
+	public BorderMask(BufferedImage image, Color borderColor, int tolerance) {
+		if (image == null || borderColor == null) {
+			throw new NullPointerException("Image and borderColor cannot be null");
+		}
+		this.width = image.getWidth();
+		this.height = image.getHeight();
+		this.words = new long[(int) (((long) width * height + 63) >>> 6)];
+		int borderRgb = borderColor.getRGB();
+		BorderKernel kernel = BorderKernel.of(borderRgb, tolerance);
+		switch (image.getType()) {
+		case BufferedImage.TYPE_INT_RGB:
+			// Canal alpha implicite : opaque
+			extractInt(image.getRaster(), kernel, 0xFF000000);
+			break;
+		case BufferedImage.TYPE_INT_ARGB:
+			extractInt(image.getRaster(), kernel, 0);
+			break;
+		case BufferedImage.TYPE_3BYTE_BGR:
+			if (tolerance > 0) {
+				extractRows(image, kernel);
+			} else if (borderRgb >>> 24 == 0xFF) {
+				extractBytes(image.getRaster(), borderRgb, false);
+			}
+			break;
+		case BufferedImage.TYPE_4BYTE_ABGR:
+			if (tolerance > 0) {
+				extractRows(image, kernel);
+			} else {
+				extractBytes(image.getRaster(), borderRgb, true);
+			}
+			break;
+		default:
+			extractRows(image, kernel);
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param source the pixels of a map, read a band of rows at a time
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IOException if the pixels cannot be read
+	 */
+	public BorderMask(PixelSource source, Color borderColor) throws IOException {
+		if (source == null || borderColor == null) {
+			throw new NullPointerException("Source and borderColor cannot be null");
+		}
+		this.width = source.getWidth();
+		this.height = source.getHeight();
+		this.words = new long[(int) (((long) width * height + 63) >>> 6)];
+		BorderKernel kernel = BorderKernel.of(borderColor.getRGB(), 0);
+		int bandHeight = Math.max(1, Math.min(height, (1 << 20) / width));
+		int[] band = new int[width * bandHeight];
+		for (int firstRow = 0; firstRow < height; firstRow += bandHeight) {
+			int rowCount = Math.min(bandHeight, height - firstRow);
+			source.readRows(firstRow, rowCount, band);
+			kernel.mark(band, 0, rowCount * width, 0, words, (long) firstRow * width);
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param words the packed bits, at least (width * height + 63) / 64 words
+	 * @throws IllegalArgumentException if the words don't cover the image
+	 */
+	BorderMask(int width, int height, long[] words) {
+		if (words.length < ((long) width * height + 63) >>> 6) {
+			throw new IllegalArgumentException("Not enough words for " + width + "x" + height + " pixels");
+		}
+		this.width = width;
+		this.height = height;
+		this.words = words;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Tells whether a pixel is a border pixel.
+	 * @param index the pixel index, y * width + x
+	 * @return true if the pixel is of the border color
+	 */
+	public boolean isBorder(int index) {
+		return (words[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Tells whether a pixel is a border pixel.
+	 * @param x the pixel column
+	 * @param y the pixel row
+	 * @return true if the pixel is of the border color
+	 */
+	public boolean isBorder(int x, int y) {
+		return isBorder(y * width + x);
+	}
+
+	/**
+	 * Returns the number of border pixels.
+	 * @return the number of border pixels
+	 */
+	public long countBorderPixels() {
+		long count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the mask of the blocks of factor x factor pixels : a block is a
+	 * border if any of its pixels is a border pixel, so that two zones never
+	 * merge at the lower resolution, and every block which is not a border
+	 * lies inside a single zone.
+	 *
+	 * @param factor the width and height of a block
+	 * @return the mask of ceil(width / factor) x ceil(height / factor) blocks, this mask for a factor of 1
+	 * @throws IllegalArgumentException if factor is lower than 1
+	 */
+	public BorderMask downsample(int factor) {
+		if (factor < 1) throw new IllegalArgumentException("Factor must be at least 1");
+		if (factor == 1) return this;
+		int blockWidth = (width + factor - 1) / factor;
+		int blockHeight = (height + factor - 1) / factor;
+		long[] blocks = new long[(int) (((long) blockWidth * blockHeight + 63) >>> 6)];
+		// Seuls les bits à 1 sont visités : les frontières sont peu nombreuses
+		for (int k = 0; k < words.length; k++) {
+			for (long word = words[k]; word != 0; word &= word - 1) {
+				long pixel = ((long) k << 6) + Long.numberOfTrailingZeros(word);
+				int y = (int) (pixel / width);
+				int x = (int) (pixel - (long) y * width);
+				int block = y / factor * blockWidth + x / factor;
+				blocks[block >>> 6] |= 1L << block;
+			}
+		}
+		return new BorderMask(blockWidth, blockHeight, blocks);
+	}
+
+	/**
+	 * Returns the packed bits (bit i of word i / 64 for the pixel i).
+	 * @return the packed bits, not copied
+	 */
+	long[] words() {
+		return words;
+	}
+
+	private void extractInt(Raster raster, BorderKernel kernel, int alpha) {
+		SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+		DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+		int[] data = buffer.getData();
+		int stride = sm.getScanlineStride();
+		int base = buffer.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+		if (stride == width) {
+			// Lignes contiguës : un seul passage sur toute l'image
+			kernel.mark(data, base, width * height, alpha, words, 0);
+			return;
+		}
+		for (int y = 0; y < height; y++) {
+			kernel.mark(data, base + y * stride, width, alpha, words, (long) y * width);
+		}
+	}
+
+	private void extractBytes(Raster raster, int borderRgb, boolean alpha) {
+		ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+		DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+		byte[] data = buffer.getData();
+		int stride = sm.getScanlineStride();
+		int pixelStride = sm.getPixelStride();
+		int base = buffer.getOffset() - raster.getSampleModelTranslateY() * stride
+				- raster.getSampleModelTranslateX() * pixelStride;
+		byte a = (byte) (borderRgb >>> 24);
+		byte r = (byte) (borderRgb >> 16);
+		byte g = (byte) (borderRgb >> 8);
+		byte b = (byte) borderRgb;
+		for (int y = 0, i = 0; y < height; y++) {
+			int p = base + y * stride;
+			for (int x = 0; x < width; x++, i++, p += pixelStride) {
+				int q = p;
+				if (alpha && data[q++] != a) {
+					continue;
+				}
+				if (data[q] == b && data[q + 1] == g && data[q + 2] == r) {
+					words[i >>> 6] |= 1L << i;
+				}
+			}
+		}
+	}
+
+	private void extractRows(BufferedImage image, BorderKernel kernel) {
+		int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			image.getRGB(0, y, width, 1, row, 0, width);
+			kernel.mark(row, 0, width, 0, words, (long) y * width);
+		}
+	}
+}
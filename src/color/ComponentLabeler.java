@@ -0,0 +1,228 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Connected-component labeling of a map image, through its runs of
+ * non-border pixels (see {@link ZoneRuns}).
+ *
+ * Every pixel which is not of the border color belongs to a zone, two
+ * non-border pixels being connected when they are horizontal or vertical
+ * neighbours. The result is a label per pixel (row-major order) : the zone id
+ * in 0..Z-1, or {@link #BORDER} for border pixels. Zones are numbered in the
+ * order of their first pixel.
+ */
+public class ComponentLabeler {
+	/** Label of the border pixels. */
+	public static final int BORDER = -1;
+
+	// Nombre de bandes par thread, pour équilibrer la charge, et hauteur minimale d'une bande
+	private static final int BANDS_PER_THREAD = 4;
+	private static final int MIN_BAND_HEIGHT = 64;
+
+	private final BorderMask mask;
+	private final int parallelism;
+	private int[] labels;
+	private ZoneRuns runs;
+	private ZoneInfo zoneInfo;
+	private int zoneCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param image a bitmap image representing a map
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @throws NullPointerException if any input parameter is null
+	 */
+	public ComponentLabeler(BufferedImage image, Color borderColor) {
+		this(new BorderMask(image, borderColor));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param mask the border pixels of a map
+	 * @throws NullPointerException if the mask is null
+	 */
+	public ComponentLabeler(BorderMask mask) {
+		this(mask, 1);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * With a parallelism greater than 1, the image is split in horizontal
+	 * bands labeled concurrently in a {@link ForkJoinPool}, then the zones are
+	 * merged across the seams between the bands. The labels are the same as
+	 * with a single thread.
+	 *
+	 * @param mask the border pixels of a map
+	 * @param parallelism the number of threads labeling the image
+	 * @throws NullPointerException if the mask is null
+	 * @throws IllegalArgumentException if parallelism is lower than 1
+	 */
+	public ComponentLabeler(BorderMask mask, int parallelism) {
+		if (mask == null) throw new NullPointerException("Mask cannot be null");
+		if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+		this.mask = mask;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the zone label of every pixel, indexed by y * width + x.
+	 * @return the labels of the pixels
+	 */
+	public int[] getLabels() {
+		if (labels == null) {
+			label();
+		}
+		return labels;
+	}
+
+	/**
+	 * Returns the zones as runs of pixels, with the same zone ids as the labels.
+	 * @return the runs of the zones
+	 */
+	public ZoneRuns getRuns() {
+		if (labels == null) {
+			label();
+		}
+		return runs;
+	}
+
+	/**
+	 * Returns the area, bounding box, centroid, perimeter and first pixel of
+	 * every zone, gathered from its runs while labeling.
+	 * @return the statistics of the zones
+	 */
+	public ZoneInfo getZoneInfo() {
+		if (labels == null) {
+			label();
+		}
+		return zoneInfo;
+	}
+
+	/**
+	 * Returns the number of zones.
+	 * @return the number of zones
+	 */
+	public int getZoneCount() {
+		if (labels == null) {
+			label();
+		}
+		return zoneCount;
+	}
+
+	private void label() {
+		int width = mask.getWidth();
+		int height = mask.getHeight();
+		int[] result = new int[width * height];
+		int bandCount = parallelism == 1 ? 1 : Math.min(parallelism * BANDS_PER_THREAD, Math.max(1, height / MIN_BAND_HEIGHT));
+		if (bandCount <= 1) {
+			this.runs = labelBand(result, 0, height);
+			this.zoneCount = runs.getZoneCount();
+			this.zoneInfo = new ZoneInfo(runs);
+			this.labels = result;
+			return;
+		}
+
+		// Étiquetage indépendant de chaque bande horizontale
+		int[] firstRows = new int[bandCount + 1];
+		for (int b = 0; b <= bandCount; b++) {
+			firstRows[b] = (int) ((long) height * b / bandCount);
+		}
+		ZoneRuns[] bands = new ZoneRuns[bandCount];
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new BandTask(0, bandCount, b -> bands[b] = labelBand(result, firstRows[b], firstRows[b + 1])));
+
+			// Fusion des zones de part et d'autre de chaque jointure
+			int[] offsets = new int[bandCount + 1];
+			for (int b = 0; b < bandCount; b++) {
+				offsets[b + 1] = offsets[b] + bands[b].getZoneCount();
+			}
+			IntUnionFind sets = new IntUnionFind(offsets[bandCount]);
+			for (int i = 0; i < offsets[bandCount]; i++) {
+				sets.makeSet();
+			}
+			for (int b = 1; b < bandCount; b++) {
+				int below = firstRows[b] * width;
+				int above = below - width;
+				for (int x = 0; x < width; x++) {
+					if (result[above + x] != BORDER && result[below + x] != BORDER) {
+						sets.union(offsets[b - 1] + result[above + x], offsets[b] + result[below + x]);
+					}
+				}
+			}
+
+			// Identifiants globaux dans l'ordre des pixels : les zones locales
+			// d'une bande sont déjà numérotées dans cet ordre
+			int[] zoneOf = new int[offsets[bandCount]];
+			int[] rootZone = new int[offsets[bandCount]];
+			Arrays.fill(rootZone, BORDER);
+			int zones = 0;
+			for (int i = 0; i < zoneOf.length; i++) {
+				int root = sets.find(i);
+				if (rootZone[root] == BORDER) {
+					rootZone[root] = zones++;
+				}
+				zoneOf[i] = rootZone[root];
+			}
+			pool.invoke(new BandTask(0, bandCount, b -> {
+				int offset = offsets[b];
+				for (int i = firstRows[b] * width, end = firstRows[b + 1] * width; i < end; i++) {
+					if (result[i] != BORDER) {
+						result[i] = zoneOf[offset + result[i]];
+					}
+				}
+			}));
+			this.runs = ZoneRuns.concat(bands, offsets, zoneOf, zones);
+			this.zoneCount = zones;
+			this.zoneInfo = new ZoneInfo(runs);
+			this.labels = result;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * Labels the rows [firstRow, endRow) as if they were a whole image, and
+	 * returns their runs.
+	 */
+	private ZoneRuns labelBand(int[] result, int firstRow, int endRow) {
+		ZoneRuns band = new ZoneRuns(mask, firstRow, endRow);
+		band.fillLabels(result);
+		return band;
+	}
+
+	/*
+	 * Runs an action on each band of a range, splitting the range in halves.
+	 */
+	private static class BandTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final IntConsumer action;
+
+		BandTask(int from, int to, IntConsumer action) {
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				action.accept(from);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new BandTask(from, middle, action), new BandTask(middle, to, action));
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package color;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import graphics.Image;
+
+/**
+ * Scaling of the parallel ComponentLabeler with the number of threads, on the
+ * map images and on upscaled versions of them.
+ */
+public class ComponentLabelerDemo {
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("Available processors : " + cores);
+		for (String filename : new String[] { "img/maps/small_map.png", "img/maps/truchet_tiling.png",
+				"img/maps/three_colors_tiling.png", "img/maps/hat_monotile.png", "img/maps/USA_map.png",
+				"img/maps/conformally-regular-pentagonal-tiling.png" }) {
+			BufferedImage original = Image.loadImage(filename);
+			for (int scale : new int[] { 1, 4, 8 }) {
+				BufferedImage image = upscale(original, scale);
+				BorderMask mask = new BorderMask(image, Color.BLACK);
+				System.out.printf("\n>>> %s x%d (%dx%d, %.1f MP)\n", filename, scale, image.getWidth(),
+						image.getHeight(), image.getWidth() * (double) image.getHeight() / 1e6);
+				double reference = 0;
+				for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+					double duration = bestDuration(mask, parallelism);
+					if (parallelism == 1) reference = duration;
+					System.out.printf("%3d thread(s) : %8.2f ms  (x%.2f)\n", parallelism, duration, reference / duration);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Best labeling time in milliseconds, the first run warming up the JIT.
+	 */
+	private static double bestDuration(BorderMask mask, int parallelism) {
+		double best = Double.MAX_VALUE;
+		for (int run = 0; run <= RUNS; run++) {
+			long time = System.nanoTime();
+			new ComponentLabeler(mask, parallelism).getZoneCount();
+			double duration = (System.nanoTime() - time) / 1e6;
+			if (run > 0) best = Math.min(best, duration);
+		}
+		return best;
+	}
+
+	/*
+	 * Nearest neighbour upscaling, so that no intermediate color appears.
+	 */
+	private static BufferedImage upscale(BufferedImage image, int scale) {
+		if (scale == 1) return image;
+		BufferedImage scaled = new BufferedImage(image.getWidth() * scale, image.getHeight() * scale,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = scaled.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		graphics.drawImage(image, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+		graphics.dispose();
+		return scaled;
+	}
+}
@@ -0,0 +1,122 @@
+package color;
+
+/**
+ * Detection of the adjacent zones of a labeled map through a distance
+ * transform of its borders.
+ *
+ * A chamfer (3-4) distance transform, in two raster passes, gives every
+ * border pixel the distance to the nearest zone pixel along with the label of
+ * that zone, splitting the borders into the Voronoi regions of the zones. Two
+ * zones are adjacent where their regions meet and the border between them is
+ * at most borderWidth pixels thick there. The cost is O(pixels), whatever the
+ * thickness of the borders.
+ */
+public class DistanceTransformAdjacency {
+	// Coûts de la distance de chanfrein, en tiers de pixel
+	private static final int STRAIGHT = 3;
+	private static final int DIAGONAL = 4;
+	private static final int INFINITE = Integer.MAX_VALUE / 2;
+
+	private final int[] labels;
+	private final int width;
+	private final int height;
+	private final int borderWidth;
+	private long[] edges;
+
+	/**
+	 * Constructor
+	 *
+	 * @param labels the zone label of every pixel, {@link ComponentLabeler#BORDER} for the border
+	 * @param width the width of the image
+	 * @param borderWidth the maximal thickness, in pixels, of a border between two adjacent zones
+	 * @throws NullPointerException if labels is null
+	 * @throws IllegalArgumentException if the dimensions don't match the labels or borderWidth is negative
+	 */
+	public DistanceTransformAdjacency(int[] labels, int width, int borderWidth) {
+		if (labels == null) throw new NullPointerException("Labels cannot be null");
+		if (width <= 0 || labels.length % width != 0) {
+			throw new IllegalArgumentException("Invalid width " + width + " for " + labels.length + " labels");
+		}
+		if (borderWidth < 0) throw new IllegalArgumentException("borderWidth cannot be negative");
+		this.labels = labels;
+		this.width = width;
+		this.height = labels.length / width;
+		this.borderWidth = borderWidth;
+	}
+
+	/**
+	 * Returns the adjacent zone pairs, each encoded as (min << 32 | max), in
+	 * ascending order.
+	 * @return the edges of the zone adjacency graph
+	 */
+	public long[] getEdges() {
+		if (edges == null) {
+			edges = compute();
+		}
+		return edges;
+	}
+
+	private long[] compute() {
+		int[] distance = new int[labels.length];
+		int[] nearest = labels.clone();
+		for (int i = 0; i < labels.length; i++) {
+			distance[i] = labels[i] == ComponentLabeler.BORDER ? INFINITE : 0;
+		}
+
+		// Passe avant : voisins à gauche et sur la ligne précédente
+		for (int y = 0, i = 0; y < height; y++) {
+			for (int x = 0; x < width; x++, i++) {
+				if (distance[i] == 0) continue;
+				if (x > 0) relax(distance, nearest, i, i - 1, STRAIGHT);
+				if (y > 0) {
+					int up = i - width;
+					relax(distance, nearest, i, up, STRAIGHT);
+					if (x > 0) relax(distance, nearest, i, up - 1, DIAGONAL);
+					if (x + 1 < width) relax(distance, nearest, i, up + 1, DIAGONAL);
+				}
+			}
+		}
+		// Passe arrière : voisins à droite et sur la ligne suivante
+		for (int y = height - 1, i = labels.length - 1; y >= 0; y--) {
+			for (int x = width - 1; x >= 0; x--, i--) {
+				if (distance[i] == 0) continue;
+				if (x + 1 < width) relax(distance, nearest, i, i + 1, STRAIGHT);
+				if (y + 1 < height) {
+					int down = i + width;
+					relax(distance, nearest, i, down, STRAIGHT);
+					if (x + 1 < width) relax(distance, nearest, i, down + 1, DIAGONAL);
+					if (x > 0) relax(distance, nearest, i, down - 1, DIAGONAL);
+				}
+			}
+		}
+
+		// Rencontre de deux régions : l'épaisseur traversée est la somme des distances
+		int maxCrossing = STRAIGHT * borderWidth;
+		LongHashSet pairs = new LongHashSet(1024);
+		for (int y = 0, i = 0; y < height; y++) {
+			for (int x = 0; x < width; x++, i++) {
+				int zone = nearest[i];
+				if (zone == ComponentLabeler.BORDER) continue;
+				if (x + 1 < width) meet(distance, nearest, i, i + 1, maxCrossing, pairs);
+				if (y + 1 < height) meet(distance, nearest, i, i + width, maxCrossing, pairs);
+			}
+		}
+		return pairs.toSortedArray();
+	}
+
+	private static void relax(int[] distance, int[] nearest, int i, int neighbor, int cost) {
+		int d = distance[neighbor] + cost;
+		if (d < distance[i]) {
+			distance[i] = d;
+			nearest[i] = nearest[neighbor];
+		}
+	}
+
+	private static void meet(int[] distance, int[] nearest, int i, int j, int maxCrossing, LongHashSet pairs) {
+		int other = nearest[j];
+		if (other != nearest[i] && other != ComponentLabeler.BORDER
+				&& distance[i] + distance[j] <= maxCrossing) {
+			pairs.add(ZoneAdjacency.encode(nearest[i], other));
+		}
+	}
+}
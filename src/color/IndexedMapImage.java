@@ -0,0 +1,180 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.util.Map;
+
+/**
+ * A colored map as a {@link BufferedImage#TYPE_BYTE_INDEXED} image : every
+ * pixel holds 0 for the border, or 1 + the color class of its zone.
+ *
+ * The colors live in the {@link IndexColorModel} only, so that changing the
+ * palette, the border color or highlighting a color class costs O(colors) and
+ * leaves the pixels untouched. The pixels take one byte instead of four, and
+ * the image is written as a palette PNG or GIF directly.
+ */
+public class IndexedMapImage {
+	/** Pixel value of the border pixels. */
+	public static final int BORDER_INDEX = 0;
+	// Une entrée pour la frontière, au plus 255 classes de couleur
+	private static final int MAX_COLORS = 255;
+
+	private final WritableRaster raster;
+	private final int colorCount;
+	private final int[] rgb;
+	private BufferedImage image;
+
+	/**
+	 * Constructor
+	 *
+	 * @param labels the zone label of every pixel, {@link ComponentLabeler#BORDER} for the border
+	 * @param width the width of the image
+	 * @param zoneColors the color class of every zone, as given by a coloring
+	 * @param borderColor the color of the border pixels
+	 * @param palette the colors of the classes, at least one per class
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if the dimensions don't match the labels, the palette
+	 *             has fewer colors than classes or there are more than 255 color classes
+	 */
+	public IndexedMapImage(int[] labels, int width, Map<Integer, Integer> zoneColors, Color borderColor,
+			Color... palette) {
+		this(labels, width, IntColoring.of(zoneColors), borderColor, palette);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param labels the zone label of every pixel, {@link ComponentLabeler#BORDER} for the border
+	 * @param width the width of the image
+	 * @param coloring the color class of every zone
+	 * @param borderColor the color of the border pixels
+	 * @param palette the colors of the classes, at least one per class
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if the dimensions don't match the labels, the palette
+	 *             has fewer colors than classes or there are more than 255 color classes
+	 */
+	public IndexedMapImage(int[] labels, int width, IntColoring coloring, Color borderColor, Color... palette) {
+		if (labels == null || coloring == null || borderColor == null || palette == null) {
+			throw new NullPointerException("Labels, coloring, borderColor and palette cannot be null");
+		}
+		if (width <= 0 || labels.length % width != 0) {
+			throw new IllegalArgumentException("Invalid width " + width + " for " + labels.length + " labels");
+		}
+		int classes = coloring.getNumberColors();
+		if (classes > MAX_COLORS) {
+			throw new IllegalArgumentException(classes + " color classes, at most " + MAX_COLORS + " can be indexed");
+		}
+		this.colorCount = classes;
+		this.rgb = new int[classes + 1];
+		int zones = coloring.getVertexCount();
+		byte[] zoneIndex = new byte[zones];
+		for (int zone = 0; zone < zones; zone++) {
+			zoneIndex[zone] = (byte) (coloring.getColor(zone) + 1);
+		}
+		setColors(borderColor, palette);
+
+		int height = labels.length / width;
+		BufferedImage indexed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel());
+		this.raster = indexed.getRaster();
+		byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+		for (int i = 0; i < labels.length; i++) {
+			int zone = labels[i];
+			data[i] = zone >= 0 && zone < zones ? zoneIndex[zone] : BORDER_INDEX;
+		}
+		this.image = indexed;
+	}
+
+	/**
+	 * Returns the image with the current colors. An image returned before a
+	 * change of colors keeps its own colors, but shares its pixels.
+	 * @return the indexed image
+	 */
+	public BufferedImage getImage() {
+		if (image == null) {
+			image = new BufferedImage(colorModel(), raster, false, null);
+		}
+		return image;
+	}
+
+	/**
+	 * Returns the number of color classes.
+	 * @return the number of colors used by the zones
+	 */
+	public int getColorCount() {
+		return colorCount;
+	}
+
+	/**
+	 * Replaces the colors of the classes.
+	 *
+	 * @param palette the colors of the classes, at least one per class
+	 * @throws NullPointerException if palette is null
+	 * @throws IllegalArgumentException if the palette is empty or has fewer colors than classes
+	 */
+	public void setPalette(Color... palette) {
+		setColors(new Color(rgb[BORDER_INDEX], true), palette);
+		image = null;
+	}
+
+	/**
+	 * Replaces the color of the border.
+	 *
+	 * @param borderColor the color of the border pixels
+	 * @throws NullPointerException if borderColor is null
+	 */
+	public void setBorderColor(Color borderColor) {
+		if (borderColor == null) throw new NullPointerException("BorderColor cannot be null");
+		rgb[BORDER_INDEX] = borderColor.getRGB();
+		image = null;
+	}
+
+	/**
+	 * Returns an image showing the zones of a single color class, the zones
+	 * of the other classes being painted with another color. The colors of
+	 * this image don't change.
+	 *
+	 * @param colorClass a color class in 0..colorCount-1
+	 * @param others the color of the zones of the other classes
+	 * @return an image sharing the pixels of this one
+	 * @throws NullPointerException if others is null
+	 * @throws IllegalArgumentException if colorClass is not a color class
+	 */
+	public BufferedImage highlight(int colorClass, Color others) {
+		if (others == null) throw new NullPointerException("Color cannot be null");
+		if (colorClass < 0 || colorClass >= colorCount) {
+			throw new IllegalArgumentException("No color class " + colorClass);
+		}
+		int[] highlighted = rgb.clone();
+		for (int index = 1; index < highlighted.length; index++) {
+			if (index != colorClass + 1) {
+				highlighted[index] = others.getRGB();
+			}
+		}
+		return new BufferedImage(colorModel(highlighted), raster, false, null);
+	}
+
+	private void setColors(Color borderColor, Color[] palette) {
+		if (palette == null) throw new NullPointerException("Palette cannot be null");
+		if (palette.length == 0) throw new IllegalArgumentException("Palette cannot be empty");
+		// Pas de couleur répétée : deux classes voisines seraient confondues
+		if (palette.length < colorCount) {
+			throw new IllegalArgumentException(palette.length + " colors for " + colorCount + " color classes");
+		}
+		rgb[BORDER_INDEX] = borderColor.getRGB();
+		for (int c = 0; c < colorCount; c++) {
+			rgb[c + 1] = palette[c].getRGB();
+		}
+	}
+
+	private IndexColorModel colorModel() {
+		return colorModel(rgb);
+	}
+
+	private static IndexColorModel colorModel(int[] rgb) {
+		return new IndexColorModel(8, rgb.length, rgb, 0, true, -1, DataBuffer.TYPE_BYTE);
+	}
+}
@@ -0,0 +1,283 @@
+package color;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.jgrapht.alg.interfaces.VertexColoringAlgorithm.Coloring;
+
+/**
+ * Coloring of the vertices 0..n-1, stored as the color of each vertex in an
+ * int array : 4 bytes per vertex, where a HashMap of boxed integers takes
+ * tens of bytes.
+ *
+ * Hot loops read {@link #getColor(int)}. The {@link Coloring} views needed by
+ * JGraphT code are read-only views of the array ; the color classes are
+ * sorted once, on first use, in compressed sparse row form like
+ * {@link ZoneGraph} : the vertices of the color c are
+ * members[classOffsets[c]..classOffsets[c + 1]), in ascending order.
+ */
+public class IntColoring implements Coloring<Integer> {
+	/** Color of a vertex without color, such as a zone id freed by an update. */
+	public static final int UNCOLORED = -1;
+
+	private final int[] colorOf;
+	private final int numberColors;
+	private final int coloredCount;
+	private int[] classOffsets;
+	private int[] members;
+
+	/**
+	 * Constructor. The array is used as is, and must not be changed afterwards.
+	 *
+	 * @param colorOf the color of every vertex, {@link #UNCOLORED} for a vertex without color
+	 * @throws NullPointerException if colorOf is null
+	 * @throws IllegalArgumentException if a color is negative, other than UNCOLORED
+	 */
+	public IntColoring(int[] colorOf) {
+		if (colorOf == null) throw new NullPointerException("Colors cannot be null");
+		int max = UNCOLORED;
+		int colored = 0;
+		for (int v = 0; v < colorOf.length; v++) {
+			int color = colorOf[v];
+			if (color < UNCOLORED) {
+				throw new IllegalArgumentException("Invalid color " + color + " of vertex " + v);
+			}
+			if (color != UNCOLORED) colored++;
+			max = Math.max(max, color);
+		}
+		this.colorOf = colorOf;
+		this.numberColors = max + 1;
+		this.coloredCount = colored;
+	}
+
+	/**
+	 * Copies a coloring given as a map.
+	 *
+	 * @param colors the color of every colored vertex
+	 * @return the same coloring, over the vertices 0..max vertex
+	 * @throws NullPointerException if colors is null
+	 * @throws IllegalArgumentException if a vertex or a color is negative
+	 */
+	public static IntColoring of(Map<Integer, Integer> colors) {
+		if (colors == null) throw new NullPointerException("Colors cannot be null");
+		if (colors instanceof IntColoring.ColorMap) {
+			return ((IntColoring.ColorMap) colors).coloring();
+		}
+		int vertices = 0;
+		for (int vertex : colors.keySet()) {
+			if (vertex < 0) throw new IllegalArgumentException("Invalid vertex " + vertex);
+			vertices = Math.max(vertices, vertex + 1);
+		}
+		int[] colorOf = new int[vertices];
+		Arrays.fill(colorOf, UNCOLORED);
+		for (Map.Entry<Integer, Integer> entry : colors.entrySet()) {
+			if (entry.getValue() < 0) throw new IllegalArgumentException("Invalid color " + entry.getValue());
+			colorOf[entry.getKey()] = entry.getValue();
+		}
+		return new IntColoring(colorOf);
+	}
+
+	/**
+	 * Returns the color of a vertex.
+	 * @param vertex a vertex in 0..vertexCount-1
+	 * @return its color, or {@link #UNCOLORED}
+	 */
+	public int getColor(int vertex) {
+		return colorOf[vertex];
+	}
+
+	/**
+	 * Returns the number of vertices, colored or not.
+	 * @return the length of the color array
+	 */
+	public int getVertexCount() {
+		return colorOf.length;
+	}
+
+	/**
+	 * Returns the color of every vertex.
+	 * @return a copy of the color array
+	 */
+	public int[] toArray() {
+		return colorOf.clone();
+	}
+
+	int[] colors() {
+		return colorOf;
+	}
+
+	@Override
+	public int getNumberColors() {
+		return numberColors;
+	}
+
+	/**
+	 * Returns the vertices of a color.
+	 * @param color a color in 0..numberColors-1
+	 * @return the vertices of that color, in ascending order
+	 */
+	public int[] getColorClass(int color) {
+		sortClasses();
+		return Arrays.copyOfRange(members, classOffsets[color], classOffsets[color + 1]);
+	}
+
+	/**
+	 * Returns the colors as a read-only map over the colored vertices, backed
+	 * by the color array.
+	 * @return the color of every colored vertex
+	 */
+	@Override
+	public Map<Integer, Integer> getColors() {
+		return new ColorMap();
+	}
+
+	/**
+	 * Returns the color classes as read-only sets, sorted on first call.
+	 * @return the vertices of each color, indexed by color
+	 */
+	@Override
+	public List<Set<Integer>> getColorClasses() {
+		sortClasses();
+		return new AbstractList<Set<Integer>>() {
+			@Override
+			public Set<Integer> get(int color) {
+				if (color < 0 || color >= numberColors) throw new IndexOutOfBoundsException(color);
+				return new ColorClass(color);
+			}
+
+			@Override
+			public int size() {
+				return numberColors;
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "Colors: " + numberColors + ", vertices: " + coloredCount + "/" + colorOf.length;
+	}
+
+	private boolean isColored(Object o) {
+		return o instanceof Integer && (Integer) o >= 0 && (Integer) o < colorOf.length
+				&& colorOf[(Integer) o] != UNCOLORED;
+	}
+
+	// Tri par dénombrement des sommets selon leur couleur
+	private synchronized void sortClasses() {
+		if (members != null) return;
+		int[] offsets = new int[numberColors + 1];
+		for (int color : colorOf) {
+			if (color != UNCOLORED) offsets[color + 1]++;
+		}
+		for (int c = 0; c < numberColors; c++) {
+			offsets[c + 1] += offsets[c];
+		}
+		int[] next = Arrays.copyOf(offsets, numberColors);
+		int[] sorted = new int[coloredCount];
+		for (int v = 0; v < colorOf.length; v++) {
+			if (colorOf[v] != UNCOLORED) sorted[next[colorOf[v]]++] = v;
+		}
+		classOffsets = offsets;
+		members = sorted;
+	}
+
+	private class ColorMap extends AbstractMap<Integer, Integer> {
+
+		IntColoring coloring() {
+			return IntColoring.this;
+		}
+
+		@Override
+		public Integer get(Object key) {
+			return isColored(key) ? colorOf[(Integer) key] : null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return isColored(key);
+		}
+
+		@Override
+		public int size() {
+			return coloredCount;
+		}
+
+		@Override
+		public Set<Map.Entry<Integer, Integer>> entrySet() {
+			return new AbstractSet<Map.Entry<Integer, Integer>>() {
+				@Override
+				public Iterator<Map.Entry<Integer, Integer>> iterator() {
+					return new Iterator<Map.Entry<Integer, Integer>>() {
+						private int v = advance(0);
+
+						private int advance(int from) {
+							while (from < colorOf.length && colorOf[from] == UNCOLORED) from++;
+							return from;
+						}
+
+						@Override
+						public boolean hasNext() {
+							return v < colorOf.length;
+						}
+
+						@Override
+						public Map.Entry<Integer, Integer> next() {
+							if (!hasNext()) throw new NoSuchElementException();
+							Map.Entry<Integer, Integer> entry = new SimpleImmutableEntry<>(v, colorOf[v]);
+							v = advance(v + 1);
+							return entry;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return coloredCount;
+				}
+			};
+		}
+	}
+
+	private class ColorClass extends AbstractSet<Integer> {
+		private final int color;
+
+		ColorClass(int color) {
+			this.color = color;
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return new Iterator<Integer>() {
+				private int k = classOffsets[color];
+
+				@Override
+				public boolean hasNext() {
+					return k < classOffsets[color + 1];
+				}
+
+				@Override
+				public Integer next() {
+					if (!hasNext()) throw new NoSuchElementException();
+					return members[k++];
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return isColored(o) && colorOf[(Integer) o] == color;
+		}
+
+		@Override
+		public int size() {
+			return classOffsets[color + 1] - classOffsets[color];
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package color;
+
+import java.util.Arrays;
+
+/**
+ * Array-backed union-find (disjoint sets) over the integers 0..size-1, with
+ * path compression and union by rank. Sets are created on demand, the arrays
+ * grow as needed.
+ */
+final class IntUnionFind {
+	private int[] parent;
+	private byte[] rank;
+	private int size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param initialCapacity the expected number of sets
+	 */
+	IntUnionFind(int initialCapacity) {
+		int capacity = Math.max(16, initialCapacity);
+		this.parent = new int[capacity];
+		this.rank = new byte[capacity];
+	}
+
+	/**
+	 * Creates a new singleton set.
+	 * @return the element of the new set
+	 */
+	int makeSet() {
+		if (size == parent.length) {
+			int capacity = parent.length + (parent.length >> 1);
+			parent = Arrays.copyOf(parent, capacity);
+			rank = Arrays.copyOf(rank, capacity);
+		}
+		parent[size] = size;
+		return size++;
+	}
+
+	/**
+	 * Returns the number of elements created so far.
+	 * @return the number of elements
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the representative of the set containing an element.
+	 * @param x an element
+	 * @return the root of the set containing x
+	 */
+	int find(int x) {
+		int root = x;
+		while (parent[root] != root) {
+			root = parent[root];
+		}
+		// Compression du chemin parcouru
+		while (parent[x] != root) {
+			int next = parent[x];
+			parent[x] = root;
+			x = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Merges the sets containing two elements.
+	 * @param a an element
+	 * @param b another element
+	 * @return the root of the merged set
+	 */
+	int union(int a, int b) {
+		int ra = find(a);
+		int rb = find(b);
+		if (ra == rb) {
+			return ra;
+		}
+		if (rank[ra] < rank[rb]) {
+			parent[ra] = rb;
+			return rb;
+		}
+		if (rank[ra] == rank[rb]) {
+			rank[ra]++;
+		}
+		parent[rb] = ra;
+		return ra;
+	}
+}
@@ -0,0 +1,265 @@
+package color;
+
+import java.util.Arrays;
+
+import org.jgrapht.alg.interfaces.VertexColoringAlgorithm;
+
+/**
+ * Coloring of a zone graph with a bounded number of colors.
+ *
+ * The vertices are colored greedily in the reverse of a smallest-last order,
+ * so that each vertex has few colored neighbours when its turn comes. When
+ * these neighbours already use all the colors, two colors a and b are
+ * exchanged along the Kempe chains (the components of the subgraph colored a
+ * or b) starting at the neighbours colored a, which frees a if no neighbour
+ * colored b is reached. A planar graph always has a vertex of degree at most
+ * 5, which makes 5 colors always enough. 4 colors are tried first : a vertex
+ * left without color is then colored earlier in a new attempt, and a fifth
+ * color is only taken after a few failed attempts.
+ *
+ * Smallest-last ordering is O(V + E) ; a Kempe exchange visits the chains of
+ * a single vertex, and is only needed when the greedy step runs out of colors.
+ */
+public class KempeColoring implements VertexColoringAlgorithm<Integer> {
+	private static final int PLANAR_COLORS = 4;
+	private static final int UNCOLORED = IntColoring.UNCOLORED;
+	// Essais avec k couleurs avant d'en prendre une de plus
+	private static final int MAX_ATTEMPTS = 16;
+	// Taille maximale d'une chaîne échangée en complétant une coloration : au-delà, une couleur de plus
+	private static final int SEED_CHAIN = 16;
+
+	private final ZoneGraph graph;
+	private final int maxColors;
+
+	/**
+	 * Constructor
+	 *
+	 * @param graph the zone graph to color
+	 * @param maxColors the number of colors available, such as the size of a palette
+	 * @throws NullPointerException if graph is null
+	 * @throws IllegalArgumentException if maxColors is lower than 1
+	 */
+	public KempeColoring(ZoneGraph graph, int maxColors) {
+		if (graph == null) throw new NullPointerException("Graph cannot be null");
+		if (maxColors < 1) throw new IllegalArgumentException("At least one color is needed");
+		this.graph = graph;
+		this.maxColors = maxColors;
+	}
+
+	/**
+	 * Computes a coloring with 4 colors, or with the fewest colors up to
+	 * maxColors if 4 are not enough.
+	 *
+	 * @return a coloring whose colors are in 0..maxColors-1
+	 * @throws IllegalStateException if the graph cannot be colored with maxColors colors this way
+	 */
+	@Override
+	public IntColoring getColoring() {
+		return new IntColoring(colorArray());
+	}
+
+	/**
+	 * Extends a coloring of the same zones, such as the coloring of a preview :
+	 * a vertex keeps its color from the seed unless a neighbour kept it first,
+	 * the other vertices are colored as by {@link #getColoring()}. Kempe
+	 * exchanges are limited to short chains, so that they recolor few kept
+	 * vertices : a color is added rather than a long chain exchanged. If no
+	 * coloring within maxColors extends the seed, the graph is colored from
+	 * scratch.
+	 *
+	 * @param seed the colors to keep, UNCOLORED or outside the graph for none
+	 * @return a coloring whose colors are in 0..maxColors-1
+	 * @throws NullPointerException if seed is null
+	 * @throws IllegalStateException if the graph cannot be colored with maxColors colors this way
+	 */
+	public IntColoring getColoring(IntColoring seed) {
+		if (seed == null) throw new NullPointerException("Seed cannot be null");
+		int n = graph.vertexCount();
+		int[] offsets = graph.offsets();
+		int[] neighbors = graph.neighbors();
+		int[] kept = new int[n];
+		Arrays.fill(kept, UNCOLORED);
+		int seedColors = 0;
+		for (int v = 0; v < Math.min(n, seed.getVertexCount()); v++) {
+			int c = seed.getColor(v);
+			if (c == UNCOLORED || c >= maxColors) continue;
+			boolean free = true;
+			for (int j = offsets[v]; j < offsets[v + 1] && free; j++) {
+				free = kept[neighbors[j]] != c;
+			}
+			if (free) {
+				kept[v] = c;
+				seedColors = Math.max(seedColors, c + 1);
+			}
+		}
+		int[] order = smallestLastOrder();
+		int[] colors = new int[n];
+		for (int k = Math.max(seedColors, Math.min(PLANAR_COLORS, maxColors)); k <= maxColors; k++) {
+			System.arraycopy(kept, 0, colors, 0, n);
+			if (color(order, colors, k, SEED_CHAIN) < 0) {
+				return new IntColoring(colors);
+			}
+		}
+		return getColoring();
+	}
+
+	/*
+	 * Color of every vertex, trying 4 colors first, then one more at a time.
+	 */
+	int[] colorArray() {
+		int[] colors = new int[graph.vertexCount()];
+		for (int k = Math.min(PLANAR_COLORS, maxColors); k <= maxColors; k++) {
+			int[] order = smallestLastOrder();
+			// Sommet bloqué : il passe en tête de la coloration, pour quelques essais
+			for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+				Arrays.fill(colors, UNCOLORED);
+				int stuck = color(order, colors, k, colors.length);
+				if (stuck < 0) {
+					return colors;
+				}
+				int v = order[stuck];
+				System.arraycopy(order, stuck + 1, order, stuck, order.length - 1 - stuck);
+				order[order.length - 1] = v;
+			}
+		}
+		throw new IllegalStateException("Cannot color the zones with " + maxColors + " colors");
+	}
+
+	/*
+	 * Vertices in the order they are removed from the graph, the vertex of
+	 * lowest remaining degree first, with buckets of vertices by degree.
+	 */
+	private int[] smallestLastOrder() {
+		int n = graph.vertexCount();
+		int[] offsets = graph.offsets();
+		int[] neighbors = graph.neighbors();
+		int[] degree = new int[n];
+		int maxDegree = 0;
+		for (int v = 0; v < n; v++) {
+			degree[v] = offsets[v + 1] - offsets[v];
+			maxDegree = Math.max(maxDegree, degree[v]);
+		}
+		// Listes doublement chaînées des sommets de chaque degré
+		int[] head = new int[maxDegree + 1];
+		int[] next = new int[n];
+		int[] previous = new int[n];
+		Arrays.fill(head, -1);
+		for (int v = 0; v < n; v++) {
+			push(v, degree[v], head, next, previous);
+		}
+		boolean[] removed = new boolean[n];
+		int[] order = new int[n];
+		int low = 0;
+		for (int i = 0; i < n; i++) {
+			while (head[low] < 0) low++;
+			int v = head[low];
+			remove(v, degree[v], head, next, previous);
+			removed[v] = true;
+			order[i] = v;
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int u = neighbors[k];
+				if (!removed[u]) {
+					remove(u, degree[u], head, next, previous);
+					push(u, --degree[u], head, next, previous);
+				}
+			}
+			low = Math.max(0, low - 1);
+		}
+		return order;
+	}
+
+	private static void push(int v, int degree, int[] head, int[] next, int[] previous) {
+		next[v] = head[degree];
+		previous[v] = -1;
+		if (head[degree] >= 0) previous[head[degree]] = v;
+		head[degree] = v;
+	}
+
+	private static void remove(int v, int degree, int[] head, int[] next, int[] previous) {
+		if (previous[v] >= 0) {
+			next[previous[v]] = next[v];
+		} else {
+			head[degree] = next[v];
+		}
+		if (next[v] >= 0) previous[next[v]] = previous[v];
+	}
+
+	/*
+	 * Greedy coloring of the vertices without color, in the reverse of the
+	 * removal order, with Kempe exchanges when all k colors are taken around
+	 * a vertex, along chains of at most maxChain vertices. Returns the
+	 * position in the order of a vertex left without color, or -1.
+	 */
+	private int color(int[] order, int[] colors, int k, int maxChain) {
+		int[] offsets = graph.offsets();
+		int[] neighbors = graph.neighbors();
+		int[] count = new int[k];
+		int[] queue = new int[colors.length];
+		boolean[] visited = new boolean[colors.length];
+		for (int i = order.length - 1; i >= 0; i--) {
+			int v = order[i];
+			if (colors[v] != UNCOLORED) continue;
+			Arrays.fill(count, 0);
+			for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+				int c = colors[neighbors[j]];
+				if (c != UNCOLORED) count[c]++;
+			}
+			int free = 0;
+			while (free < k && count[free] > 0) free++;
+			if (free == k) {
+				free = kempeExchange(v, colors, k, maxChain, queue, visited);
+				if (free < 0) return i;
+			}
+			colors[v] = free;
+		}
+		return -1;
+	}
+
+	/*
+	 * Frees a color around v by exchanging two colors along the Kempe chains
+	 * of its neighbours, and returns it, or -1 if no exchange works.
+	 */
+	private int kempeExchange(int v, int[] colors, int k, int maxChain, int[] queue, boolean[] visited) {
+		int[] offsets = graph.offsets();
+		int[] neighbors = graph.neighbors();
+		for (int a = 0; a < k; a++) {
+			for (int b = 0; b < k; b++) {
+				if (a == b) continue;
+				// Chaînes (a, b) partant des voisins de couleur a
+				int size = 0;
+				for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+					int u = neighbors[j];
+					if (colors[u] == a && !visited[u]) {
+						visited[u] = true;
+						queue[size++] = u;
+					}
+				}
+				boolean blocked = false;
+				for (int head = 0; head < size && !blocked; head++) {
+					int u = queue[head];
+					for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+						int w = neighbors[j];
+						if (w == v || visited[w] || (colors[w] != a && colors[w] != b)) continue;
+						if (colors[w] == b && graph.edge(v, w) >= 0) {
+							blocked = true;
+							break;
+						}
+						visited[w] = true;
+						queue[size++] = w;
+						if (size > maxChain) {
+							blocked = true;
+							break;
+						}
+					}
+				}
+				for (int q = 0; q < size; q++) {
+					int u = queue[q];
+					visited[u] = false;
+					if (!blocked) colors[u] = colors[u] == a ? b : a;
+				}
+				if (!blocked) return a;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,111 @@
+package color;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of strictly positive long keys, without boxing.
+ */
+final class LongHashSet {
+	private static final long EMPTY = 0L;
+
+	private long[] keys;
+	private int size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param expectedSize the expected number of keys
+	 */
+	LongHashSet(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		this.keys = new long[capacity];
+	}
+
+	/**
+	 * Adds a key to the set.
+	 * @param key a strictly positive key
+	 * @return true if the key was not already in the set
+	 * @throws IllegalArgumentException if the key is not strictly positive
+	 */
+	boolean add(long key) {
+		if (key <= EMPTY) {
+			throw new IllegalArgumentException("Key must be strictly positive: " + key);
+		}
+		int mask = keys.length - 1;
+		int slot = mix(key) & mask;
+		while (keys[slot] != EMPTY) {
+			if (keys[slot] == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		if (++size * 2 > keys.length) {
+			rehash();
+		}
+		return true;
+	}
+
+	/**
+	 * Tells whether a key is in the set.
+	 * @param key a key
+	 * @return true if the key is in the set
+	 */
+	boolean contains(long key) {
+		if (key <= EMPTY) {
+			return false;
+		}
+		int mask = keys.length - 1;
+		int slot = mix(key) & mask;
+		while (keys[slot] != EMPTY) {
+			if (keys[slot] == key) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the keys of the set in ascending order.
+	 * @return the sorted keys
+	 */
+	long[] toSortedArray() {
+		long[] result = new long[size];
+		int n = 0;
+		for (long key : keys) {
+			if (key != EMPTY) {
+				result[n++] = key;
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	private void rehash() {
+		long[] old = keys;
+		keys = new long[old.length << 1];
+		int mask = keys.length - 1;
+		for (long key : old) {
+			if (key != EMPTY) {
+				int slot = mix(key) & mask;
+				while (keys[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+			}
+		}
+	}
+
+	private static int mix(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
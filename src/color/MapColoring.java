@@ -1,37 +1,54 @@
 package color;
 
 import java.awt.Color;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
-import org.jgrapht.alg.color.SaturationDegreeColoring;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
-import org.jgrapht.alg.interfaces.VertexColoringAlgorithm;
-import org.jgrapht.alg.interfaces.VertexColoringAlgorithm.Coloring;
-import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.SimpleGraph;
+import graphics.PixelSource;
 
 /**
  * Coloring of a Map image.
  *
+ * The stages are run by a {@link MapColoringPipeline}, which tells what each
+ * of them cost.
+ *
  * @author François Schumacker
  *
  */
 public class MapColoring {
 	private static final Logger logger = Logger.getLogger(MapColoring.class.getName());
-	@SuppressWarnings("unused")
-	private static final int[] rgbColors = { Color.BLUE.getRGB(), Color.RED.getRGB(), Color.GREEN.getRGB(),
+	static final int[] rgbColors = { Color.BLUE.getRGB(), Color.RED.getRGB(), Color.GREEN.getRGB(),
 			Color.YELLOW.getRGB(), Color.CYAN.getRGB(), Color.PINK.getRGB(), Color.ORANGE.getRGB(),
 			Color.MAGENTA.getRGB() };
+	// Distance maximale entre deux zones adjacentes, de part et d'autre d'une frontière
+	static final int ADJACENCY_DISTANCE = 4;
+	// Pixel hors frontière pas encore étiqueté, pendant une mise à jour
+	private static final int UNLABELED = Integer.MAX_VALUE;
+	private final MapColoringPipeline pipeline;
 	private BufferedImage image;
+	private int width;
+	private int height;
 	private Color borderColor;
-	private SimpleGraph<Integer, DefaultEdge> pixelGraph;
-	private SimpleGraph<Integer, DefaultEdge> zoneGraph;
-	private Map<Integer, Integer> zoneColorMap;
-	private Map<Integer, Set<Integer>> componentMap;
+	// Épaisseur maximale des frontières, 0 pour la distance fixe ADJACENCY_DISTANCE
+	private int borderWidth;
+	private int[] labels;
+	private int zoneCount;
+	private ZoneGraph zoneGraph;
+	private IntColoring coloring = new IntColoring(new int[0]);
+	// Identifiants des zones disparues lors d'une mise à jour, réutilisables
+	private final TreeSet<Integer> freeZones = new TreeSet<>();
+	private boolean painted;
+	private boolean edited;
+	// Statistiques des zones, recalculées après une mise à jour
+	private ZoneInfo zoneInfo;
 
-	public SimpleGraph<Integer, DefaultEdge> getAdjacencyGraph() {
+	public ZoneGraph getAdjacencyGraph() {
 		return zoneGraph;
 	}
 
@@ -43,213 +60,486 @@ public class MapColoring {
 	 * @throws NullPointerException if any input parameter is null
 	 */
 	public MapColoring(BufferedImage image, Color borderColor) {
+		this(image, borderColor, 1);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param image	a bitmap image representing a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param parallelism the number of threads labeling the map areas
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if parallelism is lower than 1
+	 */
+	public MapColoring(BufferedImage image, Color borderColor, int parallelism) {
+		this(image, borderColor, parallelism, 0);
+	}
+
+	/**
+	 * Constructor for maps with thick borders : two areas are adjacent where
+	 * the border between them is at most borderWidth pixels thick (see
+	 * {@link DistanceTransformAdjacency}).
+	 *
+	 * @param image	a bitmap image representing a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param parallelism the number of threads labeling the map areas
+	 * @param borderWidth the maximal thickness of the lines delimiting the map areas,
+	 *            or 0 to consider areas at most {@value #ADJACENCY_DISTANCE} pixels apart
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if parallelism is lower than 1 or borderWidth is negative
+	 */
+	public MapColoring(BufferedImage image, Color borderColor, int parallelism, int borderWidth) {
 		if (image == null || borderColor == null) {
 			throw new NullPointerException("Image and borderColor cannot be null");
 		}
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		if (borderWidth < 0) {
+			throw new IllegalArgumentException("Border width cannot be negative");
+		}
 		this.image = image;
+		this.width = image.getWidth();
+		this.height = image.getHeight();
 		this.borderColor = borderColor;
-		this.pixelGraph = new SimpleGraph<>(DefaultEdge.class);
-		this.zoneGraph = new SimpleGraph<>(DefaultEdge.class);
-		this.componentMap = new HashMap<>();
-		createGraphFromImage();
+		this.borderWidth = borderWidth;
+		this.pipeline = MapColoringPipeline.builder(image).borderColor(borderColor).parallelism(parallelism)
+				.borderWidth(borderWidth).build();
 		identifyComponents();
 		createZoneGraph();
 		applyColorsToImage();
 	}
 
+	private MapColoring(PixelSource source, Color borderColor, int parallelism) throws IOException {
+		this.width = source.getWidth();
+		this.height = source.getHeight();
+		this.borderColor = borderColor;
+		this.pipeline = MapColoringPipeline.builder(source).borderColor(borderColor).parallelism(parallelism).build();
+		try {
+			identifyComponents();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		createZoneGraph();
+		applyColorsToImage();
+	}
+
+	/*
+	 * Map colored by the stages of a pipeline started before, such as the
+	 * pipeline of a ProgressiveMapColoring : the stages already computed are
+	 * not run again.
+	 */
+	MapColoring(BufferedImage image, Color borderColor, int borderWidth, MapColoringPipeline pipeline) {
+		this.image = image;
+		this.width = image.getWidth();
+		this.height = image.getHeight();
+		this.borderColor = borderColor;
+		this.borderWidth = borderWidth;
+		this.pipeline = pipeline;
+		identifyComponents();
+		createZoneGraph();
+		applyColorsToImage();
+	}
+
+	/*
+	 * Map whose zones, adjacency graph and coloring were computed before, such
+	 * as a map read from a {@link ZoneMapFile} : no stage of the pipeline
+	 * is run. As after an update, the map is painted from its labels.
+	 */
+	MapColoring(BufferedImage image, Color borderColor, int borderWidth, int[] labels, ZoneGraph zoneGraph,
+			IntColoring coloring) {
+		this.image = image;
+		this.width = image.getWidth();
+		this.height = image.getHeight();
+		this.borderColor = borderColor;
+		this.borderWidth = borderWidth;
+		this.pipeline = MapColoringPipeline.builder(image).borderColor(borderColor).borderWidth(borderWidth).build();
+		this.labels = labels;
+		this.zoneCount = zoneGraph.vertexCount();
+		this.zoneGraph = zoneGraph;
+		this.coloring = coloring;
+		this.edited = true;
+	}
 
 	/**
-	 * Color the map areas with the least possible colors in such a way that
-	 * two adjacent areas have different colors.
+	 * Colors a map read from a pixel source, such as a memory-mapped
+	 * {@link graphics.RasterFile}. The pixels are read once to extract the
+	 * borders ; no BufferedImage is created before {@link #colorMap()}.
+	 *
+	 * @param source the pixels of a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @return the map coloring
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IOException if the pixels cannot be read
 	 */
-	public void colorMap() {
-		int width = image.getWidth();
-		int height = image.getHeight();
-
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				int vertexId = y * width + x;
-				Integer zoneId = findZoneId(vertexId);
-				if (zoneId != null && zoneColorMap.containsKey(zoneId)) {
-					int colorIndex = zoneColorMap.get(zoneId);
-					Color color = new Color(rgbColors[colorIndex % rgbColors.length]);
-					image.setRGB(x, y, color.getRGB());
-				}
-			}
+	public static MapColoring fromPixelSource(PixelSource source, Color borderColor) throws IOException {
+		if (source == null || borderColor == null) {
+			throw new NullPointerException("Source and borderColor cannot be null");
 		}
+		return new MapColoring(source, borderColor, 1);
 	}
 
 	/**
-	 * Return the adjacency graph of the image's areas.
-	 * @return the adjacency graph of the image's areas
+	 * Colors a map image in the background, with a future per stage : zones
+	 * labeled, adjacency graph ready, coloring ready and image painted in
+	 * place. Each stage runs on the executor, and the stages not completed can
+	 * be cancelled.
+	 *
+	 * @param image a bitmap image representing a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param executor the executor running the stages
+	 * @return the futures of the stages
+	 * @throws NullPointerException if any input parameter is null
 	 */
-	public SimpleGraph<Integer, DefaultEdge> adjacencyGraph() {
-		return pixelGraph;
+	public static AsyncMapColoring colorAsync(BufferedImage image, Color borderColor, Executor executor) {
+		if (image == null || borderColor == null || executor == null) {
+			throw new NullPointerException("Image, borderColor and executor cannot be null");
+		}
+		return MapColoringPipeline.builder(image).borderColor(borderColor).build().runAsync(executor);
 	}
 
 	/**
-	 * Return the coloring the adjacency graph.
-	 * @return the coloring of the adjacency graph
+	 * Color the map areas with the least possible colors in such a way that
+	 * two adjacent areas have different colors.
 	 */
-	public Coloring<Integer> getColoring() {
-		if (zoneColorMap.isEmpty()) {
-			logger.warning("No coloring available. Zone graph might be empty or improperly connected.");
-			return new VertexColoringAlgorithm.ColoringImpl<>(new HashMap<>(), 0);
+	public void colorMap() {
+		if (coloring.getNumberColors() == 0) {
+			return;
+		}
+		if (edited) {
+			new ZonePainter(labels, MapColoringPipeline.zoneRgb(coloring, pipeline.palette())).paint(image);
+		} else {
+			image = pipeline.painted().getValue();
 		}
-		return new VertexColoringAlgorithm.ColoringImpl<>(zoneColorMap, zoneColorMap.size());
+		painted = true;
 	}
 
-	public void createGraphFromImage() {
-		int width = image.getWidth();
-		int height = image.getHeight();
-		Map<Integer, Integer> pixelToVertexId = new HashMap<>();
-
-		// Parcourir chaque pixel pour créer des sommets
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				int rgb = image.getRGB(x, y);
-				if (rgb != borderColor.getRGB()) {  // Si ce n'est pas une bordure
-					int vertexId = y * width + x;
-					pixelGraph.addVertex(vertexId);
-					pixelToVertexId.put(vertexId, vertexId);
+	/**
+	 * Updates the zones, the adjacency graph and the coloring after the image
+	 * was edited inside a region, instead of coloring the whole map again.
+	 *
+	 * Only the zones crossing or touching the region are relabeled, along with
+	 * the zones they merge or split into ; their adjacencies are computed again
+	 * around them. A relabeled zone keeps its id and color when its neighbours
+	 * allow it, otherwise it gets the lowest color free among its neighbours ;
+	 * the other zones keep their id and color. If that color would be outside
+	 * the palette, the whole map is colored again. The ids of vanished zones are
+	 * reused by the next new zones, so ids are no longer in raster order after
+	 * an update. If the map was colored, the changed zones are painted again.
+	 *
+	 * @param dirtyRegion the region of the image which was edited
+	 * @return the ids of the zones whose pixels or color may have changed
+	 * @throws NullPointerException if dirtyRegion is null
+	 * @throws IllegalStateException if the map was read from a pixel source and not colored yet
+	 */
+	public Set<Integer> update(Rectangle dirtyRegion) {
+		if (dirtyRegion == null) {
+			throw new NullPointerException("Dirty region cannot be null");
+		}
+		if (image == null) {
+			throw new IllegalStateException("No image to update");
+		}
+		Rectangle bounds = new Rectangle(0, 0, width, height);
+		Rectangle dirty = dirtyRegion.intersection(bounds);
+		if (dirty.isEmpty()) {
+			return Collections.emptySet();
+		}
+		Rectangle ring = new Rectangle(dirty.x - 1, dirty.y - 1, dirty.width + 2, dirty.height + 2).intersection(bounds);
+		if (!edited) {
+			// Étiquettes partagées avec l'étape du pipeline : copiées avant la première modification
+			labels = labels.clone();
+		}
 
-					// Connecter avec le pixel à gauche s'il n'est pas une bordure
-					if (x > 0 && image.getRGB(x - 1, y) != borderColor.getRGB()) {
-						pixelGraph.addEdge(vertexId, pixelToVertexId.get(y * width + (x - 1)));
-					}
-					// Connecter avec le pixel au-dessus s'il n'est pas une bordure
-					if (y > 0 && image.getRGB(x, y - 1) != borderColor.getRGB()) {
-						pixelGraph.addEdge(vertexId, pixelToVertexId.get((y - 1) * width + x));
-					}
+		// 1. Zones touchées, puis frontières relues dans la région modifiée
+		Set<Integer> affected = new HashSet<>();
+		for (int y = ring.y; y < ring.y + ring.height; y++) {
+			for (int x = ring.x, i = y * width + x; x < ring.x + ring.width; x++, i++) {
+				if (labels[i] != ComponentLabeler.BORDER) {
+					affected.add(labels[i]);
 				}
 			}
 		}
-	}
-
-
-	private void identifyComponents() {
-		ConnectivityInspector<Integer, DefaultEdge> ci = new ConnectivityInspector<>(pixelGraph);
-		List<Set<Integer>> connectedComponents = ci.connectedSets();
-		int zoneId = 0;
-		componentMap.clear();
-		for (Set<Integer> component : connectedComponents) {
-			componentMap.put(zoneId, new HashSet<>(component));
-			zoneGraph.addVertex(zoneId);
-			//logger.info("Zone " + zoneId + " has " + component.size() + " pixels");  // Log the size of each zone
-			zoneId++;
+		int borderRgb = borderColor.getRGB();
+		int[] row = new int[dirty.width];
+		for (int y = dirty.y; y < dirty.y + dirty.height; y++) {
+			image.getRGB(dirty.x, y, dirty.width, 1, row, 0, dirty.width);
+			for (int x = 0, i = y * width + dirty.x; x < dirty.width; x++, i++) {
+				if (row[x] == borderRgb) {
+					labels[i] = ComponentLabeler.BORDER;
+				} else if (labels[i] == ComponentLabeler.BORDER) {
+					labels[i] = UNLABELED;
+				}
+			}
 		}
-		logger.info("Total zones identified: " + zoneId);  // Log the total number of identified zones
-	}
 
-	private void createZoneGraph() {
-		for (Integer zone1 : componentMap.keySet()) {
-			for (Integer zone2 : componentMap.keySet()) {
-				if (!zone1.equals(zone2) && areComponentsAdjacent(componentMap.get(zone1), componentMap.get(zone2), 4)) {
-					if (zoneGraph.containsVertex(zone1) && zoneGraph.containsVertex(zone2)) {
-						zoneGraph.addEdge(zone1, zone2);
-						//logger.info("Edge successfully added between " + zone1 + " and " + zone2);
-					} else {
-						logger.warning("Attempted to add edge between non-existent vertices: " + zone1 + " and " + zone2);
+		// 2. Composantes connexes à partir des pixels de la région et de son pourtour :
+		// elles couvrent toutes les zones touchées. Pixel visité : étiquette -2 - composante
+		int[] pixels = new int[256];
+		int count = 0;
+		List<Integer> previousZones = new ArrayList<>();
+		int minX = width, minY = height, maxX = -1, maxY = -1;
+		for (int y = ring.y; y < ring.y + ring.height; y++) {
+			for (int x = ring.x, i = y * width + x; x < ring.x + ring.width; x++, i++) {
+				if (labels[i] < 0) continue;
+				int mark = -2 - previousZones.size();
+				int previous = labels[i] == UNLABELED ? -1 : labels[i];
+				labels[i] = mark;
+				if (count == pixels.length) pixels = Arrays.copyOf(pixels, 2 * count);
+				pixels[count++] = i;
+				for (int head = count - 1; head < count; head++) {
+					int p = pixels[head];
+					int px = p % width;
+					int py = p / width;
+					minX = Math.min(minX, px);
+					maxX = Math.max(maxX, px);
+					minY = Math.min(minY, py);
+					maxY = Math.max(maxY, py);
+					for (int n = 0; n < 4; n++) {
+						int q;
+						if (n == 0 && px > 0) q = p - 1;
+						else if (n == 1 && px + 1 < width) q = p + 1;
+						else if (n == 2 && py > 0) q = p - width;
+						else if (n == 3 && py + 1 < height) q = p + width;
+						else continue;
+						if (labels[q] < 0) continue;
+						if (previous < 0 && labels[q] != UNLABELED) previous = labels[q];
+						labels[q] = mark;
+						if (count == pixels.length) pixels = Arrays.copyOf(pixels, 2 * count);
+						pixels[count++] = q;
 					}
 				}
+				previousZones.add(previous);
 			}
 		}
-	}
-
-
-	private boolean areComponentsAdjacent(Set<Integer> pixels1, Set<Integer> pixels2, int maxDistance) {
-		int width = image.getWidth();
-		// Définir la couleur des frontières pour la détection
-		int borderColor = Color.WHITE.getRGB(); // Exemple : supposons que les frontières sont blanches
 
-		// Utiliser un Map pour stocker les points de chaque zone par leur coordonnée x ou y pour faciliter les comparaisons
-		Map<Integer, List<Integer>> xCoords1 = new HashMap<>();
-		Map<Integer, List<Integer>> yCoords1 = new HashMap<>();
-		Map<Integer, List<Integer>> xCoords2 = new HashMap<>();
-		Map<Integer, List<Integer>> yCoords2 = new HashMap<>();
-
-		// Remplir les maps pour les deux ensembles de pixels
-		for (Integer p1 : pixels1) {
-			int x1 = p1 % width;
-			int y1 = p1 / width;
-			xCoords1.computeIfAbsent(x1, k -> new ArrayList<>()).add(y1);
-			yCoords1.computeIfAbsent(y1, k -> new ArrayList<>()).add(x1);
+		// 3. Une composante garde l'identifiant de la zone dont elle provient, si
+		// elle est la première à le réclamer
+		int[] zoneOfComponent = new int[previousZones.size()];
+		Set<Integer> kept = new HashSet<>();
+		for (int c = 0; c < zoneOfComponent.length; c++) {
+			int previous = previousZones.get(c);
+			zoneOfComponent[c] = previous >= 0 && kept.add(previous) ? previous : -1;
 		}
-		for (Integer p2 : pixels2) {
-			int x2 = p2 % width;
-			int y2 = p2 / width;
-			xCoords2.computeIfAbsent(x2, k -> new ArrayList<>()).add(y2);
-			yCoords2.computeIfAbsent(y2, k -> new ArrayList<>()).add(x2);
+		for (int zone : affected) {
+			if (!kept.contains(zone)) {
+				freeZones.add(zone);
+			}
+		}
+		for (int c = 0; c < zoneOfComponent.length; c++) {
+			if (zoneOfComponent[c] < 0) {
+				zoneOfComponent[c] = freeZones.isEmpty() ? zoneCount++ : freeZones.pollFirst();
+			}
+		}
+		// Copie des couleurs : une coloration rendue avant la mise à jour ne change pas
+		int previousCount = coloring.getVertexCount();
+		int[] colors = Arrays.copyOf(coloring.colors(), zoneCount);
+		Arrays.fill(colors, Math.min(previousCount, zoneCount), zoneCount, IntColoring.UNCOLORED);
+		for (int zone : affected) {
+			if (!kept.contains(zone)) {
+				colors[zone] = IntColoring.UNCOLORED;
+			}
+		}
+		for (int k = 0; k < count; k++) {
+			labels[pixels[k]] = zoneOfComponent[-2 - labels[pixels[k]]];
+		}
+		TreeSet<Integer> changed = new TreeSet<>();
+		for (int zone : zoneOfComponent) {
+			changed.add(zone);
 		}
 
-		// Vérifier l'adjacence verticale et horizontale avec un intervalle maximal
-		for (int x1 : xCoords1.keySet()) {
-			for (int x2 : xCoords2.keySet()) {
-				if (Math.abs(x1 - x2) <= maxDistance) {
-					for (int y1 : xCoords1.get(x1)) {
-						for (int y2 : xCoords2.get(x2)) {
-							if (Math.abs(y1 - y2) == 1 && image.getRGB(x1, Math.min(y1, y2)) == borderColor) {
-								return true;
-							}
-						}
-					}
+		// 4. Adjacences recalculées autour des composantes, les autres conservées
+		List<Long> edges = new ArrayList<>();
+		for (int edge = 0; edge < zoneGraph.edgeCount(); edge++) {
+			int source = zoneGraph.source(edge);
+			int target = zoneGraph.target(edge);
+			if (!affected.contains(source) && !affected.contains(target)) {
+				edges.add(ZoneAdjacency.encode(source, target));
+			}
+		}
+		Rectangle region = new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+		if (count > 0) {
+			int margin = Math.max(ADJACENCY_DISTANCE, 2 * borderWidth) + 1;
+			Rectangle window = new Rectangle(minX - margin, minY - margin, region.width + 2 * margin,
+					region.height + 2 * margin).intersection(bounds);
+			int[] windowLabels = new int[window.width * window.height];
+			for (int y = 0; y < window.height; y++) {
+				System.arraycopy(labels, (window.y + y) * width + window.x, windowLabels, y * window.width, window.width);
+			}
+			for (long edge : MapColoringPipeline.zoneEdges(windowLabels, window.width, borderWidth)) {
+				if (changed.contains(ZoneAdjacency.source(edge)) || changed.contains(ZoneAdjacency.target(edge))) {
+					edges.add(edge);
 				}
 			}
 		}
+		long[] sorted = new long[edges.size()];
+		for (int e = 0; e < sorted.length; e++) {
+			sorted[e] = edges.get(e);
+		}
+		zoneGraph = new ZoneGraph(zoneCount, sorted);
 
-		for (int y1 : yCoords1.keySet()) {
-			for (int y2 : yCoords2.keySet()) {
-				if (Math.abs(y1 - y2) <= maxDistance) {
-					for (int x1 : yCoords1.get(y1)) {
-						for (int x2 : yCoords2.get(y2)) {
-							if (Math.abs(x1 - x2) == 1 && image.getRGB(Math.min(x1, x2), y1) == borderColor) {
-								return true;
-							}
-						}
-					}
+		// 5. Couleurs : les zones inchangées gardent la leur
+		Set<Integer> done = new HashSet<>();
+		for (int zone : changed) {
+			BitSet used = new BitSet();
+			for (int k = 0; k < zoneGraph.degree(zone); k++) {
+				int neighbor = zoneGraph.neighbor(zone, k);
+				int color = colors[neighbor];
+				if (color != IntColoring.UNCOLORED && (!changed.contains(neighbor) || done.contains(neighbor))) {
+					used.set(color);
 				}
 			}
+			int color = colors[zone];
+			if (color == IntColoring.UNCOLORED || used.get(color)) {
+				colors[zone] = used.nextClearBit(0);
+			}
+			done.add(zone);
+		}
+		coloring = new IntColoring(colors);
+		// Palette épuisée : toute la carte est recoloriée, avec échanges de Kempe
+		boolean recolored = false;
+		for (int zone : changed) {
+			if (colors[zone] >= pipeline.palette().length) {
+				coloring = MapColoringPipeline.colorZones(zoneGraph, pipeline.palette().length);
+				recolored = true;
+				break;
+			}
 		}
+		logger.info("Updated zones: " + changed);
+		edited = true;
+		zoneInfo = null;
 
-		return false;
+		if (painted && recolored) {
+			new ZonePainter(labels, MapColoringPipeline.zoneRgb(coloring, pipeline.palette())).paint(image);
+		} else if (painted && count > 0) {
+			new ZonePainter(labels, MapColoringPipeline.zoneRgb(coloring, pipeline.palette())).paint(image, region);
+		}
+		return Collections.unmodifiableSet(changed);
 	}
 
+	/**
+	 * Saves the zones, the adjacency graph and the coloring of the map, as
+	 * they are after the updates, in a {@link ZoneMapFile}.
+	 *
+	 * @param path the destination file
+	 * @throws NullPointerException if path is null
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path path) throws IOException {
+		if (path == null) throw new NullPointerException("Path cannot be null");
+		ZoneMapFile.write(path, width, labels, zoneGraph, coloring, borderColor, borderWidth);
+	}
 
-	public void applyColorsToImage() {
-		if (zoneGraph.vertexSet().isEmpty()) {
-			logger.warning("Zone graph is empty, no coloring possible.");
-			return;
+	/**
+	 * Return the pipeline running the stages of the coloring, with their
+	 * timings. It reflects the map as it was built, before any update.
+	 * @return the pipeline of the coloring
+	 */
+	public MapColoringPipeline getPipeline() {
+		return pipeline;
+	}
+
+	/**
+	 * Return the image colored by {@link #colorMap()}.
+	 * @return the image, or null if it was built from a pixel source and not colored yet
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Return the adjacency graph of the image's areas.
+	 * @return the adjacency graph of the image's areas
+	 */
+	public ZoneGraph adjacencyGraph() {
+		return zoneGraph;
+	}
+
+	/**
+	 * Return the area, bounding box, centroid, perimeter and first pixel of
+	 * every zone. The ids freed by {@link #update(Rectangle)} have an area of 0.
+	 * @return the statistics of the zones
+	 */
+	public ZoneInfo getZoneInfo() {
+		if (zoneInfo == null) {
+			zoneInfo = edited ? new ZoneInfo(labels, width, zoneCount) : pipeline.labels().getValue().getZoneInfo();
 		}
-		SaturationDegreeColoring<Integer, DefaultEdge> coloringAlg = new SaturationDegreeColoring<>(zoneGraph);
-		Coloring<Integer> coloring = coloringAlg.getColoring();
-		zoneColorMap = coloring.getColors();
-		if (zoneColorMap == null || zoneColorMap.isEmpty()) {
-			logger.warning("No colors were assigned to any zone.");
-			return;
+		return zoneInfo;
+	}
+
+	/**
+	 * Return the coloring the adjacency graph. The ids freed by
+	 * {@link #update(Rectangle)} have no color.
+	 * @return the coloring of the adjacency graph
+	 */
+	public IntColoring getColoring() {
+		if (coloring.getNumberColors() == 0) {
+			logger.warning("No coloring available. Zone graph might be empty or improperly connected.");
 		}
+		return coloring;
+	}
+
+	/**
+	 * Return the colored map as an indexed image, with the default palette.
+	 * Its colors can then be changed without touching the pixels.
+	 * @return the indexed image of the colored map
+	 * @throws IllegalArgumentException if the coloring uses more than 255 colors
+	 */
+	public IndexedMapImage toIndexedImage() {
+		return toIndexedImage(defaultPalette());
+	}
 
+	/**
+	 * Return the colored map as an indexed image.
+	 * @param palette the colors of the color classes, at least one per class
+	 * @return the indexed image of the colored map
+	 * @throws NullPointerException if palette is null
+	 * @throws IllegalArgumentException if the palette has fewer colors than the coloring
+	 *             or the coloring uses more than 255 colors
+	 */
+	public IndexedMapImage toIndexedImage(Color... palette) {
+		return new IndexedMapImage(labels, width, coloring, borderColor, palette);
+	}
 
-		// Additional check to ensure no adjacent zones share the same color
-		for (DefaultEdge edge : zoneGraph.edgeSet()) {
-			Integer source = zoneGraph.getEdgeSource(edge);
-			Integer target = zoneGraph.getEdgeTarget(edge);
-			if (zoneColorMap.get(source).equals(zoneColorMap.get(target))) {
-				logger.severe(String.format("Adjacent zones %d and %d have the same color %d", source, target, zoneColorMap.get(source)));
-				// Implement a fallback or corrective action here
-			}
+	/**
+	 * Return the colors given to the color classes when no palette is chosen.
+	 * @return a copy of the default palette
+	 */
+	public static Color[] defaultPalette() {
+		Color[] palette = new Color[rgbColors.length];
+		for (int c = 0; c < palette.length; c++) {
+			palette[c] = new Color(rgbColors[c], true);
 		}
-		//logger.info("Coloring result: " + zoneColorMap);
+		return palette;
 	}
 
+	int[] labels() {
+		return labels;
+	}
 
-	private Integer findZoneId(int pixelId) {
-		for (Map.Entry<Integer, Set<Integer>> entry : componentMap.entrySet()) {
-			if (entry.getValue().contains(pixelId)) {
-				return entry.getKey();
-			}
-		}
-		return null;
+	private void identifyComponents() {
+		ComponentLabeler labeler = pipeline.labels().getValue();
+		labels = labeler.getLabels();
+		zoneCount = labeler.getZoneCount();
 	}
 
+	private void createZoneGraph() {
+		zoneGraph = pipeline.adjacency().getValue();
+	}
+
+	/**
+	 * Colors the adjacency graph and checks the coloring : the coloring and
+	 * validation stages of the pipeline, or a new coloring once the map was
+	 * updated.
+	 */
+	public void applyColorsToImage() {
+		if (edited) {
+			coloring = MapColoringPipeline.colorZones(zoneGraph, pipeline.palette().length);
+			MapColoringPipeline.conflicts(zoneGraph, coloring);
+		} else {
+			coloring = pipeline.coloring().getValue();
+			pipeline.validation();
+		}
+	}
 
 }
@@ -0,0 +1,479 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Headless coloring of many map images.
+ *
+ * Every image goes through four stages : decoding and encoding run on an I/O
+ * executor, labeling and coloring on a compute executor. A memory budget
+ * bounds the images in flight : the size of an image is read from its header,
+ * and its decoding is queued until enough of the budget is free. Queued images
+ * don't hold a thread, so a small I/O pool cannot deadlock on the budget.
+ *
+ * Results come back as {@link CompletableFuture}s, which fail with the cause of
+ * the error (an {@link IOException} for an unreadable image) wrapped in a
+ * {@link CompletionException}.
+ */
+public class MapColoringBatch implements AutoCloseable {
+	private static final Logger logger = Logger.getLogger(MapColoringBatch.class.getName());
+	// Mémoire d'une image en cours, par pixel : pixels ARGB, étiquettes et masque des frontières
+	static final long BYTES_PER_PIXEL = 9;
+
+	private final Color borderColor;
+	private final Executor ioExecutor;
+	private final Executor computeExecutor;
+	private final long memoryBudget;
+	private final List<ExecutorService> ownedExecutors = new ArrayList<>();
+	private final Set<CompletableFuture<Result>> pending = ConcurrentHashMap.newKeySet();
+	private final Deque<Job> waiting = new ArrayDeque<>();
+	private long available;
+	private final AtomicLong startNanos = new AtomicLong(Long.MIN_VALUE);
+	private final AtomicLong endNanos = new AtomicLong(Long.MIN_VALUE);
+	private final LongAdder completedImages = new LongAdder();
+	private final LongAdder completedPixels = new LongAdder();
+
+	/**
+	 * Constructor
+	 *
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param ioExecutor the executor decoding and encoding the images
+	 * @param computeExecutor the executor labeling and coloring the maps
+	 * @param memoryBudget the maximal number of bytes used by the images in flight
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if memoryBudget is not positive
+	 */
+	public MapColoringBatch(Color borderColor, Executor ioExecutor, Executor computeExecutor, long memoryBudget) {
+		if (borderColor == null || ioExecutor == null || computeExecutor == null) {
+			throw new NullPointerException("BorderColor and executors cannot be null");
+		}
+		if (memoryBudget <= 0) {
+			throw new IllegalArgumentException("Memory budget must be positive");
+		}
+		this.borderColor = borderColor;
+		this.ioExecutor = ioExecutor;
+		this.computeExecutor = computeExecutor;
+		this.memoryBudget = memoryBudget;
+		this.available = memoryBudget;
+	}
+
+	/**
+	 * Constructor with executors owned by the batch, shut down by
+	 * {@link #close()}.
+	 *
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param threads the number of threads labeling and coloring the maps, and
+	 *            decoding and encoding the images unless virtual threads are used
+	 * @param virtualThreads true to decode and encode on virtual threads, when
+	 *            the Java runtime supports them
+	 * @param memoryBudget the maximal number of bytes used by the images in flight
+	 * @throws NullPointerException if borderColor is null
+	 * @throws IllegalArgumentException if threads is lower than 1 or memoryBudget is not positive
+	 */
+	public MapColoringBatch(Color borderColor, int threads, boolean virtualThreads, long memoryBudget) {
+		this(borderColor, newIoExecutor(threads, virtualThreads), Executors.newFixedThreadPool(threads), memoryBudget);
+		ownedExecutors.add((ExecutorService) ioExecutor);
+		ownedExecutors.add((ExecutorService) computeExecutor);
+	}
+
+	/**
+	 * Colors a map image file.
+	 *
+	 * @param input the image to color, in a format supported by ImageIO
+	 * @param output the file receiving the colored image, in the format of its
+	 *            extension, or null to skip the encoding
+	 * @return the result of the coloring
+	 * @throws NullPointerException if input is null
+	 */
+	public CompletableFuture<Result> submit(Path input, Path output) {
+		if (input == null) throw new NullPointerException("Input cannot be null");
+		File file = input.toFile();
+		Encoder encoder = output == null ? null : image -> {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+				write(image, formatOf(output), out);
+			}
+		};
+		return submit(new Job(input.toString(), () -> open(file), true), encoder);
+	}
+
+	/**
+	 * Colors a map image read from a stream. The streams are not closed.
+	 *
+	 * @param name the name of the image in the results
+	 * @param input the image to color, in a format supported by ImageIO
+	 * @param output the stream receiving the colored image as PNG, or null to
+	 *            skip the encoding
+	 * @return the result of the coloring
+	 * @throws NullPointerException if name or input is null
+	 */
+	public CompletableFuture<Result> submit(String name, InputStream input, OutputStream output) {
+		if (name == null || input == null) throw new NullPointerException("Name and input cannot be null");
+		Encoder encoder = output == null ? null : image -> write(image, "png", output);
+		return submit(new Job(name, () -> open(input), false), encoder);
+	}
+
+	/**
+	 * Colors map image files, writing the colored images under the same names
+	 * in a directory.
+	 *
+	 * @param inputs the images to color
+	 * @param outputDirectory the directory receiving the colored images, or null
+	 *            to skip the encoding
+	 * @return the results of the coloring, in the order of the inputs
+	 * @throws NullPointerException if inputs is null
+	 */
+	public List<CompletableFuture<Result>> submitAll(List<Path> inputs, Path outputDirectory) {
+		List<CompletableFuture<Result>> results = new ArrayList<>(inputs.size());
+		for (Path input : inputs) {
+			results.add(submit(input, outputDirectory == null ? null : outputDirectory.resolve(input.getFileName())));
+		}
+		return results;
+	}
+
+	public long getCompletedImages() {
+		return completedImages.sum();
+	}
+
+	/**
+	 * Returns the number of images colored per second, from the first
+	 * submission to the last completion.
+	 * @return the throughput in images per second, 0 before the first completion
+	 */
+	public double getImagesPerSecond() {
+		return perSecond(completedImages.sum());
+	}
+
+	/**
+	 * Returns the number of pixels colored per second, from the first
+	 * submission to the last completion.
+	 * @return the throughput in megapixels per second, 0 before the first completion
+	 */
+	public double getMegapixelsPerSecond() {
+		return perSecond(completedPixels.sum()) / 1e6;
+	}
+
+	/**
+	 * Waits for the images submitted, then shuts down the executors created by
+	 * the batch.
+	 */
+	@Override
+	public void close() {
+		CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).handle((v, e) -> null).join();
+		for (ExecutorService executor : ownedExecutors) {
+			executor.shutdown();
+		}
+	}
+
+	private double perSecond(long count) {
+		long start = startNanos.get();
+		long end = endNanos.get();
+		if (start == Long.MIN_VALUE || end == Long.MIN_VALUE || end <= start) {
+			return 0;
+		}
+		return count * 1e9 / (end - start);
+	}
+
+	private CompletableFuture<Result> submit(Job job, Encoder encoder) {
+		startNanos.compareAndSet(Long.MIN_VALUE, System.nanoTime());
+		CompletableFuture<Result> result = CompletableFuture.runAsync(io(job, this::readHeader), ioExecutor)
+				.thenCompose(v -> admit(job))
+				.thenRunAsync(io(job, this::decode), ioExecutor)
+				.thenRunAsync(() -> color(job), computeExecutor)
+				.thenRunAsync(io(job, j -> encode(j, encoder)), ioExecutor)
+				.thenApply(v -> complete(job))
+				.whenComplete((r, error) -> release(job));
+		pending.add(result);
+		result.whenComplete((r, error) -> pending.remove(result));
+		return result;
+	}
+
+	/*
+	 * Dimensions from the header ; a file is closed until its decoding, so
+	 * that the queued images don't hold file handles, while a stream keeps its
+	 * reader.
+	 */
+	private void readHeader(Job job) throws IOException {
+		job.open();
+		job.width = job.reader.getWidth(0);
+		job.height = job.reader.getHeight(0);
+		job.permits = Math.min(memoryBudget, (long) job.width * job.height * BYTES_PER_PIXEL);
+		if (job.reopenable) {
+			job.dispose();
+		}
+	}
+
+	private CompletableFuture<Void> admit(Job job) {
+		synchronized (waiting) {
+			if (waiting.isEmpty() && available >= job.permits) {
+				available -= job.permits;
+				job.admitted.complete(null);
+			} else {
+				waiting.add(job);
+			}
+		}
+		return job.admitted;
+	}
+
+	private void decode(Job job) throws IOException {
+		long time = System.nanoTime();
+		if (job.reader == null) {
+			job.open();
+		}
+		job.image = job.reader.read(0);
+		job.dispose();
+		job.decodeNanos = System.nanoTime() - time;
+	}
+
+	private void color(Job job) {
+		long time = System.nanoTime();
+		MapColoring mc = new MapColoring(job.image, borderColor);
+		mc.colorMap();
+		job.zoneCount = mc.adjacencyGraph().vertexCount();
+		job.colorCount = mc.getColoring().getNumberColors();
+		job.colorNanos = System.nanoTime() - time;
+	}
+
+	private void encode(Job job, Encoder encoder) throws IOException {
+		if (encoder == null) return;
+		long time = System.nanoTime();
+		encoder.write(job.image);
+		job.encodeNanos = System.nanoTime() - time;
+	}
+
+	private Result complete(Job job) {
+		completedImages.increment();
+		completedPixels.add((long) job.width * job.height);
+		endNanos.accumulateAndGet(System.nanoTime(), Math::max);
+		return new Result(job);
+	}
+
+	/*
+	 * Frees the budget of an image and starts the queued images that fit, in
+	 * submission order.
+	 */
+	private void release(Job job) {
+		job.image = null;
+		try {
+			job.dispose();
+		} catch (IOException e) {
+			logger.warning("Cannot close " + job.name + ": " + e.getMessage());
+		}
+		if (!job.admitted.isDone()) {
+			synchronized (waiting) {
+				waiting.remove(job);
+			}
+			return;
+		}
+		List<Job> ready = new ArrayList<>();
+		synchronized (waiting) {
+			available += job.permits;
+			while (!waiting.isEmpty() && waiting.peek().permits <= available) {
+				Job next = waiting.poll();
+				available -= next.permits;
+				ready.add(next);
+			}
+		}
+		for (Job next : ready) {
+			next.admitted.complete(null);
+		}
+	}
+
+	private static Runnable io(Job job, IOStage stage) {
+		return () -> {
+			try {
+				stage.run(job);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		};
+	}
+
+	private static ImageInputStream open(Object input) throws IOException {
+		ImageInputStream stream = ImageIO.createImageInputStream(input);
+		if (stream == null) {
+			throw new IOException("Cannot open " + input);
+		}
+		return stream;
+	}
+
+	private static void write(BufferedImage image, String format, OutputStream output) throws IOException {
+		if (!ImageIO.write(image, format, output)) {
+			throw new IOException("No " + format + " writer for image type " + image.getType());
+		}
+	}
+
+	private static String formatOf(Path output) {
+		String name = output.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		return dot < 0 ? "png" : name.substring(dot + 1);
+	}
+
+	/*
+	 * Virtual threads (Java 21) are looked up by reflection, so that the
+	 * class still runs on Java 17.
+	 */
+	private static ExecutorService newIoExecutor(int threads, boolean virtualThreads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be at least 1");
+		}
+		if (virtualThreads) {
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+				logger.info("Virtual threads unavailable, using " + threads + " I/O threads");
+			}
+		}
+		return Executors.newFixedThreadPool(threads);
+	}
+
+	private interface IOStage {
+		void run(Job job) throws IOException;
+	}
+
+	private interface Opener {
+		ImageInputStream open() throws IOException;
+	}
+
+	private interface Encoder {
+		void write(BufferedImage image) throws IOException;
+	}
+
+	/*
+	 * State of an image going through the stages, each stage happening
+	 * after the previous one.
+	 */
+	private static class Job {
+		final String name;
+		final Opener opener;
+		final boolean reopenable;
+		final CompletableFuture<Void> admitted = new CompletableFuture<>();
+		ImageInputStream input;
+		ImageReader reader;
+		long permits;
+		int width;
+		int height;
+		BufferedImage image;
+		int zoneCount;
+		int colorCount;
+		long decodeNanos;
+		long colorNanos;
+		long encodeNanos;
+
+		Job(String name, Opener opener, boolean reopenable) {
+			this.name = name;
+			this.opener = opener;
+			this.reopenable = reopenable;
+		}
+
+		void open() throws IOException {
+			input = opener.open();
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext()) {
+				throw new IOException("Unsupported image format: " + name);
+			}
+			reader = readers.next();
+			reader.setInput(input, false, true);
+		}
+
+		void dispose() throws IOException {
+			if (reader != null) {
+				reader.dispose();
+				reader = null;
+			}
+			if (input != null) {
+				input.close();
+				input = null;
+			}
+		}
+	}
+
+	/**
+	 * Outcome of the coloring of an image, with the time spent in each stage.
+	 */
+	public static class Result {
+		private final String name;
+		private final int width;
+		private final int height;
+		private final int zoneCount;
+		private final int colorCount;
+		private final long decodeNanos;
+		private final long colorNanos;
+		private final long encodeNanos;
+
+		private Result(Job job) {
+			this.name = job.name;
+			this.width = job.width;
+			this.height = job.height;
+			this.zoneCount = job.zoneCount;
+			this.colorCount = job.colorCount;
+			this.decodeNanos = job.decodeNanos;
+			this.colorNanos = job.colorNanos;
+			this.encodeNanos = job.encodeNanos;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public int getZoneCount() {
+			return zoneCount;
+		}
+
+		public int getColorCount() {
+			return colorCount;
+		}
+
+		public long getDecodeNanos() {
+			return decodeNanos;
+		}
+
+		public long getColorNanos() {
+			return colorNanos;
+		}
+
+		public long getEncodeNanos() {
+			return encodeNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s : %dx%d, %d zones, %d colors, decode %.1f ms, color %.1f ms, encode %.1f ms", name,
+					width, height, zoneCount, colorCount, decodeNanos / 1e6, colorNanos / 1e6, encodeNanos / 1e6);
+		}
+	}
+}
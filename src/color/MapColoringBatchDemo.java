@@ -0,0 +1,36 @@
+package color;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * MapColoringBatch example : the map images are colored without display,
+ * several at a time, into a temporary directory.
+ */
+public class MapColoringBatchDemo {
+	private static final long MEMORY_BUDGET = 256L << 20;
+
+	public static void main(String[] args) throws IOException {
+		List<Path> inputs = new ArrayList<>();
+		for (String filename : new String[] { "img/maps/small_map.png", "img/maps/truchet_tiling.png",
+				"img/maps/three_colors_tiling.png", "img/maps/hat_monotile.png", "img/maps/USA_map.png",
+				"img/maps/conformally-regular-pentagonal-tiling.png" }) {
+			inputs.add(Paths.get(filename));
+		}
+		Path outputDirectory = Files.createTempDirectory("colored-maps");
+		int threads = Runtime.getRuntime().availableProcessors();
+		try (MapColoringBatch batch = new MapColoringBatch(Color.BLACK, threads, true, MEMORY_BUDGET)) {
+			for (CompletableFuture<MapColoringBatch.Result> result : batch.submitAll(inputs, outputDirectory)) {
+				System.out.println(result.join());
+			}
+			System.out.printf("%d images in %s : %.2f images/s, %.2f MP/s\n", batch.getCompletedImages(),
+					outputDirectory, batch.getImagesPerSecond(), batch.getMegapixelsPerSecond());
+		}
+	}
+}
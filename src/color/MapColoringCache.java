@@ -0,0 +1,291 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * On-disk cache of the zones, adjacency graph and coloring of map images.
+ *
+ * An entry is keyed by a 64-bit hash of the pixels, the border color, the
+ * border width, the adjacency distance, the number of colors and the version
+ * of the coloring algorithm : the same map colored again with another palette
+ * or painted at another size reuses it. The entry is a {@link ZoneMapFile},
+ * memory-mapped when read, so that a cached map only costs the hash of its
+ * pixels and the decoding of its label runs.
+ *
+ * The directory is bounded in size : after a new entry is written, the least
+ * recently used entries are deleted, a hit marking its entry as used by its
+ * modification time. Entries are written to a temporary file and then moved,
+ * so that several processes can share a directory.
+ */
+public class MapColoringCache {
+	private static final Logger logger = Logger.getLogger(MapColoringCache.class.getName());
+	// Version de l'algorithme de coloration : à changer quand les résultats changent
+	static final String ALGORITHM = "kempe1";
+	static final String SUFFIX = ".zmap";
+
+	private final Path directory;
+	private final long maxBytes;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Constructor
+	 *
+	 * @param directory the directory of the cache, created if needed
+	 * @param maxBytes the maximal size of the entries of the directory
+	 * @throws NullPointerException if directory is null
+	 * @throws IllegalArgumentException if maxBytes is not positive
+	 * @throws IOException if the directory cannot be created
+	 */
+	public MapColoringCache(Path directory, long maxBytes) throws IOException {
+		if (directory == null) throw new NullPointerException("Directory cannot be null");
+		if (maxBytes <= 0) throw new IllegalArgumentException("Cache size must be positive");
+		this.directory = Files.createDirectories(directory);
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Colors a map image, from the cache when it holds the same map.
+	 *
+	 * @param image a bitmap image representing a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @return the map coloring, whose image is not painted yet
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IOException if a new entry cannot be written
+	 */
+	public MapColoring color(BufferedImage image, Color borderColor) throws IOException {
+		return color(image, borderColor, 0);
+	}
+
+	/**
+	 * Colors a map image with thick borders, from the cache when it holds the
+	 * same map (see {@link MapColoring#MapColoring(BufferedImage, Color, int, int)}).
+	 *
+	 * @param image a bitmap image representing a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param borderWidth the maximal thickness of the lines delimiting the map areas,
+	 *            or 0 to consider areas at most {@value MapColoring#ADJACENCY_DISTANCE} pixels apart
+	 * @return the map coloring, whose image is not painted yet
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if borderWidth is negative
+	 * @throws IOException if a new entry cannot be written
+	 */
+	public MapColoring color(BufferedImage image, Color borderColor, int borderWidth) throws IOException {
+		if (image == null || borderColor == null) {
+			throw new NullPointerException("Image and borderColor cannot be null");
+		}
+		if (borderWidth < 0) {
+			throw new IllegalArgumentException("Border width cannot be negative");
+		}
+		Path entry = directory.resolve(key(image, borderColor, borderWidth));
+		MapColoring cached = read(entry, image, borderColor, borderWidth);
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+		misses.increment();
+		MapColoring coloring = new MapColoring(image, borderColor, 1, borderWidth);
+		write(entry, coloring);
+		evict();
+		return coloring;
+	}
+
+	/**
+	 * Returns the number of maps read from the cache.
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of maps colored and added to the cache.
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the size of the entries of the directory.
+	 * @return the number of bytes used by the cache
+	 * @throws IOException if the directory cannot be listed
+	 */
+	public long size() throws IOException {
+		long size = 0;
+		for (Entry entry : entries()) {
+			size += entry.size;
+		}
+		return size;
+	}
+
+	/*
+	 * Name of the entry of a map : hash of the pixels, then the parameters.
+	 */
+	static String key(BufferedImage image, Color borderColor, int borderWidth) {
+		return String.format("%016x-%08x-%d-%d-%d-%s%s", pixelHash(image), borderColor.getRGB(), borderWidth,
+				MapColoring.ADJACENCY_DISTANCE, MapColoring.rgbColors.length, ALGORITHM, SUFFIX);
+	}
+
+	/*
+	 * 64-bit hash of the ARGB pixels, read from the data buffer of an
+	 * int-packed image, a scanline at a time otherwise.
+	 */
+	static long pixelHash(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		long hash = mix(((long) width << 32) | height);
+		int type = image.getType();
+		if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+			Raster raster = image.getRaster();
+			DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+			int[] data = buffer.getData();
+			int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+			int base = buffer.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+			// Le canal alpha d'une image RGB n'est pas significatif
+			int alpha = type == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+			for (int y = 0; y < height; y++) {
+				hash = hashRow(hash, data, base + y * stride, width, alpha);
+			}
+		} else {
+			int[] row = new int[width];
+			for (int y = 0; y < height; y++) {
+				image.getRGB(0, y, width, 1, row, 0, width);
+				hash = hashRow(hash, row, 0, width, 0);
+			}
+		}
+		return mix(hash);
+	}
+
+	private static long hashRow(long hash, int[] pixels, int from, int width, int alpha) {
+		int x = 0;
+		for (; x + 1 < width; x += 2) {
+			long pair = ((long) (pixels[from + x] | alpha) << 32) | ((pixels[from + x + 1] | alpha) & 0xFFFFFFFFL);
+			hash = Long.rotateLeft(hash ^ pair * 0x9E3779B97F4A7C15L, 27) * 0xC2B2AE3D27D4EB4FL;
+		}
+		if (x < width) {
+			hash = Long.rotateLeft(hash ^ (pixels[from + x] | alpha) * 0x9E3779B97F4A7C15L, 27) * 0xC2B2AE3D27D4EB4FL;
+		}
+		return hash;
+	}
+
+	// Mélange final de MurmurHash3
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		return h ^ h >>> 33;
+	}
+
+	/*
+	 * Writes an entry to a temporary file, then moves it in place.
+	 */
+	private void write(Path entry, MapColoring coloring) throws IOException {
+		Path temporary = Files.createTempFile(directory, "entry", ".tmp");
+		try {
+			coloring.save(temporary);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+		Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/*
+	 * Reads an entry, or returns null if there is none. A corrupted entry is
+	 * deleted.
+	 */
+	private MapColoring read(Path entry, BufferedImage image, Color borderColor, int borderWidth) {
+		try {
+			ZoneMapFile file = new ZoneMapFile(entry);
+			if (file.getBorderColor().getRGB() != borderColor.getRGB() || file.getBorderWidth() != borderWidth) {
+				throw new IOException("Not an entry of this map");
+			}
+			MapColoring coloring = file.toMapColoring(image);
+			touch(entry);
+			return coloring;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			logger.warning("Discarding cache entry " + entry + ": " + e);
+			try {
+				Files.deleteIfExists(entry);
+			} catch (IOException ignored) {
+				// Un autre processus l'a peut-être supprimée
+			}
+			return null;
+		}
+	}
+
+	// Date de dernière utilisation, pour l'éviction
+	private static void touch(Path entry) {
+		try {
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			logger.fine("Cannot touch cache entry " + entry + ": " + e);
+		}
+	}
+
+	/*
+	 * Deletes the least recently used entries until the directory fits in
+	 * maxBytes.
+	 */
+	private void evict() throws IOException {
+		List<Entry> entries = entries();
+		long size = 0;
+		for (Entry entry : entries) {
+			size += entry.size;
+		}
+		entries.sort(Comparator.comparingLong(entry -> entry.used));
+		for (int i = 0; i < entries.size() && size > maxBytes; i++) {
+			Entry entry = entries.get(i);
+			if (Files.deleteIfExists(entry.path)) {
+				logger.info("Evicted cache entry " + entry.path);
+			}
+			size -= entry.size;
+		}
+	}
+
+	private List<Entry> entries() throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path path : stream) {
+				try {
+					entries.add(new Entry(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+				} catch (NoSuchFileException e) {
+					// Supprimée entre-temps
+				}
+			}
+		}
+		return entries;
+	}
+
+	private static class Entry {
+		final Path path;
+		final long size;
+		final long used;
+
+		Entry(Path path, long size, long used) {
+			this.path = path;
+			this.size = size;
+			this.used = used;
+		}
+	}
+}
@@ -29,6 +29,9 @@ public class MapColoringDemo {
 			MapColoring mc = new MapColoring(image, Color.BLACK);
 			mc.colorMap();
 			System.out.printf("Image coloring in %.2f seconds\n", (System.currentTimeMillis() - time) / 1000.0);
+			for (StageResult<?> stage : mc.getPipeline().getStageResults()) {
+				System.out.println("  " + stage);
+			}
 
 			// 3. Update display with colored image
 			Image.updateImage(p, image, mc.getColoring().getNumberColors() + " colors");
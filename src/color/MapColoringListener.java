@@ -0,0 +1,18 @@
+package color;
+
+/**
+ * Listener of the stages of a {@link MapColoringPipeline}, to collect
+ * metrics : durations, pixels, zones, edges, colors and memory.
+ *
+ * The listener is called by the thread which ran the stage, right after it.
+ * An exception thrown by the listener is logged and doesn't stop the pipeline.
+ */
+@FunctionalInterface
+public interface MapColoringListener {
+
+	/**
+	 * Called when a stage is completed.
+	 * @param result the output of the stage, with its costs
+	 */
+	void stageCompleted(StageResult<?> result);
+}
@@ -0,0 +1,451 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.logging.Logger;
+
+import graphics.PixelSource;
+
+/**
+ * Coloring of a Map image as a chain of lazy stages : border mask, zone
+ * labels, adjacency graph, coloring and painted image.
+ *
+ * Each stage is computed on its first request, after the stages it depends
+ * on, and kept ; a caller only needing the zones or the adjacency graph stops
+ * there. Every stage result tells its wall time, allocated bytes, heap growth
+ * and output size.
+ *
+ * Completed stages are reported to the {@link MapColoringListener}s of the
+ * pipeline and recorded as {@code color.MapColoringStage} events of JDK Flight
+ * Recorder, so that a recording started with {@code jcmd <pid> JFR.start}
+ * shows the cost of each stage in production.
+ *
+ * <pre>
+ * MapColoringPipeline pipeline = MapColoringPipeline.builder(image).borderColor(Color.BLACK).build();
+ * int zones = pipeline.labels().getValue().getZoneCount();
+ * </pre>
+ */
+public class MapColoringPipeline {
+	private static final Logger logger = Logger.getLogger(MapColoringPipeline.class.getName());
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	/**
+	 * The stages of the pipeline, in order.
+	 */
+	public enum Stage {
+		MASK, LABELS, ADJACENCY, COLORING, VALIDATION, PAINTING
+	}
+
+	private final BufferedImage image;
+	private final PixelSource source;
+	private final Color borderColor;
+	private final int parallelism;
+	private final int borderWidth;
+	private final int[] palette;
+	private final List<MapColoringListener> listeners;
+	private final long pixels;
+	private StageResult<BorderMask> mask;
+	private StageResult<ComponentLabeler> labels;
+	private StageResult<ZoneGraph> adjacency;
+	private StageResult<IntColoring> coloring;
+	private StageResult<Integer> validation;
+	private StageResult<BufferedImage> painting;
+
+	private MapColoringPipeline(Builder builder) {
+		this.image = builder.image;
+		this.source = builder.source;
+		this.borderColor = builder.borderColor;
+		this.parallelism = builder.parallelism;
+		this.borderWidth = builder.borderWidth;
+		this.palette = builder.palette;
+		this.listeners = new ArrayList<>(builder.listeners);
+		this.pixels = image != null ? (long) image.getWidth() * image.getHeight()
+				: (long) source.getWidth() * source.getHeight();
+	}
+
+	/**
+	 * Starts a pipeline coloring an image, painted in place.
+	 *
+	 * @param image a bitmap image representing a map to color
+	 * @return the builder of the pipeline
+	 * @throws NullPointerException if image is null
+	 */
+	public static Builder builder(BufferedImage image) {
+		if (image == null) throw new NullPointerException("Image cannot be null");
+		return new Builder(image, null);
+	}
+
+	/**
+	 * Starts a pipeline coloring the pixels of a source, painted into a new
+	 * image.
+	 *
+	 * @param source the pixels of a map to color
+	 * @return the builder of the pipeline
+	 * @throws NullPointerException if source is null
+	 */
+	public static Builder builder(PixelSource source) {
+		if (source == null) throw new NullPointerException("Source cannot be null");
+		return new Builder(null, source);
+	}
+
+	/**
+	 * Returns the border pixels of the map.
+	 * @return the mask stage
+	 * @throws UncheckedIOException if the pixel source cannot be read
+	 */
+	public synchronized StageResult<BorderMask> mask() {
+		if (mask == null) {
+			mask = run(Stage.MASK, pixels, () -> {
+				if (image != null) return new BorderMask(image, borderColor);
+				try {
+					return new BorderMask(source, borderColor);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, BorderMask::countBorderPixels);
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the zones of the map, labeled in raster order.
+	 * @return the labels stage
+	 */
+	public synchronized StageResult<ComponentLabeler> labels() {
+		if (labels == null) {
+			BorderMask borders = mask().getValue();
+			labels = run(Stage.LABELS, pixels, () -> {
+				ComponentLabeler labeler = new ComponentLabeler(borders, parallelism);
+				labeler.getLabels();
+				logger.info("Total zones identified: " + labeler.getZoneCount());
+				return labeler;
+			}, ComponentLabeler::getZoneCount);
+		}
+		return labels;
+	}
+
+	/**
+	 * Returns the adjacency graph of the zones.
+	 * @return the adjacency stage
+	 */
+	public synchronized StageResult<ZoneGraph> adjacency() {
+		if (adjacency == null) {
+			ComponentLabeler labeler = labels().getValue();
+			int width = mask().getValue().getWidth();
+			// À distance fixe, les paires se trouvent run à run plutôt que pixel à pixel
+			adjacency = run(Stage.ADJACENCY, pixels, () -> new ZoneGraph(labeler.getZoneCount(),
+					borderWidth > 0 ? zoneEdges(labeler.getLabels(), width, borderWidth)
+							: labeler.getRuns().getEdges(MapColoring.ADJACENCY_DISTANCE)),
+					ZoneGraph::edgeCount);
+		}
+		return adjacency;
+	}
+
+	/**
+	 * Returns the coloring of the adjacency graph, two adjacent zones having
+	 * different colors.
+	 * @return the coloring stage
+	 */
+	public synchronized StageResult<IntColoring> coloring() {
+		if (coloring == null) {
+			ZoneGraph graph = adjacency().getValue();
+			coloring = run(Stage.COLORING, 0, () -> colorZones(graph, palette.length), IntColoring::getNumberColors);
+		}
+		return coloring;
+	}
+
+	/*
+	 * Coloring stage extending a coloring of the same zones, such as the
+	 * coloring of a preview (see ProgressiveMapColoring). The stage keeps its
+	 * first value : once computed, the seed is ignored.
+	 */
+	synchronized StageResult<IntColoring> coloring(IntColoring seed) {
+		if (coloring == null) {
+			ZoneGraph graph = adjacency().getValue();
+			coloring = run(Stage.COLORING, 0, () -> colorZones(graph, palette.length, seed),
+					IntColoring::getNumberColors);
+		}
+		return coloring;
+	}
+
+	/**
+	 * Checks the coloring : every pair of adjacent zones sharing a color is
+	 * logged as an error.
+	 * @return the validation stage, whose value is the number of such pairs
+	 */
+	public synchronized StageResult<Integer> validation() {
+		if (validation == null) {
+			ZoneGraph graph = adjacency().getValue();
+			IntColoring colors = coloring().getValue();
+			validation = run(Stage.VALIDATION, 0, () -> conflicts(graph, colors), Integer::longValue);
+		}
+		return validation;
+	}
+
+	/**
+	 * Returns the map painted with one color per zone. An image given to the
+	 * builder is painted in place, a pixel source is copied first.
+	 * @return the painting stage
+	 * @throws UncheckedIOException if the pixel source cannot be read
+	 */
+	public synchronized StageResult<BufferedImage> painted() {
+		if (painting == null) {
+			int[] zoneLabels = labels().getValue().getLabels();
+			IntColoring colors = coloring().getValue();
+			painting = run(Stage.PAINTING, pixels, () -> {
+				BufferedImage target = image != null ? image : copyOf(source);
+				new ZonePainter(zoneLabels, zoneRgb(colors, palette)).paint(target);
+				return target;
+			}, target -> (long) target.getWidth() * target.getHeight() - mask().getValue().countBorderPixels());
+		}
+		return painting;
+	}
+
+	/**
+	 * Runs the stages in the background, each as a task of an executor.
+	 *
+	 * @param executor the executor running the stages
+	 * @return the futures of the stages, which can be cancelled
+	 * @throws NullPointerException if executor is null
+	 */
+	public AsyncMapColoring runAsync(Executor executor) {
+		return new AsyncMapColoring(this, executor);
+	}
+
+	/**
+	 * Returns the results of the stages computed so far, in stage order.
+	 * @return the computed stages
+	 */
+	public synchronized List<StageResult<?>> getStageResults() {
+		List<StageResult<?>> results = new ArrayList<>();
+		for (StageResult<?> result : new StageResult<?>[] { mask, labels, adjacency, coloring, validation,
+				painting }) {
+			if (result != null) results.add(result);
+		}
+		return results;
+	}
+
+	static long[] zoneEdges(int[] labels, int width, int borderWidth) {
+		return borderWidth > 0
+				? new DistanceTransformAdjacency(labels, width, borderWidth).getEdges()
+				: new ZoneAdjacency(labels, width, MapColoring.ADJACENCY_DISTANCE).getEdges();
+	}
+
+	/*
+	 * Coloring within the palette : 4 colors, more only if the zone graph
+	 * needs them, never more than maxColors.
+	 */
+	static IntColoring colorZones(ZoneGraph graph, int maxColors) {
+		if (graph.vertexCount() == 0) {
+			logger.warning("Zone graph is empty, no coloring possible.");
+			return new IntColoring(new int[0]);
+		}
+		return new KempeColoring(graph, maxColors).getColoring();
+	}
+
+	static IntColoring colorZones(ZoneGraph graph, int maxColors, IntColoring seed) {
+		if (graph.vertexCount() == 0) {
+			return colorZones(graph, maxColors);
+		}
+		return new KempeColoring(graph, maxColors).getColoring(seed);
+	}
+
+	static int conflicts(ZoneGraph graph, IntColoring colors) {
+		int[] colorOf = colors.colors();
+		int conflicts = 0;
+		for (int edge = 0; edge < graph.edgeCount(); edge++) {
+			int source = graph.source(edge);
+			int target = graph.target(edge);
+			int color = source < colorOf.length ? colorOf[source] : IntColoring.UNCOLORED;
+			if (color != IntColoring.UNCOLORED && target < colorOf.length && color == colorOf[target]) {
+				logger.severe(String.format("Adjacent zones %d and %d have the same color %d", source, target, color));
+				conflicts++;
+			}
+		}
+		return conflicts;
+	}
+
+	int[] palette() {
+		return palette;
+	}
+
+	static int[] zoneRgb(IntColoring colors, int[] palette) {
+		int[] colorOf = colors.colors();
+		int[] zoneRgb = new int[colorOf.length];
+		for (int zone = 0; zone < colorOf.length; zone++) {
+			// Les colorations restent dans la palette : pas de couleur répétée par modulo
+			if (colorOf[zone] != IntColoring.UNCOLORED) zoneRgb[zone] = palette[colorOf[zone]];
+		}
+		return zoneRgb;
+	}
+
+	static BufferedImage copyOf(PixelSource source) {
+		int width = source.getWidth();
+		int height = source.getHeight();
+		BufferedImage copy = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		int[] row = new int[width];
+		try {
+			for (int y = 0; y < height; y++) {
+				source.readRows(y, 1, row);
+				copy.setRGB(0, y, width, 1, row, 0, width);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return copy;
+	}
+
+	private <T> StageResult<T> run(Stage stage, long stagePixels, Supplier<T> computation,
+			ToLongFunction<T> outputSize) {
+		MapColoringStageEvent event = new MapColoringStageEvent();
+		long heap = usedHeap();
+		long allocated = allocatedBytes();
+		event.begin();
+		long time = System.nanoTime();
+		T value = computation.get();
+		long wallNanos = System.nanoTime() - time;
+		event.end();
+		if (allocated >= 0) {
+			allocated = allocatedBytes() - allocated;
+		}
+		long heapGrowth = Math.max(0, usedHeap() - heap);
+		StageResult<T> result = new StageResult<>(stage, value, wallNanos, allocated, heapGrowth, stagePixels,
+				outputSize.applyAsLong(value));
+		if (event.shouldCommit()) {
+			event.stage = stage.name();
+			event.pixels = stagePixels;
+			event.zones = labels != null ? labels.getOutputSize() : stage == Stage.LABELS ? result.getOutputSize() : -1;
+			event.edges = adjacency != null ? adjacency.getOutputSize() : stage == Stage.ADJACENCY ? result.getOutputSize() : -1;
+			event.colors = coloring != null ? coloring.getOutputSize() : stage == Stage.COLORING ? result.getOutputSize() : -1;
+			event.outputSize = result.getOutputSize();
+			event.allocatedBytes = allocated;
+			event.heapGrowthBytes = heapGrowth;
+			event.commit();
+		}
+		for (MapColoringListener listener : listeners) {
+			try {
+				listener.stageCompleted(result);
+			} catch (RuntimeException e) {
+				logger.warning("Listener failed on stage " + stage + ": " + e);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Heap used now, read without resetting the peak usages of the pools,
+	 * which other tools of the JVM rely on.
+	 */
+	private static long usedHeap() {
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	/*
+	 * Bytes allocated by the current thread, when the JVM (HotSpot) can tell.
+	 */
+	private static long allocatedBytes() {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+			if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+				return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Settings of a pipeline.
+	 */
+	public static class Builder {
+		private final BufferedImage image;
+		private final PixelSource source;
+		private Color borderColor = Color.BLACK;
+		private int parallelism = 1;
+		private int borderWidth = 0;
+		private int[] palette = MapColoring.rgbColors;
+		private final List<MapColoringListener> listeners = new ArrayList<>();
+
+		private Builder(BufferedImage image, PixelSource source) {
+			this.image = image;
+			this.source = source;
+		}
+
+		/**
+		 * @param borderColor the color of the lines delimiting the map areas, black by default
+		 * @return this builder
+		 * @throws NullPointerException if borderColor is null
+		 */
+		public Builder borderColor(Color borderColor) {
+			if (borderColor == null) throw new NullPointerException("BorderColor cannot be null");
+			this.borderColor = borderColor;
+			return this;
+		}
+
+		/**
+		 * @param parallelism the number of threads labeling the map areas, 1 by default
+		 * @return this builder
+		 * @throws IllegalArgumentException if parallelism is lower than 1
+		 */
+		public Builder parallelism(int parallelism) {
+			if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		/**
+		 * @param borderWidth the maximal thickness of the lines delimiting the map
+		 *            areas, or 0 (by default) to consider areas at most
+		 *            {@value MapColoring#ADJACENCY_DISTANCE} pixels apart
+		 * @return this builder
+		 * @throws IllegalArgumentException if borderWidth is negative
+		 */
+		public Builder borderWidth(int borderWidth) {
+			if (borderWidth < 0) throw new IllegalArgumentException("Border width cannot be negative");
+			this.borderWidth = borderWidth;
+			return this;
+		}
+
+		/**
+		 * @param palette the colors painted on the zones, one per color class :
+		 *            the coloring uses at most palette.length colors
+		 * @return this builder
+		 * @throws NullPointerException if palette is null
+		 * @throws IllegalArgumentException if palette is empty
+		 */
+		public Builder palette(Color... palette) {
+			if (palette == null) throw new NullPointerException("Palette cannot be null");
+			if (palette.length == 0) throw new IllegalArgumentException("Palette cannot be empty");
+			this.palette = new int[palette.length];
+			for (int c = 0; c < palette.length; c++) {
+				this.palette[c] = palette[c].getRGB();
+			}
+			return this;
+		}
+
+		/**
+		 * @param listener a listener notified of every completed stage
+		 * @return this builder
+		 * @throws NullPointerException if listener is null
+		 */
+		public Builder listener(MapColoringListener listener) {
+			if (listener == null) throw new NullPointerException("Listener cannot be null");
+			listeners.add(listener);
+			return this;
+		}
+
+		public MapColoringPipeline build() {
+			return new MapColoringPipeline(this);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package color;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a stage of a {@link MapColoringPipeline}. Its
+ * duration is the wall time of the stage ; zones, edges and colors are -1
+ * until the stage computing them has run.
+ */
+@Name("color.MapColoringStage")
+@Label("Map Coloring Stage")
+@Category("Map Coloring")
+@Description("A stage of the coloring of a map image")
+@StackTrace(false)
+class MapColoringStageEvent extends jdk.jfr.Event {
+	@Label("Stage")
+	String stage;
+
+	@Label("Pixels")
+	long pixels;
+
+	@Label("Zones")
+	long zones;
+
+	@Label("Adjacency Edges")
+	long edges;
+
+	@Label("Colors")
+	long colors;
+
+	@Label("Output Size")
+	long outputSize;
+
+	@Label("Allocated")
+	@DataAmount
+	long allocatedBytes;
+
+	@Label("Heap Growth")
+	@DataAmount
+	long heapGrowthBytes;
+}
@@ -0,0 +1,230 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+import graphics.DrawingPanel;
+import graphics.Image;
+
+/**
+ * Coloring of a map image in two levels, for interactive previews.
+ *
+ * The borders are extracted once at full resolution, then reduced to blocks
+ * of factor x factor pixels, a block being a border if any of its pixels is
+ * (see {@link BorderMask#downsample(int)}) : the zones of the preview never
+ * merge zones of the map, they can only shrink, split or vanish. The preview
+ * is labeled and colored in a fraction of the time of the map. The map is
+ * then labeled at full resolution, and its coloring extends the coloring of
+ * the preview : a zone takes the color of the first preview zone inside it,
+ * unless a neighbour took that color first (see
+ * {@link KempeColoring#getColoring(IntColoring)}).
+ *
+ * <pre>
+ * DrawingPanel panel = Image.displayImage(image, filename);
+ * new ProgressiveMapColoring(image, Color.BLACK).display(panel, filename, executor);
+ * </pre>
+ */
+public class ProgressiveMapColoring {
+	private static final Logger logger = Logger.getLogger(ProgressiveMapColoring.class.getName());
+	// Taille visée de l'aperçu : étiqueté et colorié en quelques dizaines de ms
+	static final long PREVIEW_PIXELS = 1 << 20;
+
+	private final BufferedImage image;
+	private final Color borderColor;
+	private final int factor;
+	private final MapColoringPipeline pipeline;
+	private BorderMask previewMask;
+	private int[] previewLabels;
+	private IntColoring previewColoring;
+	private BufferedImage preview;
+	private MapColoring refined;
+	private int keptColors;
+
+	/**
+	 * Constructor, with a preview of about {@value #PREVIEW_PIXELS} pixels.
+	 *
+	 * @param image a bitmap image representing a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @throws NullPointerException if any input parameter is null
+	 */
+	public ProgressiveMapColoring(BufferedImage image, Color borderColor) {
+		this(image, borderColor, previewFactor(image));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param image a bitmap image representing a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param factor the width and height in pixels of a pixel of the preview
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if factor is lower than 1
+	 */
+	public ProgressiveMapColoring(BufferedImage image, Color borderColor, int factor) {
+		if (image == null || borderColor == null) {
+			throw new NullPointerException("Image and borderColor cannot be null");
+		}
+		if (factor < 1) {
+			throw new IllegalArgumentException("Factor must be at least 1");
+		}
+		this.image = image;
+		this.borderColor = borderColor;
+		this.factor = factor;
+		this.pipeline = MapColoringPipeline.builder(image).borderColor(borderColor).build();
+	}
+
+	/**
+	 * Returns the width and height in pixels of a pixel of the preview.
+	 * @return the downsampling factor
+	 */
+	public int getFactor() {
+		return factor;
+	}
+
+	/**
+	 * Labels and colors the map at the lower resolution, on the first call.
+	 * The image is not changed.
+	 *
+	 * @return the preview, of ceil(width / factor) x ceil(height / factor)
+	 *         pixels : the border blocks in the border color, the zones in the
+	 *         colors of the palette
+	 */
+	public synchronized BufferedImage preview() {
+		if (preview == null) {
+			long time = System.nanoTime();
+			previewMask = pipeline.mask().getValue().downsample(factor);
+			ComponentLabeler labeler = new ComponentLabeler(previewMask);
+			previewLabels = labeler.getLabels();
+			ZoneGraph graph = new ZoneGraph(labeler.getZoneCount(),
+					labeler.getRuns().getEdges(MapColoring.ADJACENCY_DISTANCE));
+			int[] palette = pipeline.palette();
+			previewColoring = MapColoringPipeline.colorZones(graph, palette.length);
+			preview = paint(previewMask.getWidth(), previewMask.getHeight(), palette);
+			logger.info(String.format("Preview of %d zones at 1/%d in %.1f ms", labeler.getZoneCount(), factor,
+					(System.nanoTime() - time) / 1e6));
+		}
+		return preview;
+	}
+
+	/**
+	 * Returns the coloring of the zones of the preview.
+	 * @return the coloring of the preview, computed on the first call
+	 */
+	public synchronized IntColoring getPreviewColoring() {
+		preview();
+		return previewColoring;
+	}
+
+	/**
+	 * Colors the map at full resolution, on the first call, keeping the colors
+	 * of the preview where the zones match, and paints the image.
+	 *
+	 * @return the map coloring, whose image is painted
+	 */
+	public synchronized MapColoring refine() {
+		if (refined == null) {
+			preview();
+			ComponentLabeler labeler = pipeline.labels().getValue();
+			int[] seed = seed(labeler.getLabels(), labeler.getZoneCount());
+			pipeline.coloring(new IntColoring(seed));
+			refined = new MapColoring(image, borderColor, 0, pipeline);
+			refined.colorMap();
+			IntColoring coloring = refined.getColoring();
+			for (int zone = 0; zone < seed.length; zone++) {
+				if (seed[zone] != IntColoring.UNCOLORED && seed[zone] == coloring.getColor(zone)) keptColors++;
+			}
+			logger.info(keptColors + " of " + seed.length + " zones keep the color of the preview");
+		}
+		return refined;
+	}
+
+	/**
+	 * Returns the number of zones of the map colored as the preview zone
+	 * inside them.
+	 * @return the number of zones keeping the color of the preview, once refined
+	 */
+	public synchronized int getKeptColors() {
+		refine();
+		return keptColors;
+	}
+
+	/**
+	 * Displays the preview in a window as soon as it is colored, then the map
+	 * once it is refined, through {@link Image#updateImage(DrawingPanel, BufferedImage, String)}.
+	 * Both levels are computed on the executor.
+	 *
+	 * @param panel the window displaying the image
+	 * @param title the title of the window, or null to keep it
+	 * @param executor the executor coloring the preview and the map
+	 * @return the map coloring, completed once the map is displayed
+	 * @throws NullPointerException if panel or executor is null
+	 */
+	public CompletableFuture<MapColoring> display(DrawingPanel panel, String title, Executor executor) {
+		if (panel == null || executor == null) {
+			throw new NullPointerException("Panel and executor cannot be null");
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			BufferedImage level = preview();
+			Image.updateImage(panel, level, title == null ? null : title + " (preview 1/" + factor + ")");
+			return level;
+		}, executor).thenApplyAsync(level -> {
+			MapColoring coloring = refine();
+			Image.updateImage(panel, coloring.getImage(),
+					title == null ? null : title + " (" + coloring.getColoring().getNumberColors() + " colors)");
+			return coloring;
+		}, executor);
+	}
+
+	/*
+	 * Plus petit facteur donnant un aperçu d'au plus PREVIEW_PIXELS pixels
+	 */
+	static int previewFactor(BufferedImage image) {
+		if (image == null) throw new NullPointerException("Image and borderColor cannot be null");
+		double pixels = (double) image.getWidth() * image.getHeight();
+		return Math.max(1, (int) Math.ceil(Math.sqrt(pixels / PREVIEW_PIXELS)));
+	}
+
+	synchronized int[] previewLabels() {
+		preview();
+		return previewLabels;
+	}
+
+	/*
+	 * Color of the first preview zone inside every zone of the map : all the
+	 * pixels of a block which is not a border belong to the same zone.
+	 */
+	private int[] seed(int[] labels, int zoneCount) {
+		int width = image.getWidth();
+		int previewWidth = previewMask.getWidth();
+		int[] seed = new int[zoneCount];
+		Arrays.fill(seed, IntColoring.UNCOLORED);
+		for (int block = 0; block < previewLabels.length; block++) {
+			int zone = previewLabels[block];
+			if (zone == ComponentLabeler.BORDER) continue;
+			int x = block % previewWidth * factor;
+			int y = block / previewWidth * factor;
+			int mapZone = labels[y * width + x];
+			if (seed[mapZone] == IntColoring.UNCOLORED) {
+				seed[mapZone] = previewColoring.getColor(zone);
+			}
+		}
+		return seed;
+	}
+
+	private BufferedImage paint(int width, int height, int[] palette) {
+		int[] zoneRgb = MapColoringPipeline.zoneRgb(previewColoring, palette);
+		int borderRgb = borderColor.getRGB();
+		int[] rgb = new int[width * height];
+		for (int block = 0; block < rgb.length; block++) {
+			int zone = previewLabels[block];
+			rgb[block] = zone == ComponentLabeler.BORDER ? borderRgb : zoneRgb[zone];
+		}
+		BufferedImage painted = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		painted.setRGB(0, 0, width, height, rgb, 0, width);
+		return painted;
+	}
+}
@@ -0,0 +1,37 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import graphics.DrawingPanel;
+import graphics.Image;
+
+/**
+ * ProgressiveMapColoring example : a preview at 1/4 of the resolution is
+ * displayed first, then the map colored at full resolution.
+ */
+public class ProgressiveMapColoringDemo {
+	// Les cartes d'exemple sont petites : l'aperçu est forcé à 1/4
+	private static final int FACTOR = 4;
+
+	public static void main(String[] args) {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			for (String filename : new String[] { "img/maps/USA_map.png", "img/maps/hat_monotile.png",
+					"img/maps/conformally-regular-pentagonal-tiling.png" }) {
+				BufferedImage image = Image.loadImage(filename);
+				DrawingPanel p = Image.displayImage(image, filename);
+				long time = System.currentTimeMillis();
+				ProgressiveMapColoring progressive = new ProgressiveMapColoring(image, Color.BLACK, FACTOR);
+				MapColoring mc = progressive.display(p, filename, executor).join();
+				System.out.printf("%s colored in %.2f seconds, %d of %d zones keep the color of the preview\n",
+						filename, (System.currentTimeMillis() - time) / 1000.0, progressive.getKeptColors(),
+						mc.getColoring().getVertexCount());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package color;
+
+/**
+ * Output of a stage of a {@link MapColoringPipeline}, with what it cost.
+ *
+ * @param <T> the type of the stage output
+ */
+public class StageResult<T> {
+	private final MapColoringPipeline.Stage stage;
+	private final T value;
+	private final long wallNanos;
+	private final long allocatedBytes;
+	private final long heapGrowthBytes;
+	private final long pixels;
+	private final long outputSize;
+
+	StageResult(MapColoringPipeline.Stage stage, T value, long wallNanos, long allocatedBytes, long heapGrowthBytes,
+			long pixels, long outputSize) {
+		this.stage = stage;
+		this.value = value;
+		this.wallNanos = wallNanos;
+		this.allocatedBytes = allocatedBytes;
+		this.heapGrowthBytes = heapGrowthBytes;
+		this.pixels = pixels;
+		this.outputSize = outputSize;
+	}
+
+	public MapColoringPipeline.Stage getStage() {
+		return stage;
+	}
+
+	public T getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the elapsed time of the stage, without the stages it depends on.
+	 * @return the wall-clock time of the stage in nanoseconds
+	 */
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * Returns the bytes allocated on the heap by the thread running the stage.
+	 * Allocations of worker threads, such as the parallel labeling bands, are
+	 * not included.
+	 * @return the allocated bytes, or -1 if the JVM cannot measure them
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Returns the growth of the used heap from the start to the end of the
+	 * stage, at least 0 : roughly the memory the stage retains. It is sampled
+	 * from the whole heap, so a garbage collection during the stage lowers it
+	 * and other threads allocating meanwhile raise it.
+	 * @return the heap growth in bytes
+	 */
+	public long getHeapGrowthBytes() {
+		return heapGrowthBytes;
+	}
+
+	/**
+	 * Returns the number of pixels processed by the stage.
+	 * @return the pixels of the map for the mask, labels, adjacency and
+	 *         painting stages, 0 for the stages working on the zone graph
+	 */
+	public long getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * Returns the size of the stage output : border pixels for the mask,
+	 * zones for the labels, edges for the adjacency, colors for the coloring,
+	 * adjacent zones sharing a color for the validation and painted pixels for
+	 * the painting.
+	 * @return the size of the stage output
+	 */
+	public long getOutputSize() {
+		return outputSize;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s : %.2f ms, %d bytes allocated, %d bytes heap growth, %d pixels, output %d", stage,
+				wallNanos / 1e6, allocatedBytes, heapGrowthBytes, pixels, outputSize);
+	}
+}
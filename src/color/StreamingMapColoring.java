@@ -0,0 +1,291 @@
+package color;
+
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import graphics.PixelSource;
+import graphics.RasterFile;
+
+/**
+ * Coloring of a Map image too large to be held in memory.
+ *
+ * The image is read one band of rows at a time. A first pass labels the
+ * pixels row by row, keeping only the last rows of provisional labels, a
+ * union-find of the provisional labels and the set of adjacent zone pairs ;
+ * the provisional label rows are spilled to a temporary file. The zone graph
+ * is then colored, and a second pass reads the spilled rows back to write the
+ * colored image band by band.
+ *
+ * Memory is O(width + labels) rather than O(width x height), labels being the
+ * number of provisional labels, not of zones : a label is created for every
+ * run of zone pixels starting under a border pixel (or on the first row), so
+ * a zone whose top is jagged, or which reaches up on both sides of a border,
+ * gets several of them. The union-find, the pairs of adjacent labels and the
+ * final label to zone table grow with the labels, a few ints per label ; the
+ * spilled labels are not rewritten, so the union-find is never compacted.
+ *
+ * Zones, adjacencies and colors are the same as with {@link MapColoring}.
+ */
+public class StreamingMapColoring implements AutoCloseable {
+	private static final Logger logger = Logger.getLogger(StreamingMapColoring.class.getName());
+	private static final int DEFAULT_BAND_HEIGHT = 256;
+
+	private final int width;
+	private final int height;
+	private final int borderRgb;
+	private final FileChannel spill;
+	private final IntUnionFind sets;
+	private int[] zoneOf;
+	private ZoneGraph zoneGraph;
+	private IntColoring coloring = new IntColoring(new int[0]);
+
+	/**
+	 * Constructor
+	 *
+	 * @param source the pixels of a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IOException if the pixels cannot be read or the labels cannot be spilled
+	 */
+	public StreamingMapColoring(PixelSource source, Color borderColor) throws IOException {
+		this(source, borderColor, DEFAULT_BAND_HEIGHT);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param source the pixels of a map to color
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param bandHeight the number of rows read from the source at once
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if bandHeight is lower than 1
+	 * @throws IOException if the pixels cannot be read or the labels cannot be spilled
+	 */
+	public StreamingMapColoring(PixelSource source, Color borderColor, int bandHeight) throws IOException {
+		if (source == null || borderColor == null) {
+			throw new NullPointerException("Source and borderColor cannot be null");
+		}
+		if (bandHeight < 1) {
+			throw new IllegalArgumentException("Band height must be at least 1");
+		}
+		this.width = source.getWidth();
+		this.height = source.getHeight();
+		this.borderRgb = borderColor.getRGB();
+		this.sets = new IntUnionFind(width);
+		Path spillFile = Files.createTempFile("map-labels", ".bin");
+		this.spill = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.DELETE_ON_CLOSE);
+		try {
+			LongHashSet pairs = labelRows(source, bandHeight);
+			createZoneGraph(pairs);
+			applyColors();
+		} catch (IOException | RuntimeException e) {
+			spill.close();
+			throw e;
+		}
+	}
+
+	public int getZoneCount() {
+		return zoneGraph.vertexCount();
+	}
+
+	/**
+	 * Return the adjacency graph of the image's areas.
+	 * @return the adjacency graph of the image's areas
+	 */
+	public ZoneGraph getAdjacencyGraph() {
+		return zoneGraph;
+	}
+
+	/**
+	 * Return the coloring the adjacency graph.
+	 * @return the coloring of the adjacency graph
+	 */
+	public IntColoring getColoring() {
+		return coloring;
+	}
+
+	/**
+	 * Writes the colored map as a binary PPM (P6) image, one row at a time.
+	 * Border pixels keep the border color.
+	 *
+	 * @param output the destination stream, not closed
+	 * @throws IOException if the labels cannot be read or the image cannot be written
+	 */
+	public void writeColoredImage(OutputStream output) throws IOException {
+		int[] zoneRgb = new int[getZoneCount()];
+		for (int zone = 0; zone < coloring.getVertexCount(); zone++) {
+			zoneRgb[zone] = MapColoring.rgbColors[coloring.getColor(zone)];
+		}
+		OutputStream out = new BufferedOutputStream(output, 1 << 16);
+		out.write(RasterFile.ppmHeader(width, height));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(width * Integer.BYTES).order(ByteOrder.nativeOrder());
+		IntBuffer ints = buffer.asIntBuffer();
+		int[] row = new int[width];
+		byte[] rgb = new byte[width * 3];
+		for (int y = 0; y < height; y++) {
+			buffer.clear();
+			long position = (long) y * width * Integer.BYTES;
+			while (buffer.hasRemaining()) {
+				if (spill.read(buffer, position + buffer.position()) < 0) {
+					throw new IOException("Truncated label file");
+				}
+			}
+			ints.clear();
+			ints.get(row);
+			for (int x = 0, p = 0; x < width; x++) {
+				int color = row[x] == ComponentLabeler.BORDER ? borderRgb : zoneRgb[zoneOf[row[x]]];
+				rgb[p++] = (byte) (color >> 16);
+				rgb[p++] = (byte) (color >> 8);
+				rgb[p++] = (byte) color;
+			}
+			out.write(rgb);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Deletes the temporary label file.
+	 */
+	@Override
+	public void close() throws IOException {
+		spill.close();
+	}
+
+	/*
+	 * First pass : provisional labels, spilled row by row, and pairs of
+	 * provisional labels of adjacent zones.
+	 */
+	private LongHashSet labelRows(PixelSource source, int bandHeight) throws IOException {
+		int d = MapColoring.ADJACENCY_DISTANCE;
+		int[] band = new int[width * Math.min(bandHeight, height)];
+		// Les d + 1 dernières lignes d'étiquettes provisoires
+		int[][] window = new int[d + 1][width];
+		ByteBuffer buffer = ByteBuffer.allocateDirect(width * Integer.BYTES).order(ByteOrder.nativeOrder());
+		IntBuffer ints = buffer.asIntBuffer();
+		LongHashSet pairs = new LongHashSet(1024);
+
+		for (int firstRow = 0; firstRow < height; firstRow += bandHeight) {
+			int rowCount = Math.min(bandHeight, height - firstRow);
+			source.readRows(firstRow, rowCount, band);
+			for (int r = 0; r < rowCount; r++) {
+				int y = firstRow + r;
+				int[] row = window[y % (d + 1)];
+				int[] up = y > 0 ? window[(y - 1) % (d + 1)] : null;
+				for (int x = 0, i = r * width; x < width; x++, i++) {
+					if (band[i] == borderRgb) {
+						row[x] = ComponentLabeler.BORDER;
+						continue;
+					}
+					int left = x > 0 ? row[x - 1] : ComponentLabeler.BORDER;
+					int above = up != null ? up[x] : ComponentLabeler.BORDER;
+					if (left != ComponentLabeler.BORDER) {
+						row[x] = left;
+						if (above != ComponentLabeler.BORDER && above != left) {
+							sets.union(left, above);
+						}
+					} else if (above != ComponentLabeler.BORDER) {
+						row[x] = above;
+					} else {
+						row[x] = sets.makeSet();
+					}
+				}
+				recordPairs(window, y, d, pairs);
+
+				buffer.clear();
+				ints.clear();
+				ints.put(row);
+				long position = (long) y * width * Integer.BYTES;
+				while (buffer.hasRemaining()) {
+					spill.write(buffer, position + buffer.position());
+				}
+			}
+		}
+		return pairs;
+	}
+
+	/*
+	 * Same predicate as ZoneAdjacency, for the pairs whose lowest row is y.
+	 */
+	private void recordPairs(int[][] window, int y, int d, LongHashSet pairs) {
+		int[] row = window[y % (d + 1)];
+		if (y > 0) {
+			int[] up = window[(y - 1) % (d + 1)];
+			for (int x = 0; x < width; x++) {
+				if (row[x] == ComponentLabeler.BORDER) continue;
+				for (int nx = Math.max(0, x - d), end = Math.min(width - 1, x + d); nx <= end; nx++) {
+					addPair(row[x], up[nx], pairs);
+				}
+			}
+		}
+		for (int ny = Math.max(0, y - d); ny <= y; ny++) {
+			int[] other = window[ny % (d + 1)];
+			for (int x = 0; x + 1 < width; x++) {
+				addPair(row[x], other[x + 1], pairs);
+				if (ny != y) {
+					addPair(other[x], row[x + 1], pairs);
+				}
+			}
+		}
+	}
+
+	private void addPair(int label1, int label2, LongHashSet pairs) {
+		if (label1 == label2 || label1 == ComponentLabeler.BORDER || label2 == ComponentLabeler.BORDER) {
+			return;
+		}
+		int root1 = sets.find(label1);
+		int root2 = sets.find(label2);
+		if (root1 != root2) {
+			pairs.add(ZoneAdjacency.encode(root1, root2));
+		}
+	}
+
+	/*
+	 * Zone ids in the order of the first pixel of each zone : provisional
+	 * labels are created in that order.
+	 */
+	private void createZoneGraph(LongHashSet pairs) {
+		int labelCount = sets.size();
+		zoneOf = new int[labelCount];
+		int[] rootZone = new int[labelCount];
+		Arrays.fill(rootZone, ComponentLabeler.BORDER);
+		int zones = 0;
+		for (int label = 0; label < labelCount; label++) {
+			int root = sets.find(label);
+			if (rootZone[root] == ComponentLabeler.BORDER) {
+				rootZone[root] = zones++;
+			}
+			zoneOf[label] = rootZone[root];
+		}
+		logger.info("Total zones identified: " + zones);
+
+		LongHashSet edges = new LongHashSet(pairs.size());
+		for (long pair : pairs.toSortedArray()) {
+			int zone1 = zoneOf[ZoneAdjacency.source(pair)];
+			int zone2 = zoneOf[ZoneAdjacency.target(pair)];
+			if (zone1 != zone2) {
+				edges.add(ZoneAdjacency.encode(zone1, zone2));
+			}
+		}
+		zoneGraph = new ZoneGraph(zones, edges.toSortedArray());
+	}
+
+	private void applyColors() {
+		if (zoneGraph.vertexCount() == 0) {
+			logger.warning("Zone graph is empty, no coloring possible.");
+			return;
+		}
+		coloring = new KempeColoring(zoneGraph, MapColoring.rgbColors.length).getColoring();
+	}
+}
@@ -0,0 +1,107 @@
+package color;
+
+/**
+ * Detection of the adjacent zones of a labeled map, in a single sweep over
+ * the labels.
+ *
+ * Two zones are adjacent when one of their pixels has a pixel of the other
+ * zone in the next row at most maxDistance columns away, or in the next
+ * column at most maxDistance rows away : that is, when they face each other
+ * across a border line thinner than maxDistance.
+ */
+public class ZoneAdjacency {
+	private final int[] labels;
+	private final int width;
+	private final int height;
+	private final int maxDistance;
+	private long[] edges;
+
+	/**
+	 * Constructor
+	 *
+	 * @param labels the zone label of every pixel, {@link ComponentLabeler#BORDER} for the border
+	 * @param width the width of the image
+	 * @param maxDistance the maximal distance between two adjacent zones, across a border
+	 * @throws NullPointerException if labels is null
+	 * @throws IllegalArgumentException if the dimensions don't match the labels or maxDistance is negative
+	 */
+	public ZoneAdjacency(int[] labels, int width, int maxDistance) {
+		if (labels == null) throw new NullPointerException("Labels cannot be null");
+		if (width <= 0 || labels.length % width != 0) {
+			throw new IllegalArgumentException("Invalid width " + width + " for " + labels.length + " labels");
+		}
+		if (maxDistance < 0) throw new IllegalArgumentException("maxDistance cannot be negative");
+		this.labels = labels;
+		this.width = width;
+		this.height = labels.length / width;
+		this.maxDistance = maxDistance;
+	}
+
+	/**
+	 * Returns the adjacent zone pairs, each encoded as (min << 32 | max), in
+	 * ascending order.
+	 * @return the edges of the zone adjacency graph
+	 */
+	public long[] getEdges() {
+		if (edges == null) {
+			edges = sweep();
+		}
+		return edges;
+	}
+
+	/**
+	 * Returns the first zone of an encoded edge.
+	 * @param edge an edge returned by {@link #getEdges()}
+	 * @return the lowest zone id of the edge
+	 */
+	public static int source(long edge) {
+		return (int) (edge >>> 32);
+	}
+
+	/**
+	 * Returns the second zone of an encoded edge.
+	 * @param edge an edge returned by {@link #getEdges()}
+	 * @return the highest zone id of the edge
+	 */
+	public static int target(long edge) {
+		return (int) edge;
+	}
+
+	static long encode(int zone1, int zone2) {
+		return zone1 < zone2 ? ((long) zone1 << 32) | zone2 : ((long) zone2 << 32) | zone1;
+	}
+
+	private long[] sweep() {
+		LongHashSet pairs = new LongHashSet(1024);
+		int d = maxDistance;
+		for (int y = 0; y < height; y++) {
+			int offset = y * width;
+			for (int x = 0; x < width; x++) {
+				int zone = labels[offset + x];
+				if (zone == ComponentLabeler.BORDER) {
+					continue;
+				}
+				// Ligne suivante, à au plus d colonnes
+				if (y + 1 < height) {
+					int next = offset + width;
+					for (int nx = Math.max(0, x - d), end = Math.min(width - 1, x + d); nx <= end; nx++) {
+						int other = labels[next + nx];
+						if (other != zone && other != ComponentLabeler.BORDER) {
+							pairs.add(encode(zone, other));
+						}
+					}
+				}
+				// Colonne suivante, à au plus d lignes
+				if (x + 1 < width) {
+					for (int ny = Math.max(0, y - d), end = Math.min(height - 1, y + d); ny <= end; ny++) {
+						int other = labels[ny * width + x + 1];
+						if (other != zone && other != ComponentLabeler.BORDER) {
+							pairs.add(encode(zone, other));
+						}
+					}
+				}
+			}
+		}
+		return pairs.toSortedArray();
+	}
+}
@@ -0,0 +1,366 @@
+package color;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+/**
+ * Immutable simple undirected graph over the vertices 0..n-1, stored in
+ * compressed sparse row form : the neighbours of the vertex v are
+ * neighbors[offsets[v]..offsets[v + 1]), in ascending order.
+ *
+ * Edges are the integers 0..m-1. The graph is a read-only
+ * {@link org.jgrapht.Graph}, so that JGraphT algorithms, {@link DSaturColoring}
+ * or {@link connectivity.UndirectedConnectivityInspector} work on it, while hot
+ * loops can use the primitive accessors.
+ */
+public class ZoneGraph extends AbstractGraph<Integer, Integer> {
+	private static final GraphType TYPE = new DefaultGraphType.Builder().undirected().allowSelfLoops(false)
+			.allowMultipleEdges(false).weighted(false).modifiable(false).build();
+
+	private final int vertexCount;
+	private final int[] offsets;
+	private final int[] neighbors;
+	private final int[] incidentEdges;
+	private final int[] sources;
+	private final int[] targets;
+
+	/**
+	 * Constructor
+	 *
+	 * @param vertexCount the number of vertices
+	 * @param edges the edges, each encoded as (u << 32 | v) with u < v, as
+	 *            returned by {@link ZoneAdjacency#getEdges()}
+	 * @throws NullPointerException if edges is null
+	 * @throws IllegalArgumentException if an edge is a loop, a duplicate or
+	 *             has an end outside 0..vertexCount-1
+	 */
+	public ZoneGraph(int vertexCount, long[] edges) {
+		if (edges == null) throw new NullPointerException("Edges cannot be null");
+		if (vertexCount < 0) throw new IllegalArgumentException("Vertex count cannot be negative");
+		long[] sorted = edges;
+		for (int e = 1; e < edges.length; e++) {
+			if (edges[e - 1] >= edges[e]) {
+				sorted = edges.clone();
+				Arrays.sort(sorted);
+				break;
+			}
+		}
+		int edgeCount = sorted.length;
+		this.vertexCount = vertexCount;
+		this.offsets = new int[vertexCount + 1];
+		this.neighbors = new int[2 * edgeCount];
+		this.incidentEdges = new int[2 * edgeCount];
+		this.sources = new int[edgeCount];
+		this.targets = new int[edgeCount];
+
+		for (int e = 0; e < edgeCount; e++) {
+			int u = ZoneAdjacency.source(sorted[e]);
+			int v = ZoneAdjacency.target(sorted[e]);
+			if (u < 0 || u >= v || v >= vertexCount || (e > 0 && sorted[e] == sorted[e - 1])) {
+				throw new IllegalArgumentException("Invalid edge " + u + "-" + v);
+			}
+			sources[e] = u;
+			targets[e] = v;
+			offsets[u + 1]++;
+			offsets[v + 1]++;
+		}
+		for (int v = 0; v < vertexCount; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		// Arêtes triées : les voisins de chaque sommet sont insérés dans l'ordre croissant
+		int[] next = Arrays.copyOf(offsets, vertexCount);
+		for (int e = 0; e < edgeCount; e++) {
+			int u = sources[e];
+			int v = targets[e];
+			neighbors[next[u]] = v;
+			incidentEdges[next[u]++] = e;
+			neighbors[next[v]] = u;
+			incidentEdges[next[v]++] = e;
+		}
+	}
+
+	public int vertexCount() {
+		return vertexCount;
+	}
+
+	public int edgeCount() {
+		return sources.length;
+	}
+
+	/**
+	 * Returns the degree of a vertex.
+	 * @param v a vertex in 0..n-1
+	 * @return the number of neighbours of v
+	 */
+	public int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	/**
+	 * Returns a neighbour of a vertex.
+	 * @param v a vertex in 0..n-1
+	 * @param i an index in 0..degree(v)-1
+	 * @return the i-th neighbour of v, in ascending order
+	 */
+	public int neighbor(int v, int i) {
+		return neighbors[offsets[v] + i];
+	}
+
+	/**
+	 * Returns the first end of an edge.
+	 * @param e an edge in 0..m-1
+	 * @return the lowest vertex of the edge
+	 */
+	public int source(int e) {
+		return sources[e];
+	}
+
+	/**
+	 * Returns the second end of an edge.
+	 * @param e an edge in 0..m-1
+	 * @return the highest vertex of the edge
+	 */
+	public int target(int e) {
+		return targets[e];
+	}
+
+	/**
+	 * Returns the edge between two vertices.
+	 * @param u a vertex in 0..n-1
+	 * @param v a vertex in 0..n-1
+	 * @return the edge between u and v, or -1 if they are not adjacent
+	 */
+	public int edge(int u, int v) {
+		int k = Arrays.binarySearch(neighbors, offsets[u], offsets[u + 1], v);
+		return k >= 0 ? incidentEdges[k] : -1;
+	}
+
+	int[] offsets() {
+		return offsets;
+	}
+
+	int[] neighbors() {
+		return neighbors;
+	}
+
+	@Override
+	public Set<Integer> getAllEdges(Integer sourceVertex, Integer targetVertex) {
+		if (!containsVertex(sourceVertex) || !containsVertex(targetVertex)) {
+			return null;
+		}
+		int e = edge(sourceVertex, targetVertex);
+		return e < 0 ? Collections.emptySet() : Collections.singleton(e);
+	}
+
+	@Override
+	public Integer getEdge(Integer sourceVertex, Integer targetVertex) {
+		if (!containsVertex(sourceVertex) || !containsVertex(targetVertex)) {
+			return null;
+		}
+		int e = edge(sourceVertex, targetVertex);
+		return e < 0 ? null : e;
+	}
+
+	@Override
+	public Supplier<Integer> getVertexSupplier() {
+		return null;
+	}
+
+	@Override
+	public Supplier<Integer> getEdgeSupplier() {
+		return null;
+	}
+
+	@Override
+	public Integer addEdge(Integer sourceVertex, Integer targetVertex) {
+		throw new UnsupportedOperationException("ZoneGraph is immutable");
+	}
+
+	@Override
+	public boolean addEdge(Integer sourceVertex, Integer targetVertex, Integer e) {
+		throw new UnsupportedOperationException("ZoneGraph is immutable");
+	}
+
+	@Override
+	public Integer addVertex() {
+		throw new UnsupportedOperationException("ZoneGraph is immutable");
+	}
+
+	@Override
+	public boolean addVertex(Integer v) {
+		throw new UnsupportedOperationException("ZoneGraph is immutable");
+	}
+
+	@Override
+	public boolean containsEdge(Integer e) {
+		return e != null && e >= 0 && e < sources.length;
+	}
+
+	@Override
+	public boolean containsVertex(Integer v) {
+		return v != null && v >= 0 && v < vertexCount;
+	}
+
+	@Override
+	public Set<Integer> edgeSet() {
+		return new Range(sources.length);
+	}
+
+	@Override
+	public int degreeOf(Integer vertex) {
+		assertVertexExist(vertex);
+		return degree(vertex);
+	}
+
+	@Override
+	public Set<Integer> edgesOf(Integer vertex) {
+		assertVertexExist(vertex);
+		int v = vertex;
+		return new AbstractSet<Integer>() {
+			@Override
+			public Iterator<Integer> iterator() {
+				return new Iterator<Integer>() {
+					private int k = offsets[v];
+
+					@Override
+					public boolean hasNext() {
+						return k < offsets[v + 1];
+					}
+
+					@Override
+					public Integer next() {
+						if (!hasNext()) throw new NoSuchElementException();
+						return incidentEdges[k++];
+					}
+				};
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				if (!(o instanceof Integer) || !containsEdge((Integer) o)) return false;
+				int e = (Integer) o;
+				return sources[e] == v || targets[e] == v;
+			}
+
+			@Override
+			public int size() {
+				return degree(v);
+			}
+		};
+	}
+
+	@Override
+	public int inDegreeOf(Integer vertex) {
+		return degreeOf(vertex);
+	}
+
+	@Override
+	public Set<Integer> incomingEdgesOf(Integer vertex) {
+		return edgesOf(vertex);
+	}
+
+	@Override
+	public int outDegreeOf(Integer vertex) {
+		return degreeOf(vertex);
+	}
+
+	@Override
+	public Set<Integer> outgoingEdgesOf(Integer vertex) {
+		return edgesOf(vertex);
+	}
+
+	@Override
+	public Integer removeEdge(Integer sourceVertex, Integer targetVertex) {
+		throw new UnsupportedOperationException("ZoneGraph is immutable");
+	}
+
+	@Override
+	public boolean removeEdge(Integer e) {
+		throw new UnsupportedOperationException("ZoneGraph is immutable");
+	}
+
+	@Override
+	public boolean removeVertex(Integer v) {
+		throw new UnsupportedOperationException("ZoneGraph is immutable");
+	}
+
+	@Override
+	public Set<Integer> vertexSet() {
+		return new Range(vertexCount);
+	}
+
+	@Override
+	public Integer getEdgeSource(Integer e) {
+		if (!containsEdge(e)) throw new IllegalArgumentException("No such edge in graph: " + e);
+		return sources[e];
+	}
+
+	@Override
+	public Integer getEdgeTarget(Integer e) {
+		if (!containsEdge(e)) throw new IllegalArgumentException("No such edge in graph: " + e);
+		return targets[e];
+	}
+
+	@Override
+	public GraphType getType() {
+		return TYPE;
+	}
+
+	@Override
+	public double getEdgeWeight(Integer e) {
+		return DEFAULT_EDGE_WEIGHT;
+	}
+
+	@Override
+	public void setEdgeWeight(Integer e, double weight) {
+		throw new UnsupportedOperationException("ZoneGraph is immutable");
+	}
+
+	/*
+	 * The integers 0..size-1, as a read-only set.
+	 */
+	private static class Range extends AbstractSet<Integer> {
+		private final int size;
+
+		Range(int size) {
+			this.size = size;
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return new Iterator<Integer>() {
+				private int next = 0;
+
+				@Override
+				public boolean hasNext() {
+					return next < size;
+				}
+
+				@Override
+				public Integer next() {
+					if (!hasNext()) throw new NoSuchElementException();
+					return next++;
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Integer && (Integer) o >= 0 && (Integer) o < size;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
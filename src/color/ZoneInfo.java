@@ -0,0 +1,229 @@
+package color;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Statistics of the zones of a labeled map, in primitive arrays indexed by
+ * zone id : area, bounding box, centroid, perimeter and first pixel.
+ *
+ * They are computed from the runs of the zones in O(runs), or from the
+ * labels in O(pixels), and hold O(zones) memory, so that code only needing
+ * the extent or the size of a zone doesn't have to go back to its pixels.
+ */
+public class ZoneInfo {
+	private final int width;
+	private final int zoneCount;
+	private final long[] area;
+	private final int[] minX;
+	private final int[] minY;
+	private final int[] maxX;
+	private final int[] maxY;
+	private final long[] sumX;
+	private final long[] sumY;
+	private final long[] perimeter;
+	private final int[] seed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param runs the runs of the zones of a map
+	 * @throws NullPointerException if runs is null
+	 */
+	public ZoneInfo(ZoneRuns runs) {
+		this(checked(runs).getWidth(), runs.getZoneCount());
+		int height = runs.getHeight();
+		for (int row = 0; row < height; row++) {
+			int y = runs.firstRow() + row;
+			for (int run = runs.rowOffset(row); run < runs.rowOffset(row + 1); run++) {
+				int zone = runs.zone(run);
+				int start = runs.start(run);
+				int end = runs.end(run);
+				long length = end - start;
+				if (area[zone] == 0) {
+					seed[zone] = y * width + start;
+				}
+				area[zone] += length;
+				minX[zone] = Math.min(minX[zone], start);
+				maxX[zone] = Math.max(maxX[zone], end - 1);
+				minY[zone] = Math.min(minY[zone], y);
+				maxY[zone] = Math.max(maxY[zone], y);
+				sumX[zone] += (start + end - 1) * length / 2;
+				sumY[zone] += y * length;
+				// Deux côtés verticaux, plus le haut et le bas de chaque pixel
+				perimeter[zone] += 2 + 2 * length;
+			}
+			if (row == 0) continue;
+			// Les runs chevauchants de deux lignes sont de la même zone : côtés partagés
+			int r1 = runs.rowOffset(row - 1);
+			int r2 = runs.rowOffset(row);
+			while (r1 < runs.rowOffset(row) && r2 < runs.rowOffset(row + 1)) {
+				int overlap = Math.min(runs.end(r1), runs.end(r2)) - Math.max(runs.start(r1), runs.start(r2));
+				if (overlap > 0) {
+					perimeter[runs.zone(r2)] -= 2 * overlap;
+				}
+				if (runs.end(r1) <= runs.end(r2)) {
+					r1++;
+				} else {
+					r2++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param labels the zone label of every pixel, {@link ComponentLabeler#BORDER} for the border
+	 * @param width the width of the image
+	 * @param zoneCount the number of zone ids, some of which may have no pixel
+	 * @throws NullPointerException if labels is null
+	 * @throws IllegalArgumentException if the dimensions don't match the labels
+	 */
+	public ZoneInfo(int[] labels, int width, int zoneCount) {
+		this(width, zoneCount);
+		if (labels == null) throw new NullPointerException("Labels cannot be null");
+		if (width <= 0 || labels.length % width != 0) {
+			throw new IllegalArgumentException("Invalid width " + width + " for " + labels.length + " labels");
+		}
+		int height = labels.length / width;
+		for (int y = 0, i = 0; y < height; y++) {
+			for (int x = 0; x < width; x++, i++) {
+				int zone = labels[i];
+				if (zone < 0 || zone >= zoneCount) continue;
+				if (area[zone]++ == 0) {
+					seed[zone] = i;
+				}
+				minX[zone] = Math.min(minX[zone], x);
+				maxX[zone] = Math.max(maxX[zone], x);
+				minY[zone] = Math.min(minY[zone], y);
+				maxY[zone] = Math.max(maxY[zone], y);
+				sumX[zone] += x;
+				sumY[zone] += y;
+				if (x == 0 || labels[i - 1] != zone) perimeter[zone]++;
+				if (x + 1 == width || labels[i + 1] != zone) perimeter[zone]++;
+				if (y == 0 || labels[i - width] != zone) perimeter[zone]++;
+				if (y + 1 == height || labels[i + width] != zone) perimeter[zone]++;
+			}
+		}
+	}
+
+	private static ZoneRuns checked(ZoneRuns runs) {
+		if (runs == null) throw new NullPointerException("Runs cannot be null");
+		return runs;
+	}
+
+	private ZoneInfo(int width, int zoneCount) {
+		this.width = width;
+		this.zoneCount = zoneCount;
+		this.area = new long[zoneCount];
+		this.minX = new int[zoneCount];
+		this.minY = new int[zoneCount];
+		this.maxX = new int[zoneCount];
+		this.maxY = new int[zoneCount];
+		this.sumX = new long[zoneCount];
+		this.sumY = new long[zoneCount];
+		this.perimeter = new long[zoneCount];
+		this.seed = new int[zoneCount];
+		Arrays.fill(minX, Integer.MAX_VALUE);
+		Arrays.fill(minY, Integer.MAX_VALUE);
+		Arrays.fill(maxX, -1);
+		Arrays.fill(maxY, -1);
+		Arrays.fill(seed, -1);
+	}
+
+	public int getZoneCount() {
+		return zoneCount;
+	}
+
+	/**
+	 * Returns the number of pixels of a zone.
+	 * @param zone a zone id
+	 * @return the area of the zone
+	 */
+	public long getArea(int zone) {
+		return area[zone];
+	}
+
+	/**
+	 * Returns the smallest rectangle holding the pixels of a zone.
+	 * @param zone a zone id
+	 * @return the bounding box of the zone, empty if it has no pixel
+	 */
+	public Rectangle getBounds(int zone) {
+		if (area[zone] == 0) {
+			return new Rectangle();
+		}
+		return new Rectangle(minX[zone], minY[zone], maxX[zone] - minX[zone] + 1, maxY[zone] - minY[zone] + 1);
+	}
+
+	/**
+	 * Returns the mean column of the pixels of a zone.
+	 * @param zone a zone id
+	 * @return the x coordinate of the centroid, NaN if the zone has no pixel
+	 */
+	public double getCentroidX(int zone) {
+		return area[zone] == 0 ? Double.NaN : (double) sumX[zone] / area[zone];
+	}
+
+	/**
+	 * Returns the mean row of the pixels of a zone.
+	 * @param zone a zone id
+	 * @return the y coordinate of the centroid, NaN if the zone has no pixel
+	 */
+	public double getCentroidY(int zone) {
+		return area[zone] == 0 ? Double.NaN : (double) sumY[zone] / area[zone];
+	}
+
+	/**
+	 * Returns the number of pixel sides between a zone and the rest of the
+	 * image, the sides on the edges of the image included.
+	 * @param zone a zone id
+	 * @return the perimeter of the zone, in pixels
+	 */
+	public long getPerimeter(int zone) {
+		return perimeter[zone];
+	}
+
+	/**
+	 * Returns the first pixel of a zone in raster order.
+	 * @param zone a zone id
+	 * @return the index y * width + x of the pixel, -1 if the zone has no pixel
+	 */
+	public int getSeed(int zone) {
+		return seed[zone];
+	}
+
+	public int getSeedX(int zone) {
+		return seed[zone] < 0 ? -1 : seed[zone] % width;
+	}
+
+	public int getSeedY(int zone) {
+		return seed[zone] < 0 ? -1 : seed[zone] / width;
+	}
+
+	/**
+	 * Returns the zones having some pixels, but fewer than a given area.
+	 * @param minArea the smallest area kept
+	 * @return the ids of the smaller zones, in ascending order
+	 */
+	public int[] getZonesSmallerThan(long minArea) {
+		return IntStream.range(0, zoneCount).filter(z -> area[z] > 0 && area[z] < minArea).toArray();
+	}
+
+	/**
+	 * Tells whether two zones can be adjacent across a border : whether their
+	 * bounding boxes, widened by the distance, intersect.
+	 *
+	 * @param zone1 a zone id
+	 * @param zone2 another zone id
+	 * @param distance the maximal distance between two adjacent zones
+	 * @return false if the zones are too far apart to be adjacent
+	 */
+	public boolean mayBeAdjacent(int zone1, int zone2, int distance) {
+		if (area[zone1] == 0 || area[zone2] == 0) return false;
+		return minX[zone1] <= maxX[zone2] + distance && minX[zone2] <= maxX[zone1] + distance
+				&& minY[zone1] <= maxY[zone2] + distance && minY[zone2] <= maxY[zone1] + distance;
+	}
+}
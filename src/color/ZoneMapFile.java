@@ -0,0 +1,394 @@
+package color;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Binary file of a colored map : zone labels, adjacency graph and coloring,
+ * read back without running any stage of the coloring.
+ *
+ * The file is little-endian, and made of a header and three sections :
+ * <ul>
+ * <li>header (64 bytes) : magic "ZMAP", version, width, height, number of
+ * zones, number of edges, border color, border width, then the offsets of the
+ * sections and the length of the file ;</li>
+ * <li>adjacency : the graph in compressed sparse row form, offsets (int[zones
+ * + 1]) then neighbours (int[2 x edges]), as in {@link ZoneGraph} ;</li>
+ * <li>colors : the color of every zone (int[zones]), {@link IntColoring#UNCOLORED}
+ * for a zone without color ;</li>
+ * <li>labels : the start of every row (long[height + 1], from the end of this
+ * index), then each row as runs of equal labels, every run being the label + 1
+ * and the length as unsigned LEB128 varints.</li>
+ * </ul>
+ *
+ * The file is memory-mapped when opened : the degrees, neighbours and colors
+ * are read in place, and rows are decoded independently of each other. Files
+ * are limited to 2 GB.
+ */
+public class ZoneMapFile {
+	/** Version of the format written by {@link #write}. */
+	public static final int VERSION = 1;
+	private static final int MAGIC = 0x50414D5A;
+	private static final int HEADER_BYTES = 64;
+	private static final int BUFFER_BYTES = 1 << 16;
+	// Un run : deux varints d'au plus 5 octets
+	private static final int MAX_RUN_BYTES = 10;
+
+	private final MappedByteBuffer buffer;
+	private final int version;
+	private final int width;
+	private final int height;
+	private final int zoneCount;
+	private final int edgeCount;
+	private final Color borderColor;
+	private final int borderWidth;
+	private final int adjacencyOffset;
+	private final int colorsOffset;
+	private final int labelsOffset;
+	private final int runsOffset;
+
+	/**
+	 * Opens a zone map file.
+	 *
+	 * @param path a file written by {@link #write}
+	 * @throws NullPointerException if path is null
+	 * @throws IOException if the file cannot be read, is not a zone map file, is
+	 *             truncated or has a newer version
+	 */
+	public ZoneMapFile(Path path) throws IOException {
+		if (path == null) throw new NullPointerException("Path cannot be null");
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+				throw new IOException("Not a zone map file: " + path);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a zone map file: " + path);
+		}
+		version = buffer.getInt(4);
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unsupported zone map version " + version + ": " + path);
+		}
+		width = buffer.getInt(8);
+		height = buffer.getInt(12);
+		zoneCount = buffer.getInt(16);
+		edgeCount = buffer.getInt(20);
+		borderColor = new Color(buffer.getInt(24), true);
+		borderWidth = buffer.getInt(28);
+		long adjacency = buffer.getLong(32);
+		long colors = buffer.getLong(40);
+		long labels = buffer.getLong(48);
+		long length = buffer.getLong(56);
+		if (width <= 0 || height <= 0 || zoneCount < 0 || edgeCount < 0 || length != buffer.capacity()
+				|| adjacency != HEADER_BYTES || colors != adjacency + 4L * (zoneCount + 1 + 2L * edgeCount)
+				|| colors + 4L * zoneCount > labels || labels + 8L * (height + 1) > length) {
+			throw new IOException("Truncated or corrupted zone map file: " + path);
+		}
+		adjacencyOffset = (int) adjacency;
+		colorsOffset = (int) colors;
+		labelsOffset = (int) labels;
+		runsOffset = labelsOffset + 8 * (height + 1);
+		if (buffer.getInt(adjacencyOffset + 4 * zoneCount) != 2 * edgeCount
+				|| runsOffset + buffer.getLong(labelsOffset + 8 * height) != length) {
+			throw new IOException("Truncated or corrupted zone map file: " + path);
+		}
+	}
+
+	/**
+	 * Writes a colored map.
+	 *
+	 * @param path the destination file
+	 * @param width the width of the map
+	 * @param labels the zone label of every pixel, {@link ComponentLabeler#BORDER} for the border
+	 * @param graph the adjacency graph of the zones
+	 * @param coloring the color of every zone
+	 * @param borderColor the color of the lines delimiting the map areas
+	 * @param borderWidth the border width the adjacency was computed with, 0 for the fixed distance
+	 * @throws NullPointerException if any input parameter is null
+	 * @throws IllegalArgumentException if the dimensions don't match the labels, or a label is not a zone of the graph
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path path, int width, int[] labels, ZoneGraph graph, IntColoring coloring,
+			Color borderColor, int borderWidth) throws IOException {
+		if (path == null || labels == null || graph == null || coloring == null || borderColor == null) {
+			throw new NullPointerException("Path, labels, graph, coloring and borderColor cannot be null");
+		}
+		if (width <= 0 || labels.length % width != 0 || labels.length == 0) {
+			throw new IllegalArgumentException("Invalid width " + width + " for " + labels.length + " labels");
+		}
+		int height = labels.length / width;
+		int zones = graph.vertexCount();
+		int edges = graph.edgeCount();
+		long adjacency = HEADER_BYTES;
+		long colors = adjacency + 4L * (zones + 1 + 2L * edges);
+		long labelsStart = (colors + 4L * zones + 7) & ~7L;
+		long runsStart = labelsStart + 8L * (height + 1);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			channel.position(adjacency);
+			for (int v = 0, offset = 0; v <= zones; v++) {
+				if (out.remaining() < Integer.BYTES) drain(out, channel);
+				out.putInt(offset);
+				if (v < zones) offset += graph.degree(v);
+			}
+			for (int v = 0; v < zones; v++) {
+				for (int k = 0; k < graph.degree(v); k++) {
+					if (out.remaining() < Integer.BYTES) drain(out, channel);
+					out.putInt(graph.neighbor(v, k));
+				}
+			}
+			for (int v = 0; v < zones; v++) {
+				if (out.remaining() < Integer.BYTES) drain(out, channel);
+				out.putInt(v < coloring.getVertexCount() ? coloring.getColor(v) : IntColoring.UNCOLORED);
+			}
+			drain(out, channel);
+
+			// Runs de chaque ligne, l'index des lignes étant écrit à la fin
+			long[] rowStarts = new long[height + 1];
+			channel.position(runsStart);
+			long written = 0;
+			for (int y = 0, i = 0; y < height; y++) {
+				rowStarts[y] = written + out.position();
+				int end = i + width;
+				while (i < end) {
+					int label = labels[i];
+					if (label < ComponentLabeler.BORDER || label >= zones) {
+						throw new IllegalArgumentException("Label " + label + " is not a zone of the graph");
+					}
+					int start = i++;
+					while (i < end && labels[i] == label) i++;
+					if (out.remaining() < MAX_RUN_BYTES) {
+						written += out.position();
+						drain(out, channel);
+					}
+					putVarint(out, label + 1);
+					putVarint(out, i - start);
+				}
+			}
+			rowStarts[height] = written + out.position();
+			drain(out, channel);
+			long length = runsStart + rowStarts[height];
+
+			ByteBuffer index = ByteBuffer.allocate(8 * (height + 1)).order(ByteOrder.LITTLE_ENDIAN);
+			index.asLongBuffer().put(rowStarts);
+			write(index, channel, labelsStart);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(zones).putInt(edges)
+					.putInt(borderColor.getRGB()).putInt(borderWidth).putLong(adjacency).putLong(colors)
+					.putLong(labelsStart).putLong(length).flip();
+			write(header, channel, 0);
+		}
+	}
+
+	private static void drain(ByteBuffer out, FileChannel channel) throws IOException {
+		out.flip();
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+		out.clear();
+	}
+
+	private static void write(ByteBuffer data, FileChannel channel, long position) throws IOException {
+		while (data.hasRemaining()) {
+			position += channel.write(data, position);
+		}
+	}
+
+	private static void putVarint(ByteBuffer out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getZoneCount() {
+		return zoneCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public Color getBorderColor() {
+		return borderColor;
+	}
+
+	public int getBorderWidth() {
+		return borderWidth;
+	}
+
+	/**
+	 * Returns the degree of a zone, read from the mapped file.
+	 * @param zone a zone in 0..zoneCount-1
+	 * @return the number of neighbours of the zone
+	 */
+	public int degree(int zone) {
+		checkZone(zone);
+		return buffer.getInt(adjacencyOffset + 4 * (zone + 1)) - buffer.getInt(adjacencyOffset + 4 * zone);
+	}
+
+	/**
+	 * Returns a neighbour of a zone, read from the mapped file.
+	 * @param zone a zone in 0..zoneCount-1
+	 * @param i an index in 0..degree(zone)-1
+	 * @return the i-th neighbour of the zone, in ascending order
+	 */
+	public int neighbor(int zone, int i) {
+		if (i < 0 || i >= degree(zone)) throw new IndexOutOfBoundsException("No neighbour " + i + " of zone " + zone);
+		int first = buffer.getInt(adjacencyOffset + 4 * zone);
+		return buffer.getInt(adjacencyOffset + 4 * (zoneCount + 1 + first + i));
+	}
+
+	/**
+	 * Returns the color of a zone, read from the mapped file.
+	 * @param zone a zone in 0..zoneCount-1
+	 * @return its color, or {@link IntColoring#UNCOLORED}
+	 */
+	public int getColor(int zone) {
+		checkZone(zone);
+		return buffer.getInt(colorsOffset + 4 * zone);
+	}
+
+	private void checkZone(int zone) {
+		if (zone < 0 || zone >= zoneCount) throw new IndexOutOfBoundsException("No zone " + zone);
+	}
+
+	/**
+	 * Decodes the labels of a row.
+	 *
+	 * @param y a row in 0..height-1
+	 * @param labels the array receiving the width labels of the row
+	 * @param offset the index of the first label in the array
+	 * @throws IndexOutOfBoundsException if the row is outside the map or the labels don't fit the array
+	 * @throws IllegalStateException if the row is corrupted
+	 */
+	public void readRow(int y, int[] labels, int offset) {
+		if (y < 0 || y >= height) throw new IndexOutOfBoundsException("No row " + y);
+		if (offset < 0 || offset + width > labels.length) {
+			throw new IndexOutOfBoundsException("Row of " + width + " labels at " + offset + " outside the array");
+		}
+		int p = runsOffset + (int) buffer.getLong(labelsOffset + 8 * y);
+		int end = runsOffset + (int) buffer.getLong(labelsOffset + 8 * (y + 1));
+		int x = 0;
+		while (p < end) {
+			int label = 0;
+			int length = 0;
+			// Deux varints : étiquette + 1, puis longueur du run
+			for (int shift = 0;; shift += 7) {
+				byte b = buffer.get(p++);
+				label |= (b & 0x7F) << shift;
+				if (b >= 0) break;
+			}
+			for (int shift = 0;; shift += 7) {
+				byte b = buffer.get(p++);
+				length |= (b & 0x7F) << shift;
+				if (b >= 0) break;
+			}
+			label--;
+			if (label < ComponentLabeler.BORDER || label >= zoneCount || length <= 0 || length > width - x) {
+				throw new IllegalStateException("Corrupted labels in row " + y);
+			}
+			Arrays.fill(labels, offset + x, offset + x + length, label);
+			x += length;
+		}
+		if (x != width) {
+			throw new IllegalStateException("Corrupted labels in row " + y);
+		}
+	}
+
+	/**
+	 * Decodes the labels of the whole map, rows being decoded in parallel.
+	 * @return the zone label of every pixel, {@link ComponentLabeler#BORDER} for the border
+	 * @throws IllegalStateException if a row is corrupted
+	 */
+	public int[] getLabels() {
+		int[] labels = new int[Math.multiplyExact(width, height)];
+		IntStream.range(0, height).parallel().forEach(y -> readRow(y, labels, y * width));
+		return labels;
+	}
+
+	/**
+	 * Copies the adjacency graph to the heap.
+	 * @return the adjacency graph of the zones
+	 * @throws IllegalArgumentException if the graph is corrupted
+	 */
+	public ZoneGraph getGraph() {
+		long[] edges = new long[edgeCount];
+		int e = 0;
+		for (int v = 0; v < zoneCount; v++) {
+			int first = buffer.getInt(adjacencyOffset + 4 * v);
+			int last = buffer.getInt(adjacencyOffset + 4 * (v + 1));
+			if (first < 0 || last < first || last > 2 * edgeCount) {
+				throw new IllegalArgumentException("Corrupted adjacency of zone " + v);
+			}
+			// Les arêtes (v, u > v) dans l'ordre croissant : déjà triées pour ZoneGraph
+			for (int k = first; k < last; k++) {
+				int u = buffer.getInt(adjacencyOffset + 4 * (zoneCount + 1 + k));
+				if (u > v) {
+					if (e == edgeCount) throw new IllegalArgumentException("Corrupted adjacency of zone " + v);
+					edges[e++] = ZoneAdjacency.encode(v, u);
+				}
+			}
+		}
+		if (e != edgeCount) throw new IllegalArgumentException("Corrupted adjacency");
+		return new ZoneGraph(zoneCount, edges);
+	}
+
+	/**
+	 * Copies the coloring to the heap.
+	 * @return the color of every zone
+	 * @throws IllegalArgumentException if a color is invalid
+	 */
+	public IntColoring getColoring() {
+		int[] colors = new int[zoneCount];
+		ByteBuffer section = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(colorsOffset);
+		section.asIntBuffer().get(colors);
+		return new IntColoring(colors);
+	}
+
+	/**
+	 * Builds the coloring of a map from this file, without computing its
+	 * zones, adjacency or colors. The map is painted by {@link MapColoring#colorMap()}.
+	 *
+	 * @param image the image of the map, of the same size as the file
+	 * @return the map coloring
+	 * @throws NullPointerException if image is null
+	 * @throws IllegalArgumentException if the image doesn't have the size of the file
+	 * @throws IllegalStateException if the labels are corrupted
+	 */
+	public MapColoring toMapColoring(BufferedImage image) {
+		if (image == null) throw new NullPointerException("Image cannot be null");
+		if (image.getWidth() != width || image.getHeight() != height) {
+			throw new IllegalArgumentException("Image of " + image.getWidth() + "x" + image.getHeight()
+					+ " for a map of " + width + "x" + height);
+		}
+		return new MapColoring(image, borderColor, borderWidth, getLabels(), getGraph(), getColoring());
+	}
+}
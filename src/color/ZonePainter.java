@@ -0,0 +1,139 @@
+package color;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Paints the zones of a labeled map with one color per zone.
+ *
+ * Pixels are written a scanline at a time, straight into the data buffer of
+ * the image when its raster is int-packed or byte-interleaved, through
+ * {@link BufferedImage#setRGB(int, int, int, int, int[], int, int)} otherwise.
+ * Border pixels are left untouched.
+ */
+public class ZonePainter {
+	private final int[] labels;
+	private final int[] zoneRgb;
+
+	/**
+	 * Constructor
+	 *
+	 * @param labels the zone label of every pixel, {@link ComponentLabeler#BORDER} for the border
+	 * @param zoneRgb the ARGB color of every zone, indexed by zone id
+	 * @throws NullPointerException if any input parameter is null
+	 */
+	public ZonePainter(int[] labels, int[] zoneRgb) {
+		if (labels == null || zoneRgb == null) {
+			throw new NullPointerException("Labels and zoneRgb cannot be null");
+		}
+		this.labels = labels;
+		this.zoneRgb = zoneRgb;
+	}
+
+	/**
+	 * Paints the zones into an image.
+	 *
+	 * @param image the image to paint, of the size of the labels
+	 * @throws IllegalArgumentException if the image doesn't match the labels
+	 */
+	public void paint(BufferedImage image) {
+		paint(image, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+	}
+
+	/**
+	 * Paints the zones into a region of an image.
+	 *
+	 * @param image the image to paint, of the size of the labels
+	 * @param region the pixels to paint, clipped to the image
+	 * @throws IllegalArgumentException if the image doesn't match the labels
+	 */
+	public void paint(BufferedImage image, Rectangle region) {
+		if ((long) image.getWidth() * image.getHeight() != labels.length) {
+			throw new IllegalArgumentException("Image size doesn't match the labels");
+		}
+		Rectangle r = region.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+		if (r.isEmpty()) {
+			return;
+		}
+		WritableRaster raster = image.getRaster();
+		switch (image.getType()) {
+		case BufferedImage.TYPE_INT_RGB:
+		case BufferedImage.TYPE_INT_ARGB:
+			paintInt(image, raster, r);
+			break;
+		case BufferedImage.TYPE_3BYTE_BGR:
+			paintBytes(image, raster, r, false);
+			break;
+		case BufferedImage.TYPE_4BYTE_ABGR:
+			paintBytes(image, raster, r, true);
+			break;
+		default:
+			paintRows(image, r);
+		}
+	}
+
+	private void paintInt(BufferedImage image, WritableRaster raster, Rectangle r) {
+		int width = image.getWidth();
+		SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+		DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+		int[] data = buffer.getData();
+		int stride = sm.getScanlineStride();
+		int base = buffer.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+		for (int y = r.y; y < r.y + r.height; y++) {
+			int p = base + y * stride + r.x;
+			for (int x = r.x, i = y * width + x; x < r.x + r.width; x++, i++, p++) {
+				int zone = labels[i];
+				if (zone != ComponentLabeler.BORDER) {
+					data[p] = zoneRgb[zone];
+				}
+			}
+		}
+	}
+
+	private void paintBytes(BufferedImage image, WritableRaster raster, Rectangle r, boolean alpha) {
+		int width = image.getWidth();
+		ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+		DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+		byte[] data = buffer.getData();
+		int stride = sm.getScanlineStride();
+		int pixelStride = sm.getPixelStride();
+		int base = buffer.getOffset() - raster.getSampleModelTranslateY() * stride
+				- raster.getSampleModelTranslateX() * pixelStride;
+		for (int y = r.y; y < r.y + r.height; y++) {
+			int p = base + y * stride + r.x * pixelStride;
+			for (int x = r.x, i = y * width + x; x < r.x + r.width; x++, i++, p += pixelStride) {
+				int zone = labels[i];
+				if (zone != ComponentLabeler.BORDER) {
+					int rgb = zoneRgb[zone];
+					int q = p;
+					if (alpha) {
+						data[q++] = (byte) (rgb >>> 24);
+					}
+					data[q++] = (byte) rgb;
+					data[q++] = (byte) (rgb >> 8);
+					data[q] = (byte) (rgb >> 16);
+				}
+			}
+		}
+	}
+
+	private void paintRows(BufferedImage image, Rectangle r) {
+		int width = image.getWidth();
+		int[] row = new int[r.width];
+		for (int y = r.y; y < r.y + r.height; y++) {
+			image.getRGB(r.x, y, r.width, 1, row, 0, r.width);
+			for (int x = 0, i = y * width + r.x; x < r.width; x++, i++) {
+				int zone = labels[i];
+				if (zone != ComponentLabeler.BORDER) {
+					row[x] = zoneRgb[zone];
+				}
+			}
+			image.setRGB(r.x, y, r.width, 1, row, 0, r.width);
+		}
+	}
+}
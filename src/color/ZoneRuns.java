@@ -0,0 +1,375 @@
+package color;
+
+import java.util.Arrays;
+
+/**
+ * Run-length labeling of the zones of a map.
+ *
+ * Every row is encoded as the runs of consecutive non-border pixels, found a
+ * 64-pixel word of the {@link BorderMask} at a time. Runs of consecutive rows
+ * which overlap are merged into the same zone, so that time and memory depend
+ * on the number of runs rather than on the number of pixels. Zones are
+ * numbered in the order of their first pixel, like {@link ComponentLabeler},
+ * and each zone is kept as the list of its runs.
+ */
+public class ZoneRuns {
+	private final int width;
+	private final int firstRow;
+	private final int height;
+	// Les runs de la ligne firstRow + y sont rowOffsets[y]..rowOffsets[y + 1]-1
+	private final int[] rowOffsets;
+	private int[] starts;
+	private int[] ends;
+	private int[] zones;
+	private int runCount;
+	private int zoneCount;
+	// Runs de chaque zone, dans l'ordre des lignes, calculés à la demande
+	private int[] zoneOffsets;
+	private int[] zoneRuns;
+
+	/**
+	 * Constructor
+	 *
+	 * @param mask the border pixels of a map
+	 * @throws NullPointerException if the mask is null
+	 */
+	public ZoneRuns(BorderMask mask) {
+		this(mask, 0, mask.getHeight());
+	}
+
+	/*
+	 * Labels the rows [firstRow, endRow) as if they were a whole image.
+	 */
+	ZoneRuns(BorderMask mask, int firstRow, int endRow) {
+		if (mask == null) throw new NullPointerException("Mask cannot be null");
+		this.width = mask.getWidth();
+		this.firstRow = firstRow;
+		this.height = endRow - firstRow;
+		this.rowOffsets = new int[height + 1];
+		int capacity = Math.max(16, 2 * height);
+		this.starts = new int[capacity];
+		this.ends = new int[capacity];
+		label(mask.words());
+	}
+
+	private ZoneRuns(int width, int height, int[] rowOffsets, int[] starts, int[] ends, int[] zones, int zoneCount) {
+		this.width = width;
+		this.firstRow = 0;
+		this.height = height;
+		this.rowOffsets = rowOffsets;
+		this.starts = starts;
+		this.ends = ends;
+		this.zones = zones;
+		this.runCount = rowOffsets[height];
+		this.zoneCount = zoneCount;
+	}
+
+	/*
+	 * Joins the runs of consecutive bands, the zone local to the band b being
+	 * renumbered zoneOf[offsets[b] + zone].
+	 */
+	static ZoneRuns concat(ZoneRuns[] bands, int[] offsets, int[] zoneOf, int zoneCount) {
+		int height = 0;
+		int runCount = 0;
+		for (ZoneRuns band : bands) {
+			height += band.height;
+			runCount += band.runCount;
+		}
+		int[] rowOffsets = new int[height + 1];
+		int[] starts = new int[runCount];
+		int[] ends = new int[runCount];
+		int[] zones = new int[runCount];
+		int row = 0;
+		int run = 0;
+		for (int b = 0; b < bands.length; b++) {
+			ZoneRuns band = bands[b];
+			for (int y = 1; y <= band.height; y++) {
+				rowOffsets[row + y] = run + band.rowOffsets[y];
+			}
+			System.arraycopy(band.starts, 0, starts, run, band.runCount);
+			System.arraycopy(band.ends, 0, ends, run, band.runCount);
+			for (int r = 0; r < band.runCount; r++) {
+				zones[run + r] = zoneOf[offsets[b] + band.zones[r]];
+			}
+			row += band.height;
+			run += band.runCount;
+		}
+		return new ZoneRuns(bands[0].width, height, rowOffsets, starts, ends, zones, zoneCount);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getZoneCount() {
+		return zoneCount;
+	}
+
+	/**
+	 * Returns the number of runs of non-border pixels.
+	 * @return the number of runs
+	 */
+	public int getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * Returns the zone of a pixel.
+	 * @param x the pixel column
+	 * @param y the pixel row
+	 * @return the zone id, or {@link ComponentLabeler#BORDER} for a border pixel
+	 */
+	public int zoneAt(int x, int y) {
+		int run = findRun(y, x);
+		return run >= 0 ? zones[run] : ComponentLabeler.BORDER;
+	}
+
+	/**
+	 * Tells whether a pixel belongs to a zone.
+	 * @param zone a zone id
+	 * @param x the pixel column
+	 * @param y the pixel row
+	 * @return true if the pixel is in the zone
+	 */
+	public boolean contains(int zone, int x, int y) {
+		return zoneAt(x, y) == zone;
+	}
+
+	/**
+	 * Returns the number of pixels of a zone.
+	 * @param zone a zone id
+	 * @return the area of the zone
+	 */
+	public long getArea(int zone) {
+		long area = 0;
+		int[] runs = zoneRuns();
+		for (int k = zoneOffsets[zone]; k < zoneOffsets[zone + 1]; k++) {
+			area += ends[runs[k]] - starts[runs[k]];
+		}
+		return area;
+	}
+
+	/**
+	 * Calls an action on every run of a zone, from the first row to the last.
+	 * @param zone a zone id
+	 * @param action the action, called with the row and the columns [start, end) of each run
+	 */
+	public void forEachRun(int zone, RunConsumer action) {
+		int[] runs = zoneRuns();
+		for (int k = zoneOffsets[zone]; k < zoneOffsets[zone + 1]; k++) {
+			int run = runs[k];
+			action.accept(rowOf(run), starts[run], ends[run]);
+		}
+	}
+
+	/**
+	 * Writes the zone of every pixel of the labeled rows.
+	 * @param labels the labels of the whole image, indexed by y * width + x
+	 */
+	public void fillLabels(int[] labels) {
+		for (int y = 0; y < height; y++) {
+			int offset = (firstRow + y) * width;
+			int x = 0;
+			for (int run = rowOffsets[y]; run < rowOffsets[y + 1]; run++) {
+				Arrays.fill(labels, offset + x, offset + starts[run], ComponentLabeler.BORDER);
+				Arrays.fill(labels, offset + starts[run], offset + ends[run], zones[run]);
+				x = ends[run];
+			}
+			Arrays.fill(labels, offset + x, offset + width, ComponentLabeler.BORDER);
+		}
+	}
+
+	int rowOffset(int y) {
+		return rowOffsets[y];
+	}
+
+	int start(int run) {
+		return starts[run];
+	}
+
+	int end(int run) {
+		return ends[run];
+	}
+
+	int zone(int run) {
+		return zones[run];
+	}
+
+	int firstRow() {
+		return firstRow;
+	}
+
+	/**
+	 * Returns the adjacent zone pairs, with the same rule as
+	 * {@link ZoneAdjacency} but comparing runs rather than pixels.
+	 *
+	 * @param maxDistance the maximal distance between two adjacent zones, across a border
+	 * @return the edges, each encoded as (min << 32 | max), in ascending order
+	 * @throws IllegalArgumentException if maxDistance is negative
+	 */
+	public long[] getEdges(int maxDistance) {
+		if (maxDistance < 0) throw new IllegalArgumentException("maxDistance cannot be negative");
+		LongHashSet pairs = new LongHashSet(1024);
+		for (int y = 0; y + 1 < height; y++) {
+			// Ligne suivante, à au plus d colonnes
+			pairRows(y, y + 1, -maxDistance, maxDistance, pairs);
+			// Colonne suivante, à au plus d lignes : x dans un run et x + 1 dans l'autre
+			for (int k = 1; k <= maxDistance && y + k < height; k++) {
+				pairRows(y, y + k, -1, -1, pairs);
+				pairRows(y, y + k, 1, 1, pairs);
+			}
+		}
+		return pairs.toSortedArray();
+	}
+
+	/*
+	 * Pairs the runs of row y1 with the runs of row y2 widened to
+	 * [start + low, end + high), when they overlap.
+	 */
+	private void pairRows(int y1, int y2, int low, int high, LongHashSet pairs) {
+		int first = rowOffsets[y2];
+		int last = rowOffsets[y2 + 1];
+		for (int r1 = rowOffsets[y1]; r1 < rowOffsets[y1 + 1]; r1++) {
+			// Runs élargis triés par début et par fin : le premier candidat ne fait qu'avancer
+			while (first < last && ends[first] + high <= starts[r1]) {
+				first++;
+			}
+			for (int r2 = first; r2 < last && starts[r2] + low < ends[r1]; r2++) {
+				if (zones[r1] != zones[r2]) {
+					pairs.add(ZoneAdjacency.encode(zones[r1], zones[r2]));
+				}
+			}
+		}
+	}
+
+	private void label(long[] border) {
+		IntUnionFind sets = new IntUnionFind(Math.max(16, 2 * height));
+		int previous = 0;
+		for (int y = 0; y < height; y++) {
+			long rowStart = (long) (firstRow + y) * width;
+			long rowEnd = rowStart + width;
+			int current = runCount;
+			long x = nextBit(border, rowStart, rowEnd, false);
+			while (x < rowEnd) {
+				long end = nextBit(border, x, rowEnd, true);
+				addRun((int) (x - rowStart), (int) (end - rowStart));
+				sets.makeSet();
+				x = nextBit(border, end, rowEnd, false);
+			}
+			rowOffsets[y + 1] = runCount;
+
+			// Runs de la ligne précédente qui chevauchent ceux de la ligne courante
+			int r1 = previous;
+			int r2 = current;
+			while (r1 < current && r2 < runCount) {
+				if (ends[r1] > starts[r2] && ends[r2] > starts[r1]) {
+					sets.union(r1, r2);
+				}
+				if (ends[r1] <= ends[r2]) {
+					r1++;
+				} else {
+					r2++;
+				}
+			}
+			previous = current;
+		}
+
+		// Identifiants denses dans l'ordre des runs, donc des premiers pixels
+		zones = new int[runCount];
+		int[] rootZone = new int[runCount];
+		Arrays.fill(rootZone, ComponentLabeler.BORDER);
+		for (int run = 0; run < runCount; run++) {
+			int root = sets.find(run);
+			if (rootZone[root] == ComponentLabeler.BORDER) {
+				rootZone[root] = zoneCount++;
+			}
+			zones[run] = rootZone[root];
+		}
+	}
+
+	private void addRun(int start, int end) {
+		if (runCount == starts.length) {
+			int capacity = starts.length + (starts.length >> 1);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+		}
+		starts[runCount] = start;
+		ends[runCount++] = end;
+	}
+
+	/*
+	 * Index of the first pixel in [from, end) whose border bit is set (or
+	 * clear), end if there is none.
+	 */
+	private static long nextBit(long[] words, long from, long end, boolean set) {
+		if (from >= end) return end;
+		int w = (int) (from >>> 6);
+		long word = (set ? words[w] : ~words[w]) & (-1L << from);
+		while (word == 0) {
+			if ((long) ++w << 6 >= end) return end;
+			word = set ? words[w] : ~words[w];
+		}
+		return Math.min(end, ((long) w << 6) + Long.numberOfTrailingZeros(word));
+	}
+
+	private int findRun(int y, int x) {
+		if (y < 0 || y >= height || x < 0 || x >= width) {
+			throw new IndexOutOfBoundsException("Pixel " + x + "," + y + " outside the map");
+		}
+		int k = Arrays.binarySearch(starts, rowOffsets[y], rowOffsets[y + 1], x);
+		int run = k >= 0 ? k : -k - 2;
+		return run >= rowOffsets[y] && x < ends[run] ? run : -1;
+	}
+
+	private int rowOf(int run) {
+		// Dernière ligne commençant au plus tard à ce run, les lignes vides ayant le même début
+		int low = 0;
+		int high = height - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (rowOffsets[middle] <= run) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return firstRow + low;
+	}
+
+	private int[] zoneRuns() {
+		if (zoneRuns == null) {
+			int[] offsets = new int[zoneCount + 1];
+			for (int run = 0; run < runCount; run++) {
+				offsets[zones[run] + 1]++;
+			}
+			for (int zone = 0; zone < zoneCount; zone++) {
+				offsets[zone + 1] += offsets[zone];
+			}
+			int[] runs = new int[runCount];
+			int[] next = Arrays.copyOf(offsets, zoneCount);
+			for (int run = 0; run < runCount; run++) {
+				runs[next[zones[run]]++] = run;
+			}
+			zoneOffsets = offsets;
+			zoneRuns = runs;
+		}
+		return zoneRuns;
+	}
+
+	/**
+	 * Action on a run of pixels.
+	 */
+	@FunctionalInterface
+	public interface RunConsumer {
+		/**
+		 * @param y the row of the run
+		 * @param start the first column of the run
+		 * @param end the column after the last one
+		 */
+		void accept(int y, int start, int end);
+	}
+}
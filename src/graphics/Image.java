@@ -5,6 +5,7 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 import javax.imageio.ImageIO;
 
@@ -28,6 +29,45 @@ public class Image {
 		return canvas;
 	}
 
+	/**
+	 * Returns a memory-mapped pixel source over an uncompressed raster file
+	 * (binary PBM, PGM or PPM), without decoding it into a BufferedImage.
+	 * 
+	 * @param pathname
+	 *            A pathname String.
+	 * @return A RasterFile to be closed after use, or null.
+	 */
+	public static RasterFile loadRaster(String pathname) {
+		try {
+			return new RasterFile(Paths.get(pathname));
+		} catch (IOException e) {
+			System.out.println(e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes an image file once and saves it as an uncompressed PPM raster,
+	 * which can then be opened with {@link #loadRaster(String)}.
+	 * 
+	 * @param imagePathname
+	 *            The pathname of an image file readable by ImageIO.
+	 * @param rasterPathname
+	 *            The pathname of the PPM file to create.
+	 * @return true if the raster file was written.
+	 */
+	public static boolean convertToRaster(String imagePathname, String rasterPathname) {
+		BufferedImage image = loadImage(imagePathname);
+		if (image == null) return false;
+		try {
+			RasterFile.write(image, Paths.get(rasterPathname));
+			return true;
+		} catch (IOException e) {
+			System.out.println(e.getMessage());
+			return false;
+		}
+	}
+
 	/**
 	 * Displays a BufferedImage in a window.
 	 * 
@@ -44,8 +84,10 @@ public class Image {
 	}
     
 	/**
-	 * Displays a BufferedImage in a window.
-	 * 
+	 * Displays a BufferedImage in a window. An image of another size, such as
+	 * a preview computed at a lower resolution, is scaled to the window.
+	 *
+	 * @param p The window displaying the image.
 	 * @param image	A BufferedImage to be displayed.
 	 * @param title The window's title.
 	 */
@@ -53,7 +95,11 @@ public class Image {
     	if (image == null || p == null) return;
 		if (title != null) p.setTitle(title);
 		Graphics g = p.getGraphics();
-		g.drawImage(image, 0, 0, null);
+		if (image.getWidth() == p.getWidth() && image.getHeight() == p.getHeight()) {
+			g.drawImage(image, 0, 0, null);
+		} else {
+			g.drawImage(image, 0, 0, p.getWidth(), p.getHeight(), null);
+		}
 	}
     
     /**
@@ -0,0 +1,98 @@
+package graphics;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Pixel source decoding an image file a band of rows at a time. Only the
+ * requested band is kept in memory.
+ *
+ * Non-interlaced PNG images are decoded once, forward only, as the bands are
+ * read in order : reading a band above the last one restarts the decoding.
+ * Other formats are read through an {@link ImageReader} with a source region,
+ * and sequential formats such as JPEG or GIF, or interlaced PNG, are then
+ * decoded from the start of the file for every band. Such images should be
+ * converted once into a {@link RasterFile} (see
+ * {@link Image#convertToRaster(String, String)}), whose bands are mapped
+ * rather than decoded.
+ */
+public class ImageReaderPixelSource implements PixelSource {
+	private final ImageInputStream input;
+	private final ImageReader reader;
+	private final int width;
+	private final int height;
+	// Décodage séquentiel des PNG, null pour les autres formats
+	private final PngRows png;
+
+	/**
+	 * Constructor
+	 *
+	 * @param file an image file in a format supported by ImageIO
+	 * @throws IOException if the file cannot be read or its format is not supported
+	 */
+	public ImageReaderPixelSource(File file) throws IOException {
+		input = ImageIO.createImageInputStream(file);
+		if (input == null) {
+			throw new IOException("Cannot open " + file);
+		}
+		Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+		if (!readers.hasNext()) {
+			input.close();
+			throw new IOException("Unsupported image format: " + file);
+		}
+		reader = readers.next();
+		try {
+			reader.setInput(input, false, true);
+			width = reader.getWidth(0);
+			height = reader.getHeight(0);
+			png = "png".equalsIgnoreCase(reader.getFormatName())
+					? PngRows.open(file, reader.getImageTypes(0).next())
+					: null;
+		} catch (IOException | RuntimeException e) {
+			reader.dispose();
+			input.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public void readRows(int firstRow, int rowCount, int[] argb) throws IOException {
+		if (firstRow < 0 || rowCount < 0 || firstRow + rowCount > height) {
+			throw new IndexOutOfBoundsException("Rows " + firstRow + ".." + (firstRow + rowCount) + " outside the image");
+		}
+		if (rowCount == 0) return;
+		if (png != null) {
+			png.read(firstRow, rowCount, argb);
+			return;
+		}
+		ImageReadParam param = reader.getDefaultReadParam();
+		param.setSourceRegion(new Rectangle(0, firstRow, width, rowCount));
+		BufferedImage band = reader.read(0, param);
+		band.getRGB(0, 0, width, rowCount, argb, 0, width);
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.dispose();
+		input.close();
+		if (png != null) png.close();
+	}
+}
@@ -0,0 +1,58 @@
+package graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Read-only access to the pixels of an image, a band of rows at a time,
+ * without requiring the whole image in memory.
+ */
+public interface PixelSource extends Closeable {
+
+	int getWidth();
+
+	int getHeight();
+
+	/**
+	 * Reads a band of rows as ARGB pixels.
+	 *
+	 * @param firstRow the first row to read
+	 * @param rowCount the number of rows to read
+	 * @param argb the destination, at least rowCount * width pixels in row-major order
+	 * @throws IOException if the pixels cannot be read
+	 * @throws IndexOutOfBoundsException if the rows are outside the image
+	 */
+	void readRows(int firstRow, int rowCount, int[] argb) throws IOException;
+
+	@Override
+	default void close() throws IOException {
+	}
+
+	/**
+	 * Returns a pixel source reading an image already in memory.
+	 *
+	 * @param image an image
+	 * @return a pixel source over the image
+	 * @throws NullPointerException if the image is null
+	 */
+	static PixelSource of(BufferedImage image) {
+		if (image == null) throw new NullPointerException("Image cannot be null");
+		return new PixelSource() {
+			@Override
+			public int getWidth() {
+				return image.getWidth();
+			}
+
+			@Override
+			public int getHeight() {
+				return image.getHeight();
+			}
+
+			@Override
+			public void readRows(int firstRow, int rowCount, int[] argb) {
+				image.getRGB(0, firstRow, image.getWidth(), rowCount, argb, 0, image.getWidth());
+			}
+		};
+	}
+}
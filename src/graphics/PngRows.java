@@ -0,0 +1,249 @@
+package graphics;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Forward-only decoder of the rows of a non-interlaced PNG image : the IDAT
+ * chunks are inflated and unfiltered one row at a time, so that reading the
+ * whole image a band at a time costs a single decoding.
+ *
+ * The samples are stored in a band of the image type chosen by the PNG
+ * {@link javax.imageio.ImageReader}, so that the ARGB pixels are those of
+ * the decoded image. Reading a row before the current one starts the
+ * decoding over.
+ */
+class PngRows {
+	private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+	private static final int IHDR = 0x49484452;
+	private static final int TRNS = 0x74524E53;
+	private static final int IDAT = 0x49444154;
+	private static final int IEND = 0x49454E44;
+
+	private final ImageInputStream input;
+	private final ImageTypeSpecifier type;
+	private final int width;
+	private final int height;
+	private final int bitDepth;
+	// Octets par pixel pour les filtres, au moins 1
+	private final int filterStride;
+	private final long firstChunk;
+	private final Inflater inflater = new Inflater();
+	private final byte[] compressed = new byte[1 << 16];
+	private final int[] samples;
+	private byte[] previous;
+	private byte[] current;
+	private long chunkRemaining;
+	private int nextRow;
+	private BufferedImage band;
+
+	private PngRows(ImageInputStream input, ImageTypeSpecifier type, int width, int height, int bitDepth,
+			int channels, long firstChunk) {
+		this.input = input;
+		this.type = type;
+		this.width = width;
+		this.height = height;
+		this.bitDepth = bitDepth;
+		this.filterStride = Math.max(1, channels * bitDepth / 8);
+		this.firstChunk = firstChunk;
+		int rowBytes = (int) (((long) width * channels * bitDepth + 7) / 8);
+		this.previous = new byte[1 + rowBytes];
+		this.current = new byte[1 + rowBytes];
+		this.samples = new int[width * channels];
+	}
+
+	/**
+	 * Reads the header of a PNG image, through a stream of its own.
+	 *
+	 * @param file the PNG file
+	 * @param type the image type the PNG reader decodes into
+	 * @return the decoder, to be closed after use, or null if the image is
+	 *         interlaced or has a transparent color, which the reader expands
+	 *         into an alpha channel
+	 * @throws IOException if the file is not a PNG image
+	 */
+	static PngRows open(File file, ImageTypeSpecifier type) throws IOException {
+		ImageInputStream input = ImageIO.createImageInputStream(file);
+		if (input == null) {
+			throw new IOException("Cannot open " + file);
+		}
+		PngRows rows = null;
+		try {
+			rows = open(input, type);
+			return rows;
+		} finally {
+			if (rows == null) input.close();
+		}
+	}
+
+	private static PngRows open(ImageInputStream input, ImageTypeSpecifier type) throws IOException {
+		input.setByteOrder(ByteOrder.BIG_ENDIAN);
+		if (input.readLong() != SIGNATURE) throw new IOException("Not a PNG image");
+		int width = 0, height = 0, bitDepth = 0, colorType = 0, interlace = 0;
+		boolean transparentColor = false;
+		while (true) {
+			int length = input.readInt();
+			int chunk = input.readInt();
+			long data = input.getStreamPosition();
+			if (chunk == IHDR) {
+				width = input.readInt();
+				height = input.readInt();
+				bitDepth = input.readUnsignedByte();
+				colorType = input.readUnsignedByte();
+				input.skipBytes(2);
+				interlace = input.readUnsignedByte();
+			} else if (chunk == TRNS) {
+				transparentColor = colorType != 3;
+			} else if (chunk == IDAT) {
+				if (interlace != 0 || transparentColor) return null;
+				int channels = colorType == 2 ? 3 : colorType == 4 ? 2 : colorType == 6 ? 4 : 1;
+				return new PngRows(input, type, width, height, bitDepth, channels, data - 8).rewind();
+			} else if (chunk == IEND) {
+				throw new IOException("PNG image without data");
+			}
+			input.seek(data + length + 4);
+		}
+	}
+
+	/**
+	 * Decodes rows as ARGB pixels.
+	 *
+	 * @param firstRow the first row to read
+	 * @param rowCount the number of rows to read
+	 * @param argb the destination, at least rowCount * width pixels
+	 * @throws IOException if the image data is truncated or corrupted
+	 */
+	void read(int firstRow, int rowCount, int[] argb) throws IOException {
+		if (firstRow < nextRow) rewind();
+		while (nextRow < firstRow) {
+			decodeRow();
+		}
+		if (band == null || band.getHeight() < rowCount) {
+			band = type.createBufferedImage(width, rowCount);
+		}
+		WritableRaster raster = band.getRaster();
+		for (int y = 0; y < rowCount; y++) {
+			decodeRow();
+			raster.setPixels(0, y, width, 1, unpack());
+		}
+		band.getRGB(0, 0, width, rowCount, argb, 0, width);
+	}
+
+	void close() throws IOException {
+		inflater.end();
+		input.close();
+	}
+
+	// Reprise au premier chunk IDAT
+	private PngRows rewind() throws IOException {
+		input.seek(firstChunk);
+		inflater.reset();
+		chunkRemaining = 0;
+		Arrays.fill(current, (byte) 0);
+		nextRow = 0;
+		return this;
+	}
+
+	// Ligne filtrée : un octet de filtre suivi des octets des pixels
+	private void decodeRow() throws IOException {
+		if (nextRow >= height) throw new IOException("Row " + nextRow + " outside the image");
+		byte[] row = previous;
+		previous = current;
+		current = row;
+		inflate(row);
+		unfilter(row[0], row, previous);
+		nextRow++;
+	}
+
+	private void inflate(byte[] row) throws IOException {
+		try {
+			for (int n = 0; n < row.length;) {
+				int count = inflater.inflate(row, n, row.length - n);
+				if (count == 0) {
+					if (inflater.finished() || inflater.needsDictionary()) {
+						throw new EOFException("Truncated PNG image data");
+					}
+					fill();
+				}
+				n += count;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupted PNG image data", e);
+		}
+	}
+
+	// Données compressées du chunk IDAT courant, puis des suivants
+	private void fill() throws IOException {
+		while (chunkRemaining == 0) {
+			int length = input.readInt();
+			if (input.readInt() != IDAT) throw new EOFException("Truncated PNG image data");
+			chunkRemaining = length;
+		}
+		int count = (int) Math.min(compressed.length, chunkRemaining);
+		input.readFully(compressed, 0, count);
+		chunkRemaining -= count;
+		if (chunkRemaining == 0) input.skipBytes(4); // CRC
+		inflater.setInput(compressed, 0, count);
+	}
+
+	// Les octets à gauche de la ligne (i - bpp < 1) et au-dessus de la première valent 0
+	private void unfilter(int filter, byte[] row, byte[] above) throws IOException {
+		int bpp = filterStride;
+		switch (filter) {
+		case 0:
+			break;
+		case 1:
+			for (int i = 1 + bpp; i < row.length; i++) row[i] += row[i - bpp];
+			break;
+		case 2:
+			for (int i = 1; i < row.length; i++) row[i] += above[i];
+			break;
+		case 3:
+			for (int i = 1; i < row.length; i++) {
+				int left = i > bpp ? row[i - bpp] & 0xFF : 0;
+				row[i] += (left + (above[i] & 0xFF)) >>> 1;
+			}
+			break;
+		case 4:
+			for (int i = 1; i < row.length; i++) {
+				int a = i > bpp ? row[i - bpp] & 0xFF : 0;
+				int b = above[i] & 0xFF;
+				int c = i > bpp ? above[i - bpp] & 0xFF : 0;
+				int p = a + b - c;
+				int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+				row[i] += pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+			}
+			break;
+		default:
+			throw new IOException("Invalid PNG filter " + filter);
+		}
+	}
+
+	// Échantillons de la ligne courante, dans l'ordre des bandes du raster
+	private int[] unpack() {
+		byte[] row = current;
+		if (bitDepth == 8) {
+			for (int i = 0; i < samples.length; i++) samples[i] = row[1 + i] & 0xFF;
+		} else if (bitDepth == 16) {
+			for (int i = 0; i < samples.length; i++) samples[i] = (row[1 + 2 * i] & 0xFF) << 8 | (row[2 + 2 * i] & 0xFF);
+		} else {
+			int mask = (1 << bitDepth) - 1;
+			for (int i = 0; i < samples.length; i++) {
+				int bit = i * bitDepth;
+				samples[i] = row[1 + (bit >>> 3)] >> (8 - bitDepth - (bit & 7)) & mask;
+			}
+		}
+		return samples;
+	}
+}
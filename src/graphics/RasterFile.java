@@ -0,0 +1,208 @@
+package graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Uncompressed raster image in the binary Netpbm formats : PBM (P4, black
+ * and white), PGM (P5, gray) and PPM (P6, RGB), with 8-bit samples.
+ *
+ * The file is memory-mapped read-only, so pixels are read straight from the
+ * page cache without decoding and without holding the image on the heap.
+ */
+public class RasterFile implements PixelSource {
+	private static final int BLACK = 0xFF000000;
+	private static final int WHITE = 0xFFFFFFFF;
+
+	private final FileChannel channel;
+	private final char format;
+	private final int width;
+	private final int height;
+	private final int maxValue;
+	private final int rowBytes;
+	private final int rowsPerSegment;
+	private final MappedByteBuffer[] segments;
+
+	/**
+	 * Opens a raster file.
+	 *
+	 * @param path a PBM, PGM or PPM file in binary format
+	 * @throws IOException if the file cannot be read or is not a supported raster
+	 */
+	public RasterFile(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			Header header = new Header(channel);
+			format = header.format;
+			width = header.width;
+			height = header.height;
+			maxValue = header.maxValue;
+			rowBytes = format == '4' ? (width + 7) / 8 : format == '5' ? width : 3 * width;
+			long dataBytes = (long) rowBytes * height;
+			if (header.dataOffset + dataBytes > channel.size()) {
+				throw new IOException("Truncated raster file: " + path);
+			}
+			// Un MappedByteBuffer est limité à 2 Go : une projection par groupe de lignes
+			rowsPerSegment = Math.max(1, Integer.MAX_VALUE / Math.max(1, rowBytes));
+			segments = new MappedByteBuffer[(height + rowsPerSegment - 1) / rowsPerSegment];
+			for (int s = 0; s < segments.length; s++) {
+				int rows = Math.min(rowsPerSegment, height - s * rowsPerSegment);
+				segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+						header.dataOffset + (long) s * rowsPerSegment * rowBytes, (long) rows * rowBytes);
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public void readRows(int firstRow, int rowCount, int[] argb) {
+		if (firstRow < 0 || rowCount < 0 || firstRow + rowCount > height) {
+			throw new IndexOutOfBoundsException("Rows " + firstRow + ".." + (firstRow + rowCount) + " outside the image");
+		}
+		for (int r = 0; r < rowCount; r++) {
+			int y = firstRow + r;
+			MappedByteBuffer segment = segments[y / rowsPerSegment];
+			int p = (y % rowsPerSegment) * rowBytes;
+			int o = r * width;
+			switch (format) {
+			case '4':
+				for (int x = 0; x < width; x++) {
+					int bits = segment.get(p + (x >> 3));
+					argb[o + x] = (bits & (0x80 >> (x & 7))) != 0 ? BLACK : WHITE;
+				}
+				break;
+			case '5':
+				for (int x = 0; x < width; x++, p++) {
+					int g = scale(segment.get(p) & 0xFF);
+					argb[o + x] = BLACK | g << 16 | g << 8 | g;
+				}
+				break;
+			default:
+				for (int x = 0; x < width; x++, p += 3) {
+					argb[o + x] = BLACK | scale(segment.get(p) & 0xFF) << 16 | scale(segment.get(p + 1) & 0xFF) << 8
+							| scale(segment.get(p + 2) & 0xFF);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private int scale(int sample) {
+		return maxValue == 255 ? sample : sample * 255 / maxValue;
+	}
+
+	/**
+	 * Returns the header of a binary PPM (P6) file with 8-bit samples.
+	 *
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @return the header, followed in the file by 3 bytes (R, G, B) per pixel
+	 */
+	public static byte[] ppmHeader(int width, int height) {
+		return ("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Writes an image as a binary PPM (P6) file. Transparency is dropped.
+	 *
+	 * @param image the image to write
+	 * @param path the destination file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(BufferedImage image, Path path) throws IOException {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+			out.write(ppmHeader(width, height));
+			int[] row = new int[width];
+			byte[] rgb = new byte[3 * width];
+			for (int y = 0; y < height; y++) {
+				image.getRGB(0, y, width, 1, row, 0, width);
+				for (int x = 0, p = 0; x < width; x++) {
+					rgb[p++] = (byte) (row[x] >> 16);
+					rgb[p++] = (byte) (row[x] >> 8);
+					rgb[p++] = (byte) row[x];
+				}
+				out.write(rgb);
+			}
+		}
+	}
+
+	/*
+	 * Netpbm header : magic number, width, height and (except for PBM) maximal
+	 * sample value, separated by whitespace and comments, then a single
+	 * whitespace before the pixels.
+	 */
+	private static class Header {
+		private final byte[] bytes;
+		private int position;
+		final char format;
+		final int width;
+		final int height;
+		final int maxValue;
+		final long dataOffset;
+
+		Header(FileChannel channel) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(1024, channel.size()));
+			channel.read(buffer, 0);
+			bytes = Arrays.copyOf(buffer.array(), buffer.position());
+			if (bytes.length < 2 || bytes[0] != 'P' || bytes[1] < '4' || bytes[1] > '6') {
+				throw new IOException("Not a binary PBM, PGM or PPM file");
+			}
+			format = (char) bytes[1];
+			position = 2;
+			width = nextInt();
+			height = nextInt();
+			maxValue = format == '4' ? 1 : nextInt();
+			if (width <= 0 || height <= 0 || maxValue <= 0 || maxValue > 255) {
+				throw new IOException("Unsupported raster: " + width + "x" + height + ", max value " + maxValue);
+			}
+			dataOffset = position + 1;
+		}
+
+		private int nextInt() throws IOException {
+			while (position < bytes.length && (Character.isWhitespace(bytes[position]) || bytes[position] == '#')) {
+				if (bytes[position] == '#') {
+					while (position < bytes.length && bytes[position] != '\n') position++;
+				} else {
+					position++;
+				}
+			}
+			int value = 0;
+			int start = position;
+			while (position < bytes.length && bytes[position] >= '0' && bytes[position] <= '9') {
+				value = value * 10 + bytes[position++] - '0';
+			}
+			if (position == start || position >= bytes.length) {
+				throw new IOException("Malformed raster header");
+			}
+			return value;
+		}
+	}
+}
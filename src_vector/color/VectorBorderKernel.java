@@ -0,0 +1,99 @@
+package color;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Border kernel comparing a lane of pixels at a time with the
+ * jdk.incubator.vector API, loaded by {@link BorderKernel#of(int, int)}.
+ *
+ * With a tolerance, the pixels are compared as bytes : every channel, xor-ed
+ * with 0x80 so that a signed compare orders it as unsigned, must lie between
+ * the channel of the border color minus and plus the tolerance.
+ */
+final class VectorBorderKernel extends BorderKernel {
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+	// Poids 1 << lane : la somme des poids des voies d'un masque donne ses bits
+	private static final IntVector WEIGHTS = weights();
+
+	private final BorderKernel tail;
+	private final ByteVector low;
+	private final ByteVector high;
+
+	VectorBorderKernel(int borderRgb, int tolerance) {
+		super(borderRgb, tolerance);
+		this.tail = BorderKernel.scalar(borderRgb, tolerance);
+		int lowRgb = 0;
+		int highRgb = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			int channel = borderRgb >>> shift & 0xFF;
+			lowRgb |= (Math.max(0, channel - tolerance) ^ 0x80) << shift;
+			highRgb |= (Math.min(255, channel + tolerance) ^ 0x80) << shift;
+		}
+		this.low = IntVector.broadcast(SPECIES, lowRgb).reinterpretAsBytes();
+		this.high = IntVector.broadcast(SPECIES, highRgb).reinterpretAsBytes();
+	}
+
+	@Override
+	void mark(int[] pixels, int from, int count, int alpha, long[] words, long firstBit) {
+		int bound = SPECIES.loopBound(count);
+		// Une boucle par mode : un masque issu de deux branches ne resterait pas en registre
+		if (tolerance == 0) {
+			markExact(pixels, from, bound, alpha, words, firstBit);
+		} else {
+			markWithin(pixels, from, bound, alpha, words, firstBit);
+		}
+		tail.mark(pixels, from + bound, count - bound, alpha, words, firstBit + bound);
+	}
+
+	private void markExact(int[] pixels, int from, int bound, int alpha, long[] words, long firstBit) {
+		for (int i = 0; i < bound; i += SPECIES.length()) {
+			IntVector pixel = IntVector.fromArray(SPECIES, pixels, from + i).or(alpha);
+			set(words, firstBit + i, pack(pixel.compare(VectorOperators.EQ, borderRgb)));
+		}
+	}
+
+	private void markWithin(int[] pixels, int from, int bound, int alpha, long[] words, long firstBit) {
+		for (int i = 0; i < bound; i += SPECIES.length()) {
+			IntVector pixel = IntVector.fromArray(SPECIES, pixels, from + i).or(alpha);
+			set(words, firstBit + i, pack(within(pixel)));
+		}
+	}
+
+	private static IntVector weights() {
+		int[] weights = new int[SPECIES.length()];
+		for (int lane = 0; lane < weights.length; lane++) {
+			weights[lane] = 1 << lane;
+		}
+		return IntVector.fromArray(SPECIES, weights, 0);
+	}
+
+	/*
+	 * Bits of a mask, bit i for the lane i. VectorMask.toLong() is not
+	 * compiled to a vector instruction before JDK 19, a reduction is.
+	 */
+	private static long pack(VectorMask<Integer> mask) {
+		return IntVector.zero(SPECIES).blend(WEIGHTS, mask).reduceLanes(VectorOperators.OR) & 0xFFFFFFFFL;
+	}
+
+	// Sans branchement sur les bits : les pixels de frontière sont imprévisibles
+	private static void set(long[] words, long bit, long bits) {
+		int word = (int) (bit >>> 6);
+		int shift = (int) bit & 63;
+		words[word] |= bits << shift;
+		// Les bits d'une voie peuvent chevaucher deux mots
+		if (shift + SPECIES.length() > 64) {
+			words[word + 1] |= bits >>> (64 - shift);
+		}
+	}
+
+	private VectorMask<Integer> within(IntVector pixel) {
+		ByteVector channels = pixel.reinterpretAsBytes().lanewise(VectorOperators.XOR, (byte) 0x80);
+		VectorMask<Byte> inside = channels.compare(VectorOperators.GE, low)
+				.and(channels.compare(VectorOperators.LE, high));
+		return inside.toVector().reinterpretAsInts().compare(VectorOperators.EQ, -1);
+	}
+}
@@ -0,0 +1,136 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import graphics.Image;
+import graphics.PixelSource;
+
+public class AsyncMapColoringTest {
+
+	private static BufferedImage usaMap() {
+		return Image.loadImage("img/maps/USA_map.png");
+	}
+
+	@Test
+	void invalidArguments() {
+		assertThrows(NullPointerException.class, () -> MapColoring.colorAsync(null, Color.BLACK, Runnable::run));
+		assertThrows(NullPointerException.class, () -> MapColoring.colorAsync(usaMap(), null, Runnable::run));
+		assertThrows(NullPointerException.class, () -> MapColoring.colorAsync(usaMap(), Color.BLACK, null));
+		assertThrows(NullPointerException.class, () -> MapColoringPipeline.builder(usaMap()).build().runAsync(null));
+	}
+
+	@Test
+	void stagesGiveTheSameColoring() {
+		MapColoring expected = new MapColoring(usaMap(), Color.BLACK);
+		expected.colorMap();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			BufferedImage image = usaMap();
+			AsyncMapColoring task = MapColoring.colorAsync(image, Color.BLACK, executor);
+			assertEquals(expected.getZoneInfo().getZoneCount(), task.labels().join().getValue().getZoneCount());
+			assertEquals(expected.adjacencyGraph().edgeCount(), task.adjacency().join().getValue().edgeCount());
+			assertArrayEquals(expected.getColoring().toArray(), task.coloring().join().getValue().toArray());
+			assertSame(image, task.painted().join().getValue());
+			for (int y = 0; y < image.getHeight(); y++) {
+				for (int x = 0; x < image.getWidth(); x++) {
+					assertEquals(expected.getImage().getRGB(x, y), image.getRGB(x, y));
+				}
+			}
+			assertEquals(MapColoringPipeline.Stage.values().length, task.getPipeline().getStageResults().size());
+			assertFalse(task.cancel());
+			assertFalse(task.painted().isCancelled());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void cancelSkipsRemainingStages() {
+		Deque<Runnable> tasks = new ArrayDeque<>();
+		AsyncMapColoring task = MapColoringPipeline.builder(usaMap()).build().runAsync(tasks::add);
+		tasks.poll().run();
+		assertTrue(task.labels().isDone());
+		assertTrue(task.cancel());
+		assertTrue(task.isCancelled());
+		while (!tasks.isEmpty()) {
+			tasks.poll().run();
+		}
+		assertFalse(task.labels().isCancelled());
+		assertTrue(task.adjacency().isCancelled());
+		assertTrue(task.coloring().isCancelled());
+		assertTrue(task.painted().isCancelled());
+		assertEquals(2, task.getPipeline().getStageResults().size());
+	}
+
+	@Test
+	void cancelInterruptsRunningStage() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean();
+		MapColoringPipeline pipeline = MapColoringPipeline.builder(usaMap()).listener(result -> {
+			if (result.getStage() == MapColoringPipeline.Stage.MASK) {
+				started.countDown();
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException e) {
+					interrupted.set(true);
+				}
+			}
+		}).build();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			AsyncMapColoring task = pipeline.runAsync(executor);
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			assertTrue(task.cancel());
+			assertTrue(task.labels().isCancelled());
+			// Le thread est rendu à l'executor sans l'interruption
+			assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(10, TimeUnit.SECONDS));
+			assertTrue(interrupted.get());
+			assertEquals(1, pipeline.getStageResults().size());
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void failureCompletesLaterStages() {
+		PixelSource unreadable = new PixelSource() {
+			@Override
+			public int getWidth() {
+				return 10;
+			}
+
+			@Override
+			public int getHeight() {
+				return 10;
+			}
+
+			@Override
+			public void readRows(int firstRow, int rowCount, int[] argb) throws IOException {
+				throw new IOException("unreadable");
+			}
+		};
+		AsyncMapColoring task = MapColoringPipeline.builder(unreadable).build().runAsync(Runnable::run);
+		for (CompletableFuture<?> stage : new CompletableFuture<?>[] {
+				task.labels(), task.adjacency(), task.coloring(), task.painted() }) {
+			CompletionException e = assertThrows(CompletionException.class, stage::join);
+			assertEquals("unreadable", e.getCause().getCause().getMessage());
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class BorderKernelTest {
+
+	@Test
+	void invalidTolerance() {
+		assertThrows(IllegalArgumentException.class, () -> BorderKernel.of(0, -1));
+		assertThrows(IllegalArgumentException.class, () -> BorderKernel.scalar(0, 256));
+	}
+
+	@Test
+	void sameBitsAsScalar() {
+		Random random = new Random(3);
+		int border = 0xFF203040;
+		int[] pixels = new int[1000];
+		for (int i = 0; i < pixels.length; i++) {
+			// Près de la couleur de frontière, pour éprouver les bornes de la tolérance
+			int pixel = 0;
+			for (int shift = 0; shift < 32; shift += 8) {
+				int channel = (border >>> shift & 0xFF) + random.nextInt(13) - 6;
+				pixel |= Math.max(0, Math.min(255, channel)) << shift;
+			}
+			pixels[i] = random.nextInt(4) == 0 ? border : random.nextInt(8) == 0 ? random.nextInt() : pixel;
+		}
+		for (int tolerance : new int[] { 0, 1, 4, 6, 255 }) {
+			for (int alpha : new int[] { 0, 0xFF000000 }) {
+				for (int from : new int[] { 0, 3, 17 }) {
+					for (long firstBit : new long[] { 0, 5, 63, 130 }) {
+						int count = pixels.length - from - 11;
+						long[] expected = new long[20];
+						long[] actual = new long[20];
+						BorderKernel.scalar(border, tolerance).mark(pixels, from, count, alpha, expected, firstBit);
+						BorderKernel.of(border, tolerance).mark(pixels, from, count, alpha, actual, firstBit);
+						assertArrayEquals(expected, actual, "tolerance " + tolerance + ", from " + from);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void scalarTolerance() {
+		long[] words = new long[1];
+		int[] pixels = { 0xFF000000, 0xFF050505, 0xFF060000, 0x80000000, 0xFFFFFFFF };
+		BorderKernel.scalar(0xFF000000, 5).mark(pixels, 0, pixels.length, 0, words, 0);
+		assertEquals(0b00011, words[0]);
+		words[0] = 0;
+		BorderKernel.scalar(0xFF000000, 0).mark(pixels, 0, pixels.length, 0xFF000000, words, 0);
+		assertEquals(0b01001, words[0]);
+	}
+}
@@ -0,0 +1,96 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import graphics.Image;
+
+public class BorderMaskTest {
+
+	private static void assertSameAsGetRGB(BufferedImage image, Color borderColor) {
+		BorderMask mask = new BorderMask(image, borderColor);
+		long count = 0;
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				boolean border = image.getRGB(x, y) == borderColor.getRGB();
+				assertEquals(border, mask.isBorder(x, y), "pixel " + x + "," + y);
+				if (border) count++;
+			}
+		}
+		assertEquals(count, mask.countBorderPixels());
+	}
+
+	@Test
+	void nullColor() {
+		assertThrows(NullPointerException.class, () -> new BorderMask(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), null));
+	}
+
+	@Test
+	void allImageTypes() {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		for (int type : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+				BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_BGR,
+				BufferedImage.TYPE_BYTE_BINARY }) {
+			BufferedImage converted = Image.convertToType(image, type);
+			assertSameAsGetRGB(converted, Color.BLACK);
+			assertSameAsGetRGB(converted, Color.WHITE);
+		}
+	}
+
+	@Test
+	void translucentBorderColor() {
+		// An opaque image never contains a translucent border color
+		BufferedImage image = Image.convertToType(Image.loadImage("img/maps/small_map.png"), BufferedImage.TYPE_INT_RGB);
+		assertEquals(0, new BorderMask(image, new Color(0, 0, 0, 128)).countBorderPixels());
+	}
+
+	@Test
+	void tolerance() {
+		BufferedImage image = new BufferedImage(5, 1, BufferedImage.TYPE_INT_RGB);
+		int[] rgb = { 0x000000, 0x0A0A0A, 0x0B0000, 0x000A00, 0xFFFFFF };
+		image.setRGB(0, 0, 5, 1, rgb, 0, 5);
+		assertThrows(IllegalArgumentException.class, () -> new BorderMask(image, Color.BLACK, -1));
+		assertThrows(IllegalArgumentException.class, () -> new BorderMask(image, Color.BLACK, 256));
+		for (int type : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+				BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_BGR }) {
+			BorderMask mask = new BorderMask(Image.convertToType(image, type), Color.BLACK, 10);
+			assertTrue(mask.isBorder(0) && mask.isBorder(1) && mask.isBorder(3));
+			assertFalse(mask.isBorder(2) || mask.isBorder(4));
+			assertEquals(1, new BorderMask(Image.convertToType(image, type), Color.BLACK, 0).countBorderPixels());
+		}
+		assertEquals(5, new BorderMask(image, Color.GRAY, 255).countBorderPixels());
+	}
+
+	@Test
+	void downsample() {
+		BufferedImage image = Image.loadImage("img/maps/USA_map.png");
+		BorderMask mask = new BorderMask(image, Color.BLACK);
+		assertSame(mask, mask.downsample(1));
+		assertThrows(IllegalArgumentException.class, () -> mask.downsample(0));
+		for (int factor : new int[] { 2, 3, 7 }) {
+			BorderMask blocks = mask.downsample(factor);
+			assertEquals((mask.getWidth() + factor - 1) / factor, blocks.getWidth());
+			assertEquals((mask.getHeight() + factor - 1) / factor, blocks.getHeight());
+			for (int y = 0; y < mask.getHeight(); y++) {
+				for (int x = 0; x < mask.getWidth(); x++) {
+					if (mask.isBorder(x, y)) assertTrue(blocks.isBorder(x / factor, y / factor));
+				}
+			}
+			for (int by = 0; by < blocks.getHeight(); by++) {
+				for (int bx = 0; bx < blocks.getWidth(); bx++) {
+					boolean border = false;
+					for (int y = by * factor; y < Math.min(mask.getHeight(), (by + 1) * factor); y++) {
+						for (int x = bx * factor; x < Math.min(mask.getWidth(), (bx + 1) * factor); x++) {
+							border |= mask.isBorder(x, y);
+						}
+					}
+					assertEquals(border, blocks.isBorder(bx, by));
+				}
+			}
+		}
+	}
+}
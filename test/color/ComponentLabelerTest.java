@@ -0,0 +1,107 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import graphics.Image;
+
+public class ComponentLabelerTest {
+
+	/*
+	 * Builds an image from a picture : '#' is a border pixel, anything else is
+	 * a white pixel.
+	 */
+	static BufferedImage picture(String... rows) {
+		BufferedImage image = new BufferedImage(rows[0].length(), rows.length, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < rows.length; y++) {
+			for (int x = 0; x < rows[y].length(); x++) {
+				image.setRGB(x, y, rows[y].charAt(x) == '#' ? Color.BLACK.getRGB() : Color.WHITE.getRGB());
+			}
+		}
+		return image;
+	}
+
+	@Test
+	void nullImage() {
+		assertThrows(NullPointerException.class, () -> new ComponentLabeler(null, Color.BLACK));
+	}
+
+	@Test
+	void onlyBorder() {
+		ComponentLabeler labeler = new ComponentLabeler(picture("###", "###"), Color.BLACK);
+		assertEquals(0, labeler.getZoneCount());
+		for (int label : labeler.getLabels()) {
+			assertEquals(ComponentLabeler.BORDER, label);
+		}
+	}
+
+	@Test
+	void zonesNumberedInPixelOrder() {
+		ComponentLabeler labeler = new ComponentLabeler(picture(
+				"..#..",
+				"..#..",
+				"#####",
+				"..#.."), Color.BLACK);
+		assertEquals(4, labeler.getZoneCount());
+		int[] labels = labeler.getLabels();
+		assertEquals(0, labels[0]);
+		assertEquals(1, labels[3]);
+		assertEquals(2, labels[15]);
+		assertEquals(3, labels[19]);
+		assertEquals(ComponentLabeler.BORDER, labels[2]);
+	}
+
+	@Test
+	void diagonalPixelsAreNotConnected() {
+		ComponentLabeler labeler = new ComponentLabeler(picture(
+				".#",
+				"#."), Color.BLACK);
+		assertEquals(2, labeler.getZoneCount());
+	}
+
+	@Test
+	void mergedProvisionalLabels() {
+		// The two branches of the U get different provisional labels
+		ComponentLabeler labeler = new ComponentLabeler(picture(
+				".#.#.",
+				".###.",
+				"....."), Color.BLACK);
+		assertEquals(2, labeler.getZoneCount());
+		int[] labels = labeler.getLabels();
+		assertEquals(labels[0], labels[4]);
+		assertEquals(labels[0], labels[14]);
+		assertEquals(1, labels[2]);
+	}
+
+	@Test
+	void smallMap() {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		ComponentLabeler labeler = new ComponentLabeler(image, Color.BLACK);
+		assertEquals(11, labeler.getZoneCount());
+		assertEquals(image.getWidth() * image.getHeight(), labeler.getLabels().length);
+	}
+
+	@Test
+	void invalidParallelism() {
+		BorderMask mask = new BorderMask(picture("."), Color.BLACK);
+		assertThrows(IllegalArgumentException.class, () -> new ComponentLabeler(mask, 0));
+	}
+
+	@Test
+	void parallelLabelsMatchSequentialLabels() {
+		for (String filename : new String[] { "img/maps/USA_map.png", "img/maps/truchet_tiling.png",
+				"img/maps/conformally-regular-pentagonal-tiling.png" }) {
+			BorderMask mask = new BorderMask(Image.loadImage(filename), Color.BLACK);
+			ComponentLabeler sequential = new ComponentLabeler(mask);
+			for (int parallelism : new int[] { 2, 3, 8 }) {
+				ComponentLabeler parallel = new ComponentLabeler(mask, parallelism);
+				assertEquals(sequential.getZoneCount(), parallel.getZoneCount(), filename);
+				assertArrayEquals(sequential.getLabels(), parallel.getLabels(), filename);
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+public class DistanceTransformAdjacencyTest {
+
+	private static long[] edges(int borderWidth, String... rows) {
+		ComponentLabeler labeler = new ComponentLabeler(ComponentLabelerTest.picture(rows), Color.BLACK);
+		return new DistanceTransformAdjacency(labeler.getLabels(), rows[0].length(), borderWidth).getEdges();
+	}
+
+	/*
+	 * Four quadrants separated by a cross of the given thickness.
+	 */
+	private static BufferedImage cross(int size, int thickness) {
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, size, size);
+		g.setColor(Color.BLACK);
+		int start = (size - thickness) / 2;
+		g.fillRect(start, 0, thickness, size);
+		g.fillRect(0, start, size, thickness);
+		g.dispose();
+		return image;
+	}
+
+	@Test
+	void nullLabels() {
+		assertThrows(NullPointerException.class, () -> new DistanceTransformAdjacency(null, 1, 4));
+	}
+
+	@Test
+	void invalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new DistanceTransformAdjacency(new int[10], 3, 4));
+		assertThrows(IllegalArgumentException.class, () -> new DistanceTransformAdjacency(new int[10], 5, -1));
+	}
+
+	@Test
+	void acrossThinBorder() {
+		assertArrayEquals(new long[] { ZoneAdjacency.encode(0, 1) }, edges(1,
+				"..#..",
+				"..#.."));
+	}
+
+	@Test
+	void borderTooThick() {
+		String[] rows = { ".###.", ".###." };
+		assertEquals(0, edges(2, rows).length);
+		assertArrayEquals(new long[] { ZoneAdjacency.encode(0, 1) }, edges(3, rows));
+	}
+
+	@Test
+	void thickBordersOnlyTouchAcrossSides() {
+		for (int thickness = 2; thickness <= 12; thickness++) {
+			BufferedImage image = cross(64, thickness);
+			ComponentLabeler labeler = new ComponentLabeler(image, Color.BLACK);
+			assertEquals(4, labeler.getZoneCount());
+			long[] edges = new DistanceTransformAdjacency(labeler.getLabels(), 64, thickness).getEdges();
+			// Les quadrants opposés ne se rencontrent qu'au centre de la croix, trop loin
+			assertArrayEquals(new long[] { ZoneAdjacency.encode(0, 1), ZoneAdjacency.encode(0, 2),
+					ZoneAdjacency.encode(1, 3), ZoneAdjacency.encode(2, 3) }, edges, "thickness " + thickness);
+		}
+	}
+
+	@Test
+	void mapColoringWithBorderWidth() {
+		MapColoring mc = new MapColoring(cross(64, 10), Color.BLACK, 1, 10);
+		assertEquals(4, mc.adjacencyGraph().edgeCount());
+		assertEquals(2, mc.getColoring().getNumberColors());
+		assertEquals(0, new MapColoring(cross(64, 10), Color.BLACK).adjacencyGraph().edgeCount());
+	}
+}
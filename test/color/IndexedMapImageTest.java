@@ -0,0 +1,117 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import graphics.Image;
+
+public class IndexedMapImageTest {
+
+	@Test
+	void nullArguments() {
+		assertThrows(NullPointerException.class, () -> new IndexedMapImage(null, 1, new HashMap<>(), Color.BLACK, Color.RED));
+		assertThrows(NullPointerException.class, () -> new IndexedMapImage(new int[1], 1, new HashMap<>(), null, Color.RED));
+		assertThrows(IllegalArgumentException.class, () -> new IndexedMapImage(new int[1], 1, new HashMap<>(), Color.BLACK));
+	}
+
+	@Test
+	void paletteShorterThanClasses() {
+		Map<Integer, Integer> colors = Map.of(0, 1, 1, 0);
+		int[] labels = { 0, ComponentLabeler.BORDER, 1 };
+		assertThrows(IllegalArgumentException.class, () -> new IndexedMapImage(labels, 3, colors, Color.BLACK, Color.RED));
+		IndexedMapImage indexed = new IndexedMapImage(labels, 3, colors, Color.BLACK, Color.RED, Color.GREEN);
+		assertThrows(IllegalArgumentException.class, () -> indexed.setPalette(Color.BLUE));
+		assertEquals(Color.GREEN.getRGB(), indexed.getImage().getRGB(0, 0));
+
+		MapColoring mc = new MapColoring(Image.loadImage("img/maps/small_map.png"), Color.BLACK);
+		Color[] palette = new Color[mc.getColoring().getNumberColors() - 1];
+		Arrays.fill(palette, Color.RED);
+		assertThrows(IllegalArgumentException.class, () -> mc.toIndexedImage(palette));
+	}
+
+	@Test
+	void pixelsHoldColorIndices() {
+		Map<Integer, Integer> colors = Map.of(0, 1, 1, 0);
+		IndexedMapImage indexed = new IndexedMapImage(new int[] { 0, ComponentLabeler.BORDER, 1 }, 3, colors,
+				Color.BLACK, Color.RED, Color.GREEN);
+		BufferedImage image = indexed.getImage();
+		assertEquals(BufferedImage.TYPE_BYTE_INDEXED, image.getType());
+		byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		assertArrayEquals(new byte[] { 2, IndexedMapImage.BORDER_INDEX, 1 }, data);
+		assertEquals(2, indexed.getColorCount());
+		assertEquals(Color.GREEN.getRGB(), image.getRGB(0, 0));
+		assertEquals(Color.BLACK.getRGB(), image.getRGB(1, 0));
+		assertEquals(Color.RED.getRGB(), image.getRGB(2, 0));
+	}
+
+	@Test
+	void sameColorsAsPainting() {
+		BufferedImage image = Image.loadImage("img/maps/hat_monotile.png");
+		MapColoring mc = new MapColoring(image, Color.BLACK);
+		BufferedImage indexed = mc.toIndexedImage().getImage();
+		mc.colorMap();
+		for (int y = 0; y < image.getHeight(); y += 3) {
+			for (int x = 0; x < image.getWidth(); x += 3) {
+				if (mc.labels()[y * image.getWidth() + x] != ComponentLabeler.BORDER) {
+					assertEquals(image.getRGB(x, y), indexed.getRGB(x, y));
+				}
+			}
+		}
+	}
+
+	@Test
+	void paletteSwapKeepsPixels() {
+		MapColoring mc = new MapColoring(Image.loadImage("img/maps/small_map.png"), Color.BLACK);
+		IndexedMapImage indexed = mc.toIndexedImage();
+		BufferedImage before = indexed.getImage();
+		int rgb = before.getRGB(5, 5);
+		Color[] palette = { Color.WHITE, Color.LIGHT_GRAY, Color.GRAY, Color.DARK_GRAY };
+		indexed.setPalette(palette);
+		indexed.setBorderColor(Color.RED);
+		BufferedImage after = indexed.getImage();
+		assertSame(before.getRaster(), after.getRaster());
+		assertEquals(rgb, before.getRGB(5, 5));
+		int colorClass = mc.getColoring().getColors().get(mc.labels()[5 * 200 + 5]);
+		assertEquals(palette[colorClass].getRGB(), after.getRGB(5, 5));
+		int border = 0;
+		while (mc.labels()[border] != ComponentLabeler.BORDER) border++;
+		assertEquals(Color.RED.getRGB(), after.getRGB(border % 200, border / 200));
+
+		BufferedImage highlighted = indexed.highlight(colorClass, Color.BLACK);
+		assertEquals(palette[colorClass].getRGB(), highlighted.getRGB(5, 5));
+		assertThrows(IllegalArgumentException.class, () -> indexed.highlight(indexed.getColorCount(), Color.BLACK));
+	}
+
+	@Test
+	void tooManyColors() {
+		Map<Integer, Integer> colors = new HashMap<>();
+		colors.put(0, 255);
+		assertThrows(IllegalArgumentException.class,
+				() -> new IndexedMapImage(new int[1], 1, colors, Color.BLACK, Color.RED));
+	}
+
+	@Test
+	void smallerPng() throws IOException {
+		BufferedImage image = Image.loadImage("img/maps/conformally-regular-pentagonal-tiling.png");
+		MapColoring mc = new MapColoring(image, Color.BLACK);
+		BufferedImage indexed = mc.toIndexedImage().getImage();
+		mc.colorMap();
+		ByteArrayOutputStream rgb = new ByteArrayOutputStream();
+		ByteArrayOutputStream palette = new ByteArrayOutputStream();
+		ImageIO.write(mc.getImage(), "png", rgb);
+		ImageIO.write(indexed, "png", palette);
+		assertTrue(palette.size() < rgb.size());
+	}
+}
@@ -0,0 +1,56 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class IntColoringTest {
+
+	@Test
+	void invalidArguments() {
+		assertThrows(NullPointerException.class, () -> new IntColoring(null));
+		assertThrows(NullPointerException.class, () -> IntColoring.of(null));
+		assertThrows(IllegalArgumentException.class, () -> new IntColoring(new int[] { 0, -2 }));
+	}
+
+	@Test
+	void emptyColoring() {
+		IntColoring coloring = new IntColoring(new int[0]);
+		assertEquals(0, coloring.getNumberColors());
+		assertTrue(coloring.getColors().isEmpty());
+		assertTrue(coloring.getColorClasses().isEmpty());
+	}
+
+	@Test
+	void viewsOfTheArray() {
+		IntColoring coloring = new IntColoring(new int[] { 1, 0, IntColoring.UNCOLORED, 1, 2 });
+		assertEquals(3, coloring.getNumberColors());
+		assertEquals(5, coloring.getVertexCount());
+		assertEquals(IntColoring.UNCOLORED, coloring.getColor(2));
+
+		Map<Integer, Integer> expected = new HashMap<>(Map.of(0, 1, 1, 0, 3, 1, 4, 2));
+		assertEquals(expected, coloring.getColors());
+		assertEquals(coloring.getColors(), expected);
+		assertNull(coloring.getColors().get(2));
+		assertFalse(coloring.getColors().containsKey(7));
+		assertThrows(UnsupportedOperationException.class, () -> coloring.getColors().put(2, 0));
+
+		List<Set<Integer>> classes = coloring.getColorClasses();
+		assertEquals(List.of(Set.of(1), Set.of(0, 3), Set.of(4)), classes);
+		assertTrue(classes.get(1).contains(3));
+		assertFalse(classes.get(1).contains(2));
+		assertArrayEquals(new int[] { 0, 3 }, coloring.getColorClass(1));
+	}
+
+	@Test
+	void fromMap() {
+		IntColoring coloring = IntColoring.of(Map.of(3, 0, 1, 1));
+		assertArrayEquals(new int[] { IntColoring.UNCOLORED, 1, IntColoring.UNCOLORED, 0 }, coloring.toArray());
+		assertSame(coloring, IntColoring.of(coloring.getColors()));
+	}
+}
@@ -0,0 +1,99 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import graph_samples.SyntheticMap;
+import graphics.Image;
+
+public class KempeColoringTest {
+
+	private static ZoneGraph complete(int n) {
+		List<Long> edges = new ArrayList<>();
+		for (int u = 0; u < n; u++) {
+			for (int v = u + 1; v < n; v++) {
+				edges.add(ZoneAdjacency.encode(u, v));
+			}
+		}
+		return new ZoneGraph(n, edges.stream().mapToLong(Long::longValue).toArray());
+	}
+
+	private static void assertProper(ZoneGraph graph, Map<Integer, Integer> colors, int maxColors) {
+		assertEquals(graph.vertexCount(), colors.size());
+		for (int e = 0; e < graph.edgeCount(); e++) {
+			assertNotEquals(colors.get(graph.source(e)), colors.get(graph.target(e)));
+		}
+		for (int color : colors.values()) {
+			assertTrue(color >= 0 && color < maxColors);
+		}
+	}
+
+	@Test
+	void invalidArguments() {
+		assertThrows(NullPointerException.class, () -> new KempeColoring(null, 4));
+		assertThrows(IllegalArgumentException.class, () -> new KempeColoring(complete(1), 0));
+	}
+
+	@Test
+	void emptyGraph() {
+		assertEquals(0, new KempeColoring(complete(0), 4).getColoring().getNumberColors());
+	}
+
+	@Test
+	void completeGraphs() {
+		assertEquals(4, new KempeColoring(complete(4), 8).getColoring().getNumberColors());
+		assertEquals(6, new KempeColoring(complete(6), 8).getColoring().getNumberColors());
+		assertThrows(IllegalStateException.class, () -> new KempeColoring(complete(5), 4).getColoring());
+	}
+
+	@Test
+	void planarMapsWithFourColors() {
+		for (SyntheticMap map : new SyntheticMap[] { SyntheticMap.voronoi(800, 600, 2000, 1, Color.BLACK, 3),
+				SyntheticMap.rectangles(800, 600, 1500, 1, Color.BLACK, 4),
+				SyntheticMap.hexagons(600, 400, 8, 1, Color.BLACK) }) {
+			ZoneGraph graph = new ZoneGraph(map.getZoneCount(), map.getEdges());
+			Map<Integer, Integer> colors = new KempeColoring(graph, 4).getColoring().getColors();
+			assertProper(graph, colors, 4);
+		}
+	}
+
+	@Test
+	void fixturesWithinPalette() {
+		for (String name : new String[] { "USA_map", "hat_monotile", "conformally-regular-pentagonal-tiling" }) {
+			ZoneGraph graph = MapColoringPipeline.builder(Image.loadImage("img/maps/" + name + ".png")).build()
+					.adjacency().getValue();
+			assertProper(graph, new KempeColoring(graph, 5).getColoring().getColors(), 5);
+		}
+	}
+
+	@Test
+	void seededColoring() {
+		SyntheticMap map = SyntheticMap.voronoi(800, 600, 2000, 1, Color.BLACK, 5);
+		ZoneGraph graph = new ZoneGraph(map.getZoneCount(), map.getEdges());
+		KempeColoring kempe = new KempeColoring(graph, 8);
+		assertThrows(NullPointerException.class, () -> kempe.getColoring(null));
+
+		// Une coloration valide est gardée telle quelle
+		IntColoring valid = new KempeColoring(graph, 4).getColoring();
+		assertArrayEquals(valid.toArray(), kempe.getColoring(valid).toArray());
+
+		// Une graine partielle et en conflit est complétée et réparée
+		int[] seed = new int[graph.vertexCount() / 2];
+		for (int v = 0; v < seed.length; v++) {
+			seed[v] = v % 3 == 0 ? IntColoring.UNCOLORED : v % 4;
+		}
+		IntColoring colors = kempe.getColoring(new IntColoring(seed));
+		assertProper(graph, colors.getColors(), 8);
+		int kept = 0;
+		for (int v = 0; v < seed.length; v++) {
+			if (seed[v] != IntColoring.UNCOLORED && colors.getColor(v) == seed[v]) kept++;
+		}
+		assertTrue(kept > seed.length / 3, kept + " colors kept");
+	}
+}
@@ -0,0 +1,101 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MapColoringBatchTest {
+
+	@TempDir
+	Path directory;
+
+	private static byte[] png(String... rows) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(ComponentLabelerTest.picture(rows), "png", out);
+		return out.toByteArray();
+	}
+
+	private static final String[] FOUR_ZONES = { "..#..", "..#..", "#####", "..#..", "..#.." };
+
+	@Test
+	void invalidArguments() {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			assertThrows(NullPointerException.class, () -> new MapColoringBatch(null, executor, executor, 1));
+			assertThrows(IllegalArgumentException.class, () -> new MapColoringBatch(Color.BLACK, executor, executor, 0));
+			assertThrows(IllegalArgumentException.class, () -> new MapColoringBatch(Color.BLACK, 0, false, 1 << 20));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void colorStreams() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (MapColoringBatch batch = new MapColoringBatch(Color.BLACK, 2, false, 1 << 20)) {
+			MapColoringBatch.Result result = batch
+					.submit("cross", new ByteArrayInputStream(png(FOUR_ZONES)), output).join();
+			assertEquals("cross", result.getName());
+			assertEquals(5, result.getWidth());
+			assertEquals(5, result.getHeight());
+			assertEquals(4, result.getZoneCount());
+			assertEquals(2, result.getColorCount());
+			assertEquals(1, batch.getCompletedImages());
+			assertTrue(batch.getImagesPerSecond() > 0);
+			assertTrue(batch.getMegapixelsPerSecond() > 0);
+		}
+		BufferedImage colored = ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+		assertEquals(Color.BLACK.getRGB(), colored.getRGB(2, 2));
+		assertNotEquals(colored.getRGB(0, 0), colored.getRGB(4, 0));
+		assertEquals(colored.getRGB(0, 0), colored.getRGB(4, 4));
+	}
+
+	@Test
+	void budgetSmallerThanAnImage() throws IOException {
+		List<Path> inputs = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			inputs.add(Files.write(directory.resolve("map" + i + ".png"), png(FOUR_ZONES)));
+		}
+		Path outputs = Files.createDirectory(directory.resolve("colored"));
+		// Une seule image à la fois : le budget est inférieur à la taille d'une image
+		try (MapColoringBatch batch = new MapColoringBatch(Color.BLACK, 3, true, 1)) {
+			for (CompletableFuture<MapColoringBatch.Result> result : batch.submitAll(inputs, outputs)) {
+				assertEquals(4, result.join().getZoneCount());
+			}
+			assertEquals(6, batch.getCompletedImages());
+		}
+		for (Path input : inputs) {
+			assertNotNull(ImageIO.read(outputs.resolve(input.getFileName()).toFile()));
+		}
+	}
+
+	@Test
+	void unreadableImage() throws IOException {
+		Path garbage = Files.write(directory.resolve("garbage.png"), new byte[] { 1, 2, 3 });
+		try (MapColoringBatch batch = new MapColoringBatch(Color.BLACK, 1, false, 1 << 20)) {
+			CompletableFuture<MapColoringBatch.Result> failed = batch.submit(garbage, null);
+			CompletableFuture<MapColoringBatch.Result> colored = batch
+					.submit("cross", new ByteArrayInputStream(png(FOUR_ZONES)), null);
+			CompletionException e = assertThrows(CompletionException.class, failed::join);
+			assertTrue(e.getCause() instanceof IOException);
+			assertEquals(4, colored.join().getZoneCount());
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import graph_samples.SyntheticMap;
+import graphics.Image;
+
+public class MapColoringCacheTest {
+
+	@TempDir
+	Path directory;
+
+	private static BufferedImage copy(BufferedImage image) {
+		BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+		copy.setData(image.getData());
+		return copy;
+	}
+
+	private List<Path> entries() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	void invalidArguments() throws IOException {
+		assertThrows(NullPointerException.class, () -> new MapColoringCache(null, 1));
+		assertThrows(IllegalArgumentException.class, () -> new MapColoringCache(directory, 0));
+		MapColoringCache cache = new MapColoringCache(directory, 1 << 20);
+		assertThrows(NullPointerException.class, () -> cache.color(null, Color.BLACK));
+		assertThrows(NullPointerException.class, () -> cache.color(new BufferedImage(1, 1, 1), null));
+		assertThrows(IllegalArgumentException.class, () -> cache.color(new BufferedImage(1, 1, 1), Color.BLACK, -1));
+	}
+
+	@Test
+	void hitGivesTheSameColoring() throws IOException {
+		BufferedImage image = Image.loadImage("img/maps/USA_map.png");
+		MapColoringCache cache = new MapColoringCache(directory, 1 << 30);
+		MapColoring computed = cache.color(copy(image), Color.BLACK);
+		MapColoring cached = cache.color(copy(image), Color.BLACK);
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, entries().size());
+
+		assertArrayEquals(computed.labels(), cached.labels());
+		assertEquals(computed.adjacencyGraph().vertexCount(), cached.adjacencyGraph().vertexCount());
+		assertEquals(computed.adjacencyGraph().edgeSet().size(), cached.adjacencyGraph().edgeSet().size());
+		for (int e = 0; e < computed.adjacencyGraph().edgeCount(); e++) {
+			assertEquals(computed.adjacencyGraph().source(e), cached.adjacencyGraph().source(e));
+			assertEquals(computed.adjacencyGraph().target(e), cached.adjacencyGraph().target(e));
+		}
+		assertEquals(computed.getColoring().getColors(), cached.getColoring().getColors());
+
+		computed.colorMap();
+		cached.colorMap();
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				assertEquals(computed.getImage().getRGB(x, y), cached.getImage().getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	void keyDependsOnPixelsAndParameters() {
+		BufferedImage image = SyntheticMap.voronoi(200, 150, 40, 1, Color.BLACK, 1).getImage();
+		String key = MapColoringCache.key(image, Color.BLACK, 0);
+		assertEquals(key, MapColoringCache.key(copy(image), Color.BLACK, 0));
+		assertNotEquals(key, MapColoringCache.key(image, Color.BLUE, 0));
+		assertNotEquals(key, MapColoringCache.key(image, Color.BLACK, 2));
+		BufferedImage edited = copy(image);
+		edited.setRGB(199, 149, edited.getRGB(199, 149) ^ 1);
+		assertNotEquals(key, MapColoringCache.key(edited, Color.BLACK, 0));
+
+		BufferedImage other = new BufferedImage(200, 150, BufferedImage.TYPE_3BYTE_BGR);
+		other.getGraphics().drawImage(image, 0, 0, null);
+		assertEquals(key, MapColoringCache.key(other, Color.BLACK, 0));
+	}
+
+	@Test
+	void leastRecentlyUsedEntriesAreEvicted() throws IOException {
+		MapColoringCache cache = new MapColoringCache(directory, 1 << 30);
+		BufferedImage first = SyntheticMap.voronoi(300, 200, 60, 1, Color.BLACK, 1).getImage();
+		cache.color(copy(first), Color.BLACK);
+		long entrySize = cache.size();
+		assertTrue(entrySize > 0);
+
+		MapColoringCache small = new MapColoringCache(directory, 2 * entrySize + entrySize / 2);
+		BufferedImage second = SyntheticMap.voronoi(300, 200, 60, 1, Color.BLACK, 2).getImage();
+		BufferedImage third = SyntheticMap.voronoi(300, 200, 60, 1, Color.BLACK, 3).getImage();
+		small.color(copy(second), Color.BLACK);
+		Files.setLastModifiedTime(directory.resolve(MapColoringCache.key(first, Color.BLACK, 0)),
+				FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+		small.color(copy(third), Color.BLACK);
+		assertEquals(2, entries().size());
+		assertTrue(Files.exists(directory.resolve(MapColoringCache.key(first, Color.BLACK, 0))));
+		assertFalse(Files.exists(directory.resolve(MapColoringCache.key(second, Color.BLACK, 0))));
+		assertTrue(small.size() <= 2 * entrySize + entrySize / 2);
+	}
+
+	@Test
+	void corruptedEntryIsComputedAgain() throws IOException {
+		BufferedImage image = SyntheticMap.rectangles(240, 160, 30, 1, Color.BLACK, 5).getImage();
+		MapColoringCache cache = new MapColoringCache(directory, 1 << 30);
+		MapColoring computed = cache.color(copy(image), Color.BLACK);
+		Path entry = directory.resolve(MapColoringCache.key(image, Color.BLACK, 0));
+		byte[] bytes = Files.readAllBytes(entry);
+		Files.write(entry, Arrays.copyOf(bytes, bytes.length - 10));
+
+		MapColoring again = cache.color(copy(image), Color.BLACK);
+		assertEquals(2, cache.getMisses());
+		assertArrayEquals(computed.labels(), again.labels());
+		assertEquals(computed.getColoring().getColors(), cache.color(copy(image), Color.BLACK).getColoring().getColors());
+		assertEquals(1, cache.getHits());
+	}
+}
@@ -0,0 +1,122 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import graphics.Image;
+import graphics.PixelSource;
+
+public class MapColoringPipelineTest {
+
+	@Test
+	void invalidSettings() {
+		BufferedImage image = ComponentLabelerTest.picture("..");
+		assertThrows(NullPointerException.class, () -> MapColoringPipeline.builder((BufferedImage) null));
+		assertThrows(NullPointerException.class, () -> MapColoringPipeline.builder(image).borderColor(null));
+		assertThrows(IllegalArgumentException.class, () -> MapColoringPipeline.builder(image).parallelism(0));
+		assertThrows(IllegalArgumentException.class, () -> MapColoringPipeline.builder(image).borderWidth(-1));
+		assertThrows(NullPointerException.class, () -> MapColoringPipeline.builder(image).palette((Color[]) null));
+		assertThrows(IllegalArgumentException.class, () -> MapColoringPipeline.builder(image).palette());
+	}
+
+	@Test
+	void chosenPalette() {
+		BufferedImage image = ComponentLabelerTest.picture("..#..", "..#..");
+		Color[] palette = { Color.GRAY, Color.ORANGE };
+		MapColoringPipeline.builder(image).palette(palette).build().painted();
+		assertEquals(Color.GRAY.getRGB(), image.getRGB(0, 0));
+		assertEquals(Color.ORANGE.getRGB(), image.getRGB(4, 1));
+	}
+
+	@Test
+	void stopAfterAdjacency() {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		int rgb = image.getRGB(5, 5);
+		MapColoringPipeline pipeline = MapColoringPipeline.builder(image).borderColor(Color.BLACK).build();
+		StageResult<ZoneGraph> adjacency = pipeline.adjacency();
+		assertEquals(MapColoringPipeline.Stage.ADJACENCY, adjacency.getStage());
+		assertEquals(21, adjacency.getOutputSize());
+		assertEquals(11, adjacency.getValue().vertexCount());
+		assertSame(adjacency, pipeline.adjacency());
+
+		List<StageResult<?>> stages = pipeline.getStageResults();
+		assertEquals(3, stages.size());
+		assertEquals(MapColoringPipeline.Stage.MASK, stages.get(0).getStage());
+		assertEquals(11, stages.get(1).getOutputSize());
+		for (StageResult<?> stage : stages) {
+			assertTrue(stage.getWallNanos() >= 0);
+		}
+		assertEquals(rgb, image.getRGB(5, 5));
+	}
+
+	@Test
+	void paintedStage() {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		MapColoringPipeline pipeline = MapColoringPipeline.builder(image).build();
+		StageResult<BufferedImage> painted = pipeline.painted();
+		assertSame(image, painted.getValue());
+		assertEquals(4, pipeline.coloring().getOutputSize());
+		assertEquals(image.getWidth() * image.getHeight() - pipeline.mask().getOutputSize(), painted.getOutputSize());
+		assertEquals(5, pipeline.getStageResults().size());
+		assertNotEquals(Color.WHITE.getRGB(), image.getRGB(5, 5));
+	}
+
+	@Test
+	void pixelSourceCopied() {
+		BufferedImage image = ComponentLabelerTest.picture("..#..", "..#..");
+		MapColoringPipeline pipeline = MapColoringPipeline.builder(PixelSource.of(image)).build();
+		BufferedImage painted = pipeline.painted().getValue();
+		assertNotSame(image, painted);
+		assertEquals(Color.WHITE.getRGB(), image.getRGB(0, 0));
+		assertNotEquals(painted.getRGB(0, 0), painted.getRGB(4, 0));
+	}
+
+	@Test
+	void mapColoringStages() {
+		MapColoring mc = new MapColoring(Image.loadImage("img/maps/small_map.png"), Color.BLACK);
+		assertEquals(5, mc.getPipeline().getStageResults().size());
+		assertEquals(0, mc.getPipeline().validation().getValue());
+		assertSame(mc.adjacencyGraph(), mc.getPipeline().adjacency().getValue());
+		mc.colorMap();
+		assertSame(mc.getImage(), mc.getPipeline().painted().getValue());
+	}
+
+	@Test
+	void listenerNotified() {
+		List<StageResult<?>> completed = new ArrayList<>();
+		MapColoringPipeline pipeline = MapColoringPipeline.builder(Image.loadImage("img/maps/small_map.png"))
+				.listener(completed::add).listener(result -> {
+					throw new IllegalStateException("ignored");
+				}).build();
+		pipeline.validation();
+		assertEquals(pipeline.getStageResults(), completed);
+		assertEquals(MapColoringPipeline.Stage.VALIDATION, completed.get(4).getStage());
+		assertEquals(200 * 100, completed.get(0).getPixels());
+		assertEquals(0, completed.get(3).getPixels());
+		assertTrue(completed.get(1).getHeapGrowthBytes() >= 0);
+	}
+
+	@Test
+	void heapPeaksNotReset() {
+		// Les pics d'utilisation des pools, lus par la supervision, ne sont jamais remis à zéro
+		List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+		long[] peaks = new long[pools.size()];
+		for (int p = 0; p < peaks.length; p++) {
+			peaks[p] = pools.get(p).isValid() ? pools.get(p).getPeakUsage().getUsed() : 0;
+		}
+		MapColoringPipeline.builder(Image.loadImage("img/maps/USA_map.png")).build().painted();
+		for (int p = 0; p < peaks.length; p++) {
+			if (pools.get(p).isValid()) {
+				assertTrue(pools.get(p).getPeakUsage().getUsed() >= peaks[p], pools.get(p).getName());
+			}
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import graphics.Image;
+
+public class MapColoringStageEventTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void stagesRecorded() throws IOException {
+		Path file = directory.resolve("stages.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("color.MapColoringStage");
+			recording.start();
+			MapColoringPipeline.builder(Image.loadImage("img/maps/small_map.png")).build().painted();
+			recording.stop();
+			recording.dump(file);
+		}
+		List<String> stages = new ArrayList<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+			stages.add(event.getString("stage"));
+			if (event.getString("stage").equals("ADJACENCY")) {
+				assertEquals(11, event.getLong("zones"));
+				assertEquals(21, event.getLong("edges"));
+				assertEquals(-1, event.getLong("colors"));
+			}
+		}
+		assertEquals(List.of("MASK", "LABELS", "ADJACENCY", "COLORING", "PAINTING"), stages);
+	}
+}
@@ -3,6 +3,8 @@ package color;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.List;
@@ -55,7 +57,7 @@ public class MapColoringTest {
 		assertNotNull(mc);
 		mc.colorMap();
 		
-		SimpleGraph<Integer, DefaultEdge> graph = mc.adjacencyGraph();
+		Graph<Integer, Integer> graph = mc.adjacencyGraph();
 		assertNotNull(graph);
 		assertEquals(11, graph.vertexSet().size());
 		assertEquals(21, graph.edgeSet().size());
@@ -65,5 +67,113 @@ public class MapColoringTest {
 		assertEquals(4, coloring.getNumberColors());
 	}
 
+	/*
+	 * Checks that an updated map has the zones and the adjacencies of a map
+	 * colored from scratch, up to the zone ids, and a proper coloring.
+	 */
+	private static void assertSameMap(MapColoring expected, MapColoring actual) {
+		int[] expectedLabels = expected.labels();
+		int[] actualLabels = actual.labels();
+		Map<Integer, Integer> zoneOf = new HashMap<>();
+		for (int i = 0; i < expectedLabels.length; i++) {
+			assertEquals(expectedLabels[i] == ComponentLabeler.BORDER, actualLabels[i] == ComponentLabeler.BORDER);
+			if (expectedLabels[i] != ComponentLabeler.BORDER) {
+				zoneOf.putIfAbsent(expectedLabels[i], actualLabels[i]);
+				assertEquals(zoneOf.get(expectedLabels[i]), actualLabels[i]);
+			}
+		}
+		assertEquals(expected.adjacencyGraph().vertexCount(), Set.copyOf(zoneOf.values()).size());
+		ZoneGraph graph = actual.adjacencyGraph();
+		assertEquals(expected.adjacencyGraph().edgeCount(), graph.edgeCount());
+		for (int edge = 0; edge < expected.adjacencyGraph().edgeCount(); edge++) {
+			assertTrue(graph.edge(zoneOf.get(expected.adjacencyGraph().source(edge)),
+					zoneOf.get(expected.adjacencyGraph().target(edge))) >= 0);
+		}
+		Map<Integer, Integer> colors = actual.getColoring().getColors();
+		for (int edge = 0; edge < graph.edgeCount(); edge++) {
+			assertNotEquals(colors.get(graph.source(edge)), colors.get(graph.target(edge)));
+		}
+	}
+
+	@Test
+	void updateEditedRegions() {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		MapColoring mc = new MapColoring(image, Color.BLACK);
+		mc.colorMap();
+		Map<Integer, Integer> before = new HashMap<>(mc.getColoring().getColors());
+
+		// Nouvelle frontière coupant une zone en deux
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(20, 0, 2, 100);
+		Set<Integer> changed = mc.update(new Rectangle(20, 0, 2, 100));
+		assertFalse(changed.isEmpty());
+		assertSameMap(new MapColoring(image, Color.BLACK), mc);
+		for (Map.Entry<Integer, Integer> entry : before.entrySet()) {
+			if (!changed.contains(entry.getKey())) {
+				assertEquals(entry.getValue(), mc.getColoring().getColors().get(entry.getKey()));
+			}
+		}
+		for (int y = 0; y < 100; y++) {
+			assertNotEquals(Color.WHITE.getRGB(), image.getRGB(10, y) | 0xFF000000);
+		}
+
+		// Frontière effacée : les zones de part et d'autre fusionnent
+		g.setColor(Color.WHITE);
+		g.fillRect(20, 40, 2, 10);
+		g.dispose();
+		mc.update(new Rectangle(20, 40, 2, 10));
+		assertSameMap(new MapColoring(image, Color.BLACK), mc);
+		assertEquals(Color.BLACK.getRGB(), image.getRGB(20, 0));
+		assertNotEquals(Color.WHITE.getRGB(), image.getRGB(20, 45));
+	}
+
+	@Test
+	void zoneInfoFollowsUpdates() {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		MapColoring mc = new MapColoring(image, Color.BLACK);
+		assertEquals(11, mc.getZoneInfo().getZoneCount());
+		long before = mc.getZoneInfo().getArea(0);
+
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, 3, 3);
+		g.dispose();
+		mc.update(new Rectangle(0, 0, 3, 3));
+		ZoneInfo info = mc.getZoneInfo();
+		long area = 0;
+		for (int zone = 0; zone < info.getZoneCount(); zone++) {
+			area += info.getArea(zone);
+		}
+		long border = new BorderMask(image, Color.BLACK).countBorderPixels();
+		assertEquals((long) image.getWidth() * image.getHeight() - border, area);
+		assertTrue(info.getArea(0) < before);
+	}
+
+	@Test
+	void pipelineUnchangedByUpdate() {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		MapColoring mc = new MapColoring(image, Color.BLACK);
+		mc.colorMap();
+		int[] pipelineLabels = mc.getPipeline().labels().getValue().getLabels().clone();
+		int zones = mc.getPipeline().labels().getValue().getZoneCount();
+
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(20, 0, 2, 100);
+		g.dispose();
+		mc.update(new Rectangle(20, 0, 2, 100));
+		assertNotEquals(zones, mc.getZoneInfo().getZoneCount());
+		assertArrayEquals(pipelineLabels, mc.getPipeline().labels().getValue().getLabels());
+		assertEquals(zones, mc.getPipeline().labels().getValue().getZoneCount());
+		assertNotNull(mc.getPipeline().painted().getValue());
+	}
 
+	@Test
+	void updateOutsideImage() {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		MapColoring mc = new MapColoring(image, Color.BLACK);
+		assertTrue(mc.update(new Rectangle(-10, -10, 5, 5)).isEmpty());
+		assertThrows(NullPointerException.class, () -> mc.update(null));
+	}
 }
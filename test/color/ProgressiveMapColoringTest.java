@@ -0,0 +1,100 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import graph_samples.SyntheticMap;
+import graphics.Image;
+
+public class ProgressiveMapColoringTest {
+
+	@Test
+	void invalidArguments() {
+		BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+		assertThrows(NullPointerException.class, () -> new ProgressiveMapColoring(null, Color.BLACK));
+		assertThrows(NullPointerException.class, () -> new ProgressiveMapColoring(image, null));
+		assertThrows(IllegalArgumentException.class, () -> new ProgressiveMapColoring(image, Color.BLACK, 0));
+		assertThrows(NullPointerException.class,
+				() -> new ProgressiveMapColoring(image, Color.BLACK).display(null, null, Runnable::run));
+	}
+
+	@Test
+	void previewFactor() {
+		assertEquals(1, ProgressiveMapColoring.previewFactor(new BufferedImage(1024, 1024, BufferedImage.TYPE_INT_RGB)));
+		assertEquals(2, ProgressiveMapColoring.previewFactor(new BufferedImage(1025, 1024, BufferedImage.TYPE_INT_RGB)));
+		assertEquals(6, ProgressiveMapColoring.previewFactor(new BufferedImage(6000, 6000, BufferedImage.TYPE_INT_RGB)));
+	}
+
+	@Test
+	void previewZonesLieInsideMapZones() {
+		SyntheticMap map = SyntheticMap.voronoi(600, 450, 300, 1, Color.BLACK, 7);
+		BufferedImage image = map.getImage();
+		int factor = 4;
+		int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+		ProgressiveMapColoring progressive = new ProgressiveMapColoring(image, Color.BLACK, factor);
+		BufferedImage preview = progressive.preview();
+		assertEquals(150, preview.getWidth());
+		assertEquals(113, preview.getHeight());
+		int[] previewLabels = progressive.previewLabels();
+		int[] mapZoneOf = new int[progressive.getPreviewColoring().getVertexCount()];
+		Arrays.fill(mapZoneOf, -1);
+		int[] labels = map.getLabels();
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				int zone = previewLabels[y / factor * preview.getWidth() + x / factor];
+				if (zone == ComponentLabeler.BORDER) continue;
+				int mapZone = labels[y * image.getWidth() + x];
+				assertNotEquals(SyntheticMap.BORDER, mapZone);
+				if (mapZoneOf[zone] < 0) mapZoneOf[zone] = mapZone;
+				assertEquals(mapZoneOf[zone], mapZone);
+			}
+		}
+		// L'image n'est coloriée qu'au raffinement
+		assertArrayEquals(pixels, image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+	}
+
+	@Test
+	void refinementKeepsPreviewColors() {
+		SyntheticMap map = SyntheticMap.voronoi(800, 600, 200, 1, Color.BLACK, 11);
+		BufferedImage image = map.getImage();
+		ProgressiveMapColoring progressive = new ProgressiveMapColoring(image, Color.BLACK, 4);
+		int[] previewLabels = progressive.previewLabels();
+		IntColoring previewColors = progressive.getPreviewColoring();
+		MapColoring refined = progressive.refine();
+		assertSame(refined, progressive.refine());
+		assertSame(image, refined.getImage());
+		assertEquals(map.getZoneCount(), refined.getColoring().getVertexCount());
+		assertEquals(0, refined.getPipeline().validation().getValue());
+		assertTrue(refined.getColoring().getNumberColors() <= MapColoring.rgbColors.length);
+		// Chaque zone assez grande garde la couleur de son aperçu
+		assertTrue(progressive.getKeptColors() >= map.getZoneCount() * 9 / 10,
+				progressive.getKeptColors() + " of " + map.getZoneCount());
+
+		// Même coloration que les zones de l'aperçu, là où elles correspondent
+		int previewWidth = progressive.preview().getWidth();
+		int[] labels = refined.labels();
+		int same = 0;
+		int blocks = 0;
+		for (int block = 0; block < previewLabels.length; block++) {
+			if (previewLabels[block] == ComponentLabeler.BORDER) continue;
+			int zone = labels[block / previewWidth * 4 * image.getWidth() + block % previewWidth * 4];
+			blocks++;
+			if (refined.getColoring().getColor(zone) == previewColors.getColor(previewLabels[block])) same++;
+		}
+		assertTrue(same >= blocks * 9 / 10, same + " of " + blocks);
+	}
+
+	@Test
+	void fixtureWithFactorOne() {
+		BufferedImage image = Image.loadImage("img/maps/USA_map.png");
+		ProgressiveMapColoring progressive = new ProgressiveMapColoring(image, Color.BLACK, 1);
+		MapColoring refined = progressive.refine();
+		assertEquals(refined.getColoring().getVertexCount(), progressive.getKeptColors());
+		assertArrayEquals(progressive.getPreviewColoring().toArray(), refined.getColoring().toArray());
+	}
+}
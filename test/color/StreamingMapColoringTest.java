@@ -0,0 +1,61 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import graphics.Image;
+import graphics.ImageReaderPixelSource;
+import graphics.PixelSource;
+
+public class StreamingMapColoringTest {
+
+	@Test
+	void nullSource() {
+		assertThrows(NullPointerException.class, () -> new StreamingMapColoring(null, Color.BLACK));
+	}
+
+	@Test
+	void smallMapFromFile() throws Exception {
+		try (ImageReaderPixelSource source = new ImageReaderPixelSource(new File("img/maps/small_map.png"));
+				StreamingMapColoring smc = new StreamingMapColoring(source, Color.BLACK, 16)) {
+			assertEquals(11, smc.getZoneCount());
+			assertEquals(21, smc.getAdjacencyGraph().edgeSet().size());
+			assertEquals(4, smc.getColoring().getNumberColors());
+		}
+	}
+
+	@Test
+	void sameResultAsMapColoring() throws Exception {
+		for (String filename : new String[] { "img/maps/small_map.png", "img/maps/hat_monotile.png",
+				"img/maps/USA_map.png" }) {
+			BufferedImage image = Image.loadImage(filename);
+			try (StreamingMapColoring smc = new StreamingMapColoring(PixelSource.of(image), Color.BLACK, 7)) {
+				MapColoring mc = new MapColoring(image, Color.BLACK);
+				assertEquals(mc.getAdjacencyGraph().vertexSet(), smc.getAdjacencyGraph().vertexSet(), filename);
+				assertEquals(mc.getAdjacencyGraph().edgeSet().size(), smc.getAdjacencyGraph().edgeSet().size(), filename);
+				assertEquals(mc.getColoring().getColors(), smc.getColoring().getColors(), filename);
+
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				smc.writeColoredImage(out);
+				mc.colorMap();
+				byte[] ppm = out.toByteArray();
+				String header = "P6\n" + image.getWidth() + " " + image.getHeight() + "\n255\n";
+				assertEquals(header, new String(ppm, 0, header.length(), StandardCharsets.US_ASCII));
+				assertEquals(header.length() + 3 * image.getWidth() * image.getHeight(), ppm.length);
+				for (int y = 0, p = header.length(); y < image.getHeight(); y++) {
+					for (int x = 0; x < image.getWidth(); x++, p += 3) {
+						int rgb = (ppm[p] & 0xFF) << 16 | (ppm[p + 1] & 0xFF) << 8 | (ppm[p + 2] & 0xFF);
+						assertEquals(image.getRGB(x, y) & 0xFFFFFF, rgb, filename + " " + x + "," + y);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import graph_samples.SyntheticMap;
+
+/**
+ * Labeling and adjacency checked against the ground truth of generated maps.
+ */
+public class SyntheticMapTest {
+
+	private static void assertMatches(SyntheticMap map, int borderWidth) {
+		int width = map.getImage().getWidth();
+		ComponentLabeler labeler = new ComponentLabeler(map.getImage(), Color.BLACK);
+		assertEquals(map.getZoneCount(), labeler.getZoneCount());
+		assertArrayEquals(map.getLabels(), labeler.getLabels());
+
+		long[] edges = borderWidth < MapColoring.ADJACENCY_DISTANCE
+				? new ZoneAdjacency(labeler.getLabels(), width, MapColoring.ADJACENCY_DISTANCE).getEdges()
+				// Les frontières diagonales sont plus épaisses en distance de chanfrein
+				: new DistanceTransformAdjacency(labeler.getLabels(), width, borderWidth * 4 / 3 + 1).getEdges();
+		for (long edge : map.getEdges()) {
+			assertTrue(Arrays.binarySearch(edges, edge) >= 0, "Missing edge " + Long.toHexString(edge));
+		}
+		for (long edge : edges) {
+			assertTrue(Arrays.binarySearch(map.getEdges(), edge) >= 0
+					|| Arrays.binarySearch(map.getOptionalEdges(), edge) >= 0, "Extra edge " + Long.toHexString(edge));
+		}
+	}
+
+	@Test
+	void voronoi() {
+		SyntheticMap map = SyntheticMap.voronoi(600, 400, 300, 2, Color.BLACK, 1);
+		assertTrue(map.getZoneCount() >= 250);
+		assertMatches(map, 2);
+	}
+
+	@Test
+	void rectangles() {
+		SyntheticMap map = SyntheticMap.rectangles(640, 480, 200, 1, Color.BLACK, 2);
+		assertEquals(200, map.getZoneCount());
+		assertMatches(map, 1);
+	}
+
+	@Test
+	void hexagons() {
+		assertMatches(SyntheticMap.hexagons(500, 300, 12, 2, Color.BLACK), 2);
+	}
+
+	@Test
+	void truchet() {
+		assertMatches(SyntheticMap.truchet(480, 320, 32, 3, Color.BLACK, 3), 3);
+	}
+
+	@Test
+	void thickBorders() {
+		assertMatches(SyntheticMap.voronoi(500, 500, 100, 6, Color.BLACK, 4), 6);
+	}
+
+	@Test
+	void sameMapForSameSeed() {
+		SyntheticMap map1 = SyntheticMap.rectangles(200, 100, 30, 2, Color.BLACK, 7);
+		SyntheticMap map2 = SyntheticMap.rectangles(200, 100, 30, 2, Color.BLACK, 7);
+		assertArrayEquals(map1.getLabels(), map2.getLabels());
+		assertArrayEquals(map1.getEdges(), map2.getEdges());
+	}
+
+	@Test
+	void invalidArguments() {
+		assertThrows(NullPointerException.class, () -> SyntheticMap.voronoi(10, 10, 2, 1, null, 0));
+		assertThrows(IllegalArgumentException.class, () -> SyntheticMap.rectangles(10, 10, 2, 0, Color.BLACK, 0));
+		assertThrows(IllegalArgumentException.class, () -> SyntheticMap.truchet(100, 100, 30, 1, Color.BLACK, 0));
+	}
+}
@@ -0,0 +1,55 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+
+import org.junit.jupiter.api.Test;
+
+public class ZoneAdjacencyTest {
+
+	private static long[] edges(int maxDistance, String... rows) {
+		ComponentLabeler labeler = new ComponentLabeler(ComponentLabelerTest.picture(rows), Color.BLACK);
+		return new ZoneAdjacency(labeler.getLabels(), rows[0].length(), maxDistance).getEdges();
+	}
+
+	@Test
+	void nullLabels() {
+		assertThrows(NullPointerException.class, () -> new ZoneAdjacency(null, 1, 4));
+	}
+
+	@Test
+	void invalidWidth() {
+		assertThrows(IllegalArgumentException.class, () -> new ZoneAdjacency(new int[10], 3, 4));
+	}
+
+	@Test
+	void acrossThinBorder() {
+		long[] edges = edges(4,
+				"..##..",
+				"..##..");
+		assertArrayEquals(new long[] { ZoneAdjacency.encode(0, 1) }, edges);
+		assertEquals(0, ZoneAdjacency.source(edges[0]));
+		assertEquals(1, ZoneAdjacency.target(edges[0]));
+	}
+
+	@Test
+	void borderTooThick() {
+		assertEquals(0, edges(2,
+				".###.",
+				".###.").length);
+	}
+
+	@Test
+	void cornerOnly() {
+		// Zones 0 and 3 only meet at the crossing of the borders
+		long[] edges = edges(2,
+				"..#..",
+				"..#..",
+				"#####",
+				"..#..",
+				"..#..");
+		assertArrayEquals(new long[] { ZoneAdjacency.encode(0, 1), ZoneAdjacency.encode(0, 2),
+				ZoneAdjacency.encode(1, 3), ZoneAdjacency.encode(2, 3) }, edges);
+	}
+}
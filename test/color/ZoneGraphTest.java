@@ -0,0 +1,101 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.jgrapht.Graphs;
+import org.jgrapht.alg.color.SaturationDegreeColoring;
+import org.jgrapht.alg.interfaces.VertexColoringAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import connectivity.UndirectedConnectivityInspector;
+
+public class ZoneGraphTest {
+
+	private static long edge(int u, int v) {
+		return ZoneAdjacency.encode(u, v);
+	}
+
+	/*
+	 * A triangle 0-1-2, an edge 3-4 and an isolated vertex 5.
+	 */
+	private static ZoneGraph sample() {
+		return new ZoneGraph(6, new long[] { edge(3, 4), edge(0, 1), edge(1, 2), edge(0, 2) });
+	}
+
+	@Test
+	void nullEdges() {
+		assertThrows(NullPointerException.class, () -> new ZoneGraph(1, null));
+	}
+
+	@Test
+	void invalidEdges() {
+		assertThrows(IllegalArgumentException.class, () -> new ZoneGraph(2, new long[] { edge(0, 2) }));
+		assertThrows(IllegalArgumentException.class, () -> new ZoneGraph(2, new long[] { edge(0, 1), edge(0, 1) }));
+		assertThrows(IllegalArgumentException.class, () -> new ZoneGraph(2, new long[] { 1L << 32 | 1 }));
+	}
+
+	@Test
+	void emptyGraph() {
+		ZoneGraph graph = new ZoneGraph(0, new long[0]);
+		assertEquals(0, graph.vertexSet().size());
+		assertEquals(0, graph.edgeSet().size());
+		assertEquals(0, new DSaturColoring<>(graph).getColoring().getNumberColors());
+	}
+
+	@Test
+	void structure() {
+		ZoneGraph graph = sample();
+		assertEquals(6, graph.vertexCount());
+		assertEquals(4, graph.edgeCount());
+		assertEquals(2, graph.degree(0));
+		assertEquals(0, graph.degree(5));
+		assertEquals(1, graph.neighbor(2, 1));
+		assertEquals(-1, graph.edge(0, 3));
+		int e = graph.edge(2, 1);
+		assertEquals(1, graph.source(e));
+		assertEquals(2, graph.target(e));
+	}
+
+	@Test
+	void graphInterface() {
+		ZoneGraph graph = sample();
+		assertEquals(Set.of(0, 1, 2, 3, 4, 5), graph.vertexSet());
+		assertTrue(graph.containsEdge(1, 0));
+		assertFalse(graph.containsEdge(1, 3));
+		assertNull(graph.getEdge(0, 3));
+		assertNull(graph.getAllEdges(0, 42));
+		assertEquals(1, graph.getAllEdges(4, 3).size());
+		assertEquals(2, graph.degreeOf(1));
+		assertEquals(List.of(0, 2), Graphs.neighborListOf(graph, 1));
+		Integer edge = graph.getEdge(3, 4);
+		assertTrue(graph.edgesOf(4).contains(edge));
+		assertFalse(graph.edgesOf(0).contains(edge));
+		assertEquals(3, graph.getEdgeSource(edge));
+		assertEquals(4, graph.getEdgeTarget(edge));
+		assertThrows(IllegalArgumentException.class, () -> graph.degreeOf(6));
+	}
+
+	@Test
+	void immutable() {
+		ZoneGraph graph = sample();
+		assertThrows(UnsupportedOperationException.class, () -> graph.addVertex(6));
+		assertThrows(UnsupportedOperationException.class, () -> graph.addEdge(0, 5));
+		assertThrows(UnsupportedOperationException.class, () -> graph.removeEdge(0, 1));
+		assertThrows(UnsupportedOperationException.class, () -> graph.removeVertex(0));
+	}
+
+	@Test
+	void algorithms() {
+		ZoneGraph graph = sample();
+		VertexColoringAlgorithm.Coloring<Integer> coloring = new DSaturColoring<>(graph).getColoring();
+		assertEquals(3, coloring.getNumberColors());
+		assertEquals(3, new SaturationDegreeColoring<>(graph).getColoring().getNumberColors());
+
+		UndirectedConnectivityInspector<Integer, Integer> inspector = new UndirectedConnectivityInspector<>(graph);
+		assertFalse(inspector.isConnected());
+		assertEquals(3, inspector.connectedSets().size());
+	}
+}
@@ -0,0 +1,87 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+
+import org.junit.jupiter.api.Test;
+
+import graph_samples.SyntheticMap;
+
+public class ZoneInfoTest {
+
+	private static ZoneInfo info(String... rows) {
+		return new ComponentLabeler(ComponentLabelerTest.picture(rows), Color.BLACK).getZoneInfo();
+	}
+
+	@Test
+	void nullArguments() {
+		assertThrows(NullPointerException.class, () -> new ZoneInfo(null));
+		assertThrows(NullPointerException.class, () -> new ZoneInfo(null, 1, 0));
+	}
+
+	@Test
+	void statisticsOfEachZone() {
+		ZoneInfo info = info(
+				"..#...",
+				"..#.#.",
+				"####..");
+		assertEquals(2, info.getZoneCount());
+		assertEquals(4, info.getArea(0));
+		assertEquals(new Rectangle(0, 0, 2, 2), info.getBounds(0));
+		assertEquals(0.5, info.getCentroidX(0));
+		assertEquals(0.5, info.getCentroidY(0));
+		assertEquals(8, info.getPerimeter(0));
+		assertEquals(0, info.getSeed(0));
+
+		assertEquals(7, info.getArea(1));
+		assertEquals(new Rectangle(3, 0, 3, 3), info.getBounds(1));
+		assertEquals(3, info.getSeedX(1));
+		assertEquals(0, info.getSeedY(1));
+		assertEquals(29 / 7.0, info.getCentroidX(1), 1e-9);
+		assertEquals(6 / 7.0, info.getCentroidY(1), 1e-9);
+		assertEquals(16, info.getPerimeter(1));
+	}
+
+	@Test
+	void sameFromRunsAndLabels() {
+		SyntheticMap map = SyntheticMap.truchet(320, 320, 32, 2, Color.BLACK, 9);
+		ComponentLabeler labeler = new ComponentLabeler(new BorderMask(map.getImage(), Color.BLACK), 3);
+		ZoneInfo fromRuns = labeler.getZoneInfo();
+		ZoneInfo fromLabels = new ZoneInfo(map.getLabels(), 320, map.getZoneCount());
+		assertEquals(fromLabels.getZoneCount(), fromRuns.getZoneCount());
+		for (int zone = 0; zone < fromRuns.getZoneCount(); zone++) {
+			assertEquals(fromLabels.getArea(zone), fromRuns.getArea(zone));
+			assertEquals(fromLabels.getBounds(zone), fromRuns.getBounds(zone));
+			assertEquals(fromLabels.getCentroidX(zone), fromRuns.getCentroidX(zone), 1e-9);
+			assertEquals(fromLabels.getCentroidY(zone), fromRuns.getCentroidY(zone), 1e-9);
+			assertEquals(fromLabels.getPerimeter(zone), fromRuns.getPerimeter(zone));
+			assertEquals(fromLabels.getSeed(zone), fromRuns.getSeed(zone));
+		}
+	}
+
+	@Test
+	void smallZonesAndBoundingBoxes() {
+		ZoneInfo info = info(
+				".#......",
+				"##......",
+				"########",
+				"......#.");
+		assertArrayEquals(new int[] { 0, 3 }, info.getZonesSmallerThan(2));
+		assertTrue(info.mayBeAdjacent(0, 1, 2));
+		assertFalse(info.mayBeAdjacent(0, 1, 1));
+		assertTrue(info.mayBeAdjacent(0, 2, 3));
+		assertFalse(info.mayBeAdjacent(0, 2, 2));
+		assertFalse(info.mayBeAdjacent(0, 3, 4));
+	}
+
+	@Test
+	void freedZoneHasNoPixel() {
+		ZoneInfo info = new ZoneInfo(new int[] { 0, ComponentLabeler.BORDER, 2 }, 3, 3);
+		assertEquals(0, info.getArea(1));
+		assertTrue(info.getBounds(1).isEmpty());
+		assertEquals(-1, info.getSeed(1));
+		assertTrue(Double.isNaN(info.getCentroidX(1)));
+	}
+}
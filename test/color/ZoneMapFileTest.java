@@ -0,0 +1,127 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import graph_samples.SyntheticMap;
+import graphics.Image;
+
+public class ZoneMapFileTest {
+
+	@TempDir
+	Path directory;
+
+	private static void assertSameGraph(ZoneGraph expected, ZoneGraph actual) {
+		assertEquals(expected.vertexCount(), actual.vertexCount());
+		assertEquals(expected.edgeCount(), actual.edgeCount());
+		for (int e = 0; e < expected.edgeCount(); e++) {
+			assertEquals(expected.source(e), actual.source(e));
+			assertEquals(expected.target(e), actual.target(e));
+		}
+	}
+
+	@Test
+	void invalidArguments() {
+		Path path = directory.resolve("map.zmap");
+		ZoneGraph graph = new ZoneGraph(1, new long[0]);
+		IntColoring coloring = new IntColoring(new int[] { 0 });
+		assertThrows(NullPointerException.class, () -> new ZoneMapFile(null));
+		assertThrows(NullPointerException.class,
+				() -> ZoneMapFile.write(path, 1, null, graph, coloring, Color.BLACK, 0));
+		assertThrows(IllegalArgumentException.class,
+				() -> ZoneMapFile.write(path, 2, new int[3], graph, coloring, Color.BLACK, 0));
+		assertThrows(IllegalArgumentException.class,
+				() -> ZoneMapFile.write(path, 1, new int[] { 1 }, graph, coloring, Color.BLACK, 0));
+	}
+
+	@Test
+	void roundTrip() throws IOException {
+		SyntheticMap map = SyntheticMap.voronoi(300, 200, 80, 2, Color.BLACK, 7);
+		MapColoring mc = new MapColoring(map.getImage(), Color.BLACK, 1, 3);
+		Path path = directory.resolve("map.zmap");
+		mc.save(path);
+
+		ZoneMapFile file = new ZoneMapFile(path);
+		assertEquals(ZoneMapFile.VERSION, file.getVersion());
+		assertEquals(300, file.getWidth());
+		assertEquals(200, file.getHeight());
+		assertEquals(Color.BLACK, file.getBorderColor());
+		assertEquals(3, file.getBorderWidth());
+		assertEquals(map.getZoneCount(), file.getZoneCount());
+		assertArrayEquals(mc.labels(), file.getLabels());
+		assertArrayEquals(map.getLabels(), file.getLabels());
+		assertSameGraph(mc.adjacencyGraph(), file.getGraph());
+		assertArrayEquals(mc.getColoring().toArray(), file.getColoring().toArray());
+
+		ZoneGraph graph = mc.adjacencyGraph();
+		for (int zone = 0; zone < file.getZoneCount(); zone++) {
+			assertEquals(graph.degree(zone), file.degree(zone));
+			for (int k = 0; k < graph.degree(zone); k++) {
+				assertEquals(graph.neighbor(zone, k), file.neighbor(zone, k));
+			}
+			assertEquals(mc.getColoring().getColor(zone), file.getColor(zone));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> file.getColor(file.getZoneCount()));
+		assertThrows(IndexOutOfBoundsException.class, () -> file.readRow(200, new int[300], 0));
+		assertThrows(IndexOutOfBoundsException.class, () -> file.readRow(0, new int[300], 1));
+	}
+
+	@Test
+	void loadedMapIsPaintedLikeTheOriginal() throws IOException {
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		MapColoring mc = new MapColoring(image, Color.BLACK);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(20, 0, 2, 100);
+		mc.update(new Rectangle(20, 0, 2, 100));
+		Path path = directory.resolve("small.zmap");
+		mc.save(path);
+
+		BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+		copy.setData(image.getData());
+		MapColoring loaded = new ZoneMapFile(path).toMapColoring(copy);
+		assertArrayEquals(mc.labels(), loaded.labels());
+		assertEquals(mc.getColoring().getColors(), loaded.getColoring().getColors());
+		mc.colorMap();
+		loaded.colorMap();
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				assertEquals(image.getRGB(x, y), copy.getRGB(x, y));
+			}
+		}
+		assertThrows(IllegalArgumentException.class,
+				() -> new ZoneMapFile(path).toMapColoring(new BufferedImage(5, 5, BufferedImage.TYPE_INT_RGB)));
+	}
+
+	@Test
+	void invalidFiles() throws IOException {
+		Path notAMap = Files.write(directory.resolve("image.png"), new byte[100]);
+		assertThrows(IOException.class, () -> new ZoneMapFile(notAMap));
+
+		SyntheticMap map = SyntheticMap.rectangles(120, 80, 12, 1, Color.BLACK, 2);
+		Path path = directory.resolve("map.zmap");
+		new MapColoring(map.getImage(), Color.BLACK).save(path);
+		byte[] bytes = Files.readAllBytes(path);
+
+		Path truncated = Files.write(directory.resolve("truncated.zmap"), Arrays.copyOf(bytes, bytes.length - 1));
+		assertThrows(IOException.class, () -> new ZoneMapFile(truncated));
+
+		byte[] newer = bytes.clone();
+		ByteBuffer.wrap(newer).order(ByteOrder.LITTLE_ENDIAN).putInt(4, ZoneMapFile.VERSION + 1);
+		Path future = Files.write(directory.resolve("future.zmap"), newer);
+		assertThrows(IOException.class, () -> new ZoneMapFile(future));
+	}
+}
@@ -0,0 +1,58 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import graphics.Image;
+
+public class ZonePainterTest {
+
+	private static final int[] ZONE_RGB = { Color.RED.getRGB(), Color.BLUE.getRGB() };
+
+	private static void assertPainted(int type) {
+		BufferedImage image = Image.convertToType(ComponentLabelerTest.picture(
+				"..#..",
+				"..#.."), type);
+		ComponentLabeler labeler = new ComponentLabeler(image, Color.BLACK);
+		new ZonePainter(labeler.getLabels(), ZONE_RGB).paint(image);
+		for (int y = 0; y < 2; y++) {
+			assertEquals(Color.RED.getRGB(), image.getRGB(0, y));
+			assertEquals(Color.RED.getRGB(), image.getRGB(1, y));
+			assertEquals(Color.BLACK.getRGB(), image.getRGB(2, y));
+			assertEquals(Color.BLUE.getRGB(), image.getRGB(3, y));
+			assertEquals(Color.BLUE.getRGB(), image.getRGB(4, y));
+		}
+	}
+
+	@Test
+	void nullLabels() {
+		assertThrows(NullPointerException.class, () -> new ZonePainter(null, ZONE_RGB));
+	}
+
+	@Test
+	void sizeMismatch() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new ZonePainter(new int[3], ZONE_RGB).paint(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB)));
+	}
+
+	@Test
+	void intRaster() {
+		assertPainted(BufferedImage.TYPE_INT_RGB);
+		assertPainted(BufferedImage.TYPE_INT_ARGB);
+	}
+
+	@Test
+	void byteRaster() {
+		assertPainted(BufferedImage.TYPE_3BYTE_BGR);
+		assertPainted(BufferedImage.TYPE_4BYTE_ABGR);
+	}
+
+	@Test
+	void otherRaster() {
+		assertPainted(BufferedImage.TYPE_INT_BGR);
+	}
+}
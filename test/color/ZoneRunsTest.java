@@ -0,0 +1,102 @@
+package color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import graph_samples.SyntheticMap;
+import graphics.Image;
+
+public class ZoneRunsTest {
+
+	private static ZoneRuns runs(String... rows) {
+		return new ZoneRuns(new BorderMask(ComponentLabelerTest.picture(rows), Color.BLACK));
+	}
+
+	@Test
+	void nullMask() {
+		assertThrows(NullPointerException.class, () -> new ZoneRuns(null));
+	}
+
+	@Test
+	void runsOfEachRow() {
+		ZoneRuns runs = runs(
+				"..#..",
+				"#####",
+				"....#");
+		assertEquals(3, runs.getRunCount());
+		assertEquals(3, runs.getZoneCount());
+		assertEquals(0, runs.zoneAt(1, 0));
+		assertEquals(1, runs.zoneAt(4, 0));
+		assertEquals(ComponentLabeler.BORDER, runs.zoneAt(2, 1));
+		assertEquals(2, runs.zoneAt(0, 2));
+		assertEquals(ComponentLabeler.BORDER, runs.zoneAt(4, 2));
+		assertTrue(runs.contains(2, 3, 2));
+		assertEquals(4, runs.getArea(2));
+	}
+
+	@Test
+	void overlappingRunsMerged() {
+		ZoneRuns runs = runs(
+				".#.#.",
+				".#...",
+				"##.#.");
+		assertEquals(2, runs.getZoneCount());
+		assertEquals(1, runs.zoneAt(2, 0));
+		assertEquals(1, runs.zoneAt(4, 2));
+		assertEquals(7, runs.getArea(1));
+		StringBuilder visited = new StringBuilder();
+		runs.forEachRun(1, (y, start, end) -> visited.append(y).append(':').append(start).append('-').append(end).append(' '));
+		assertEquals("0:2-3 0:4-5 1:2-5 2:2-3 2:4-5 ", visited.toString());
+	}
+
+	@Test
+	void sameLabelsAsPixelLabeling() {
+		SyntheticMap map = SyntheticMap.voronoi(640, 480, 200, 2, Color.BLACK, 11);
+		int[] labels = new int[640 * 480];
+		ZoneRuns runs = new ZoneRuns(new BorderMask(map.getImage(), Color.BLACK));
+		runs.fillLabels(labels);
+		assertEquals(map.getZoneCount(), runs.getZoneCount());
+		assertArrayEquals(map.getLabels(), labels);
+		long area = 0;
+		for (int zone = 0; zone < runs.getZoneCount(); zone++) {
+			area += runs.getArea(zone);
+		}
+		long border = new BorderMask(map.getImage(), Color.BLACK).countBorderPixels();
+		assertEquals(640 * 480 - border, area);
+	}
+
+	@Test
+	void sameEdgesAsPixelSweep() {
+		for (String name : new String[] { "small_map", "hat_monotile", "truchet_tiling" }) {
+			BufferedImage image = Image.loadImage("img/maps/" + name + ".png");
+			ComponentLabeler labeler = new ComponentLabeler(image, Color.BLACK);
+			for (int d : new int[] { 0, 1, 2, 4, 6 }) {
+				assertArrayEquals(new ZoneAdjacency(labeler.getLabels(), image.getWidth(), d).getEdges(),
+						labeler.getRuns().getEdges(d), name + " at distance " + d);
+			}
+		}
+	}
+
+	@Test
+	void parallelBandsJoined() {
+		SyntheticMap map = SyntheticMap.rectangles(300, 900, 150, 2, Color.BLACK, 5);
+		BorderMask mask = new BorderMask(map.getImage(), Color.BLACK);
+		ZoneRuns single = new ComponentLabeler(mask).getRuns();
+		ZoneRuns joined = new ComponentLabeler(mask, 4).getRuns();
+		assertEquals(single.getZoneCount(), joined.getZoneCount());
+		assertEquals(single.getRunCount(), joined.getRunCount());
+		assertArrayEquals(single.getEdges(4), joined.getEdges(4));
+		int[] labels = new int[300 * 900];
+		joined.fillLabels(labels);
+		assertArrayEquals(map.getLabels(), labels);
+	}
+
+	@Test
+	void negativeDistance() {
+		assertThrows(IllegalArgumentException.class, () -> runs("..").getEdges(-1));
+	}
+}
@@ -0,0 +1,108 @@
+package graphics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ImageReaderPixelSourceTest {
+
+	@TempDir
+	Path directory;
+
+	private static int[] pixels(BufferedImage image) {
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+
+	private static int[] bands(File file, int bandHeight) throws IOException {
+		try (ImageReaderPixelSource source = new ImageReaderPixelSource(file)) {
+			int width = source.getWidth();
+			int[] argb = new int[width * source.getHeight()];
+			int[] band = new int[width * bandHeight];
+			for (int firstRow = 0; firstRow < source.getHeight(); firstRow += bandHeight) {
+				int rowCount = Math.min(bandHeight, source.getHeight() - firstRow);
+				source.readRows(firstRow, rowCount, band);
+				System.arraycopy(band, 0, argb, firstRow * width, rowCount * width);
+			}
+			return argb;
+		}
+	}
+
+	private File write(BufferedImage image, boolean interlaced) throws IOException {
+		File file = directory.resolve("image.png").toFile();
+		file.delete();
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		if (interlaced) param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+		try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+			writer.setOutput(output);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return file;
+	}
+
+	private static BufferedImage noise(int width, int height, int type) {
+		BufferedImage image = new BufferedImage(width, height, type);
+		Random random = new Random(7);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				// Des plages unies et du bruit, pour que l'encodeur emploie tous les filtres
+				image.setRGB(x, y, (x / 8 + y / 8) % 3 == 0 ? random.nextInt() : 0xFF000000 | (x * 7 + y) * 0x010101);
+			}
+		}
+		return image;
+	}
+
+	@Test
+	void maps() throws IOException {
+		for (String name : new String[] { "small_map", "USA_map", "truchet_tiling" }) {
+			File file = new File("img/maps/" + name + ".png");
+			int[] expected = pixels(ImageIO.read(file));
+			for (int bandHeight : new int[] { 1, 7, 64, 10_000 }) {
+				assertArrayEquals(expected, bands(file, bandHeight), name + " in bands of " + bandHeight);
+			}
+		}
+	}
+
+	@Test
+	void pixelTypes() throws IOException {
+		int[] types = { BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_GRAY, BufferedImage.TYPE_BYTE_BINARY,
+				BufferedImage.TYPE_BYTE_INDEXED, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB };
+		for (int type : types) {
+			for (boolean interlaced : new boolean[] { false, true }) {
+				File file = write(noise(37, 29, type), interlaced);
+				int[] expected = pixels(ImageIO.read(file));
+				assertArrayEquals(expected, bands(file, 5), "type " + type + (interlaced ? " interlaced" : ""));
+			}
+		}
+	}
+
+	@Test
+	void bandsOutOfOrder() throws IOException {
+		File file = new File("img/maps/USA_map.png");
+		BufferedImage image = ImageIO.read(file);
+		int width = image.getWidth();
+		try (ImageReaderPixelSource source = new ImageReaderPixelSource(file)) {
+			int[] band = new int[width * 10];
+			for (int firstRow : new int[] { 200, 50, 50, 300, 0 }) {
+				source.readRows(firstRow, 10, band);
+				assertArrayEquals(image.getRGB(0, firstRow, width, 10, null, 0, width), band, "rows from " + firstRow);
+			}
+			assertThrows(IndexOutOfBoundsException.class, () -> source.readRows(source.getHeight() - 5, 10, band));
+		}
+	}
+}
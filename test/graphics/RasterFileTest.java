@@ -0,0 +1,85 @@
+package graphics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import color.MapColoring;
+
+public class RasterFileTest {
+
+	@TempDir
+	Path directory;
+
+	private Path write(String header, int... data) throws IOException {
+		byte[] head = header.getBytes(StandardCharsets.US_ASCII);
+		byte[] bytes = new byte[head.length + data.length];
+		System.arraycopy(head, 0, bytes, 0, head.length);
+		for (int i = 0; i < data.length; i++) {
+			bytes[head.length + i] = (byte) data[i];
+		}
+		return Files.write(directory.resolve("raster.pnm"), bytes);
+	}
+
+	@Test
+	void notARaster() throws IOException {
+		Path path = write("GIF89a");
+		assertThrows(IOException.class, () -> new RasterFile(path));
+	}
+
+	@Test
+	void truncated() throws IOException {
+		Path path = write("P5 2 2 255\n", 1, 2, 3);
+		assertThrows(IOException.class, () -> new RasterFile(path));
+	}
+
+	@Test
+	void bitmap() throws IOException {
+		try (RasterFile raster = new RasterFile(write("P4\n# comment\n10 2\n", 0b10000000, 0b01000000, 0, 0))) {
+			int[] argb = new int[20];
+			raster.readRows(0, 2, argb);
+			assertEquals(Color.BLACK.getRGB(), argb[0]);
+			assertEquals(Color.WHITE.getRGB(), argb[1]);
+			assertEquals(Color.BLACK.getRGB(), argb[9]);
+			assertEquals(Color.WHITE.getRGB(), argb[10]);
+		}
+	}
+
+	@Test
+	void grayMap() throws IOException {
+		try (RasterFile raster = new RasterFile(write("P5 2 1 15\n", 0, 15))) {
+			int[] argb = new int[2];
+			raster.readRows(0, 1, argb);
+			assertArrayEquals(new int[] { Color.BLACK.getRGB(), Color.WHITE.getRGB() }, argb);
+		}
+	}
+
+	@Test
+	void convertedMap() throws IOException {
+		String rasterPathname = directory.resolve("small_map.ppm").toString();
+		assertTrue(Image.convertToRaster("img/maps/small_map.png", rasterPathname));
+		BufferedImage image = Image.loadImage("img/maps/small_map.png");
+		try (RasterFile raster = Image.loadRaster(rasterPathname)) {
+			assertEquals(image.getWidth(), raster.getWidth());
+			assertEquals(image.getHeight(), raster.getHeight());
+			int[] argb = new int[raster.getWidth() * raster.getHeight()];
+			raster.readRows(0, raster.getHeight(), argb);
+			assertArrayEquals(image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()), argb);
+
+			MapColoring mc = MapColoring.fromPixelSource(raster, Color.BLACK);
+			assertNull(mc.getImage());
+			assertEquals(11, mc.getAdjacencyGraph().vertexSet().size());
+			assertEquals(21, mc.getAdjacencyGraph().edgeSet().size());
+			mc.colorMap();
+			assertEquals(image.getWidth(), mc.getImage().getWidth());
+		}
+	}
+}
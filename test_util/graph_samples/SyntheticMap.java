@@ -0,0 +1,496 @@
+package graph_samples;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Map images generated at any resolution, with their ground truth : the zone
+ * of every pixel and the adjacent zone pairs.
+ *
+ * A generator first computes the cell of every pixel (Voronoi, rectangles,
+ * hexagons or Truchet tiles), then draws the borders of the given thickness
+ * on the left and top side of every change of cell, in a single pass over
+ * the pixels. Zones are numbered like {@link color.ComponentLabeler} numbers
+ * them : in the order of their first pixel in raster order, border pixels
+ * being -1.
+ *
+ * Two zones are certainly adjacent when their cells share a long enough
+ * boundary ; cells only sharing a few pixels near a junction of borders give
+ * optional edges, which a detector may report or not.
+ */
+public class SyntheticMap {
+	public static final int BORDER = -1;
+
+	private final BufferedImage image;
+	private final int[] labels;
+	private final int zoneCount;
+	private final long[] edges;
+	private final long[] optionalEdges;
+
+	private SyntheticMap(BufferedImage image, int[] labels, int zoneCount, long[] edges, long[] optionalEdges) {
+		this.image = image;
+		this.labels = labels;
+		this.zoneCount = zoneCount;
+		this.edges = edges;
+		this.optionalEdges = optionalEdges;
+	}
+
+	/**
+	 * Returns the map image : the border color on the borders, white
+	 * elsewhere (black if the borders are white).
+	 * @return a TYPE_INT_RGB image
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Returns the zone of every pixel, in row-major order.
+	 * @return the zone ids, -1 for the border pixels
+	 */
+	public int[] getLabels() {
+		return labels;
+	}
+
+	public int getZoneCount() {
+		return zoneCount;
+	}
+
+	/**
+	 * Returns the pairs of zones sharing a long boundary.
+	 * @return the edges encoded as (u << 32 | v) with u < v, in ascending order
+	 */
+	public long[] getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Returns the pairs of zones only sharing a few pixels of boundary.
+	 * @return the edges encoded as (u << 32 | v) with u < v, in ascending order
+	 */
+	public long[] getOptionalEdges() {
+		return optionalEdges;
+	}
+
+	/**
+	 * Voronoi tessellation of seeds jittered on a grid.
+	 *
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param zones the approximate number of zones
+	 * @param borderWidth the thickness of the borders
+	 * @param borderColor the color of the borders
+	 * @param seed the seed of the random generator
+	 * @return the map
+	 */
+	public static SyntheticMap voronoi(int width, int height, int zones, int borderWidth, Color borderColor, long seed) {
+		checkArguments(width, height, zones, borderWidth, borderColor);
+		int cell = Math.max(1, (int) Math.sqrt((double) width * height / zones));
+		int columns = (width + cell - 1) / cell;
+		int rows = (height + cell - 1) / cell;
+		// Germe au centre de sa case, à un quart de case près : le plus proche est parmi les 3x3 cases voisines
+		int[] seedX = new int[columns * rows];
+		int[] seedY = new int[columns * rows];
+		Random random = new Random(seed);
+		for (int i = 0; i < seedX.length; i++) {
+			seedX[i] = (i % columns) * cell + cell / 4 + random.nextInt(cell / 2 + 1);
+			seedY[i] = (i / columns) * cell + cell / 4 + random.nextInt(cell / 2 + 1);
+		}
+		int[] cells = new int[width * height];
+		// Lignes indépendantes, calculées en parallèle
+		IntStream.range(0, height).parallel().forEach(y -> {
+			int gy = y / cell;
+			for (int x = 0, i = y * width; x < width; x++, i++) {
+				int gx = x / cell;
+				long best = Long.MAX_VALUE;
+				for (int ny = Math.max(0, gy - 1); ny <= Math.min(rows - 1, gy + 1); ny++) {
+					for (int nx = Math.max(0, gx - 1); nx <= Math.min(columns - 1, gx + 1); nx++) {
+						int s = ny * columns + nx;
+						long dx = x - seedX[s];
+						long dy = y - seedY[s];
+						long distance = dx * dx + dy * dy;
+						if (distance < best) {
+							best = distance;
+							cells[i] = s;
+						}
+					}
+				}
+			}
+		});
+		return drawBorders(width, height, cells, seedX.length, borderWidth, borderColor);
+	}
+
+	/**
+	 * Random subdivision of the image into rectangles, the largest rectangle
+	 * being cut in two across its longest side until there are enough.
+	 *
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param zones the number of rectangles
+	 * @param borderWidth the thickness of the borders
+	 * @param borderColor the color of the borders
+	 * @param seed the seed of the random generator
+	 * @return the map
+	 */
+	public static SyntheticMap rectangles(int width, int height, int zones, int borderWidth, Color borderColor, long seed) {
+		checkArguments(width, height, zones, borderWidth, borderColor);
+		Random random = new Random(seed);
+		// x, y, largeur, hauteur ; le plus grand rectangle d'abord
+		PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Long.compare((long) b[2] * b[3], (long) a[2] * a[3]));
+		queue.add(new int[] { 0, 0, width, height });
+		while (queue.size() < zones) {
+			int[] r = queue.peek();
+			boolean vertical = r[2] >= r[3];
+			int length = vertical ? r[2] : r[3];
+			if (length < 2) break;
+			queue.poll();
+			int cut = Math.max(1, Math.min(length - 1, (int) (length * (0.3 + 0.4 * random.nextDouble()))));
+			if (vertical) {
+				queue.add(new int[] { r[0], r[1], cut, r[3] });
+				queue.add(new int[] { r[0] + cut, r[1], r[2] - cut, r[3] });
+			} else {
+				queue.add(new int[] { r[0], r[1], r[2], cut });
+				queue.add(new int[] { r[0], r[1] + cut, r[2], r[3] - cut });
+			}
+		}
+		int[] cells = new int[width * height];
+		int id = 0;
+		for (int[] r : queue) {
+			for (int y = r[1]; y < r[1] + r[3]; y++) {
+				Arrays.fill(cells, y * width + r[0], y * width + r[0] + r[2], id);
+			}
+			id++;
+		}
+		return drawBorders(width, height, cells, id, borderWidth, borderColor);
+	}
+
+	/**
+	 * Tiling by regular hexagons, pointy side up.
+	 *
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param size the distance from the center of a hexagon to its corners, in pixels
+	 * @param borderWidth the thickness of the borders
+	 * @param borderColor the color of the borders
+	 * @return the map
+	 */
+	public static SyntheticMap hexagons(int width, int height, int size, int borderWidth, Color borderColor) {
+		checkArguments(width, height, 1, borderWidth, borderColor);
+		if (size < 2 * borderWidth + 2) {
+			throw new IllegalArgumentException("Hexagons too small for the borders");
+		}
+		int rowOffset = 2;
+		int qOffset = height / size + 2;
+		int qCount = qOffset + width / size + 4;
+		int rCount = rowOffset + 2 * height / size + 4;
+		int[] cells = new int[width * height];
+		double sqrt3 = Math.sqrt(3);
+		IntStream.range(0, height).parallel().forEach(y -> {
+			for (int x = 0, i = y * width; x < width; x++, i++) {
+				// Coordonnées axiales, arrondies au cube le plus proche
+				double q = (sqrt3 / 3 * (x + 0.5) - (y + 0.5) / 3.0) / size;
+				double r = (2.0 / 3 * (y + 0.5)) / size;
+				double s = -q - r;
+				long rq = Math.round(q);
+				long rr = Math.round(r);
+				long rs = Math.round(s);
+				double dq = Math.abs(rq - q);
+				double dr = Math.abs(rr - r);
+				double ds = Math.abs(rs - s);
+				if (dq > dr && dq > ds) {
+					rq = -rr - rs;
+				} else if (dr > ds) {
+					rr = -rq - rs;
+				}
+				cells[i] = (int) ((rr + rowOffset) * qCount + rq + qOffset);
+			}
+		});
+		return drawBorders(width, height, cells, qCount * rCount, borderWidth, borderColor);
+	}
+
+	/**
+	 * Truchet tiling : every square tile holds two quarter circles joining
+	 * the middles of its sides, in one of two random orientations. The zones
+	 * are found by joining the parts of the tiles across their sides.
+	 *
+	 * @param width the width of the image, a multiple of tileSize
+	 * @param height the height of the image, a multiple of tileSize
+	 * @param tileSize the side of a tile, in pixels
+	 * @param borderWidth the thickness of the borders, lower than tileSize / 4
+	 * @param borderColor the color of the borders
+	 * @param seed the seed of the random generator
+	 * @return the map
+	 */
+	public static SyntheticMap truchet(int width, int height, int tileSize, int borderWidth, Color borderColor, long seed) {
+		checkArguments(width, height, 1, borderWidth, borderColor);
+		if (tileSize < 4 * borderWidth + 4 || width % tileSize != 0 || height % tileSize != 0) {
+			throw new IllegalArgumentException("Invalid tile size " + tileSize);
+		}
+		int columns = width / tileSize;
+		int rows = height / tileSize;
+		boolean[] flipped = new boolean[columns * rows];
+		Random random = new Random(seed);
+		for (int t = 0; t < flipped.length; t++) {
+			flipped[t] = random.nextBoolean();
+		}
+		// Parties d'une tuile : 0 et 2 les coins entourés par les arcs, 1 la bande centrale
+		int[] parent = new int[3 * flipped.length];
+		for (int p = 0; p < parent.length; p++) {
+			parent[p] = p;
+		}
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				int t = row * columns + column;
+				if (column + 1 < columns) {
+					int u = t + 1;
+					// Moitiés haute et basse du côté commun
+					union(parent, 3 * t + side(flipped[t], RIGHT, 0), 3 * u + side(flipped[u], LEFT, 0));
+					union(parent, 3 * t + side(flipped[t], RIGHT, 1), 3 * u + side(flipped[u], LEFT, 1));
+				}
+				if (row + 1 < rows) {
+					int u = t + columns;
+					union(parent, 3 * t + side(flipped[t], BOTTOM, 0), 3 * u + side(flipped[u], TOP, 0));
+					union(parent, 3 * t + side(flipped[t], BOTTOM, 1), 3 * u + side(flipped[u], TOP, 1));
+				}
+			}
+		}
+		int[] roots = new int[parent.length];
+		for (int p = 0; p < parent.length; p++) {
+			roots[p] = find(parent, p);
+		}
+		int[] cells = new int[width * height];
+		long radius2 = (long) tileSize * tileSize;
+		IntStream.range(0, height).parallel().forEach(y -> {
+			int row = y / tileSize;
+			// Coordonnées doublées des centres de pixels, pour rester en entiers
+			long v = 2L * (y - row * tileSize) + 1;
+			for (int x = 0, i = y * width; x < width; x++, i++) {
+				int column = x / tileSize;
+				int t = row * columns + column;
+				long u = 2L * (x - column * tileSize) + 1;
+				long s = 2L * tileSize;
+				int part;
+				if (!flipped[t]) {
+					part = u * u + v * v < radius2 ? 0 : (s - u) * (s - u) + (s - v) * (s - v) < radius2 ? 2 : 1;
+				} else {
+					part = (s - u) * (s - u) + v * v < radius2 ? 0 : u * u + (s - v) * (s - v) < radius2 ? 2 : 1;
+				}
+				cells[i] = roots[3 * t + part];
+			}
+		});
+		return drawBorders(width, height, cells, parent.length, borderWidth, borderColor);
+	}
+
+	private static final int LEFT = 0;
+	private static final int TOP = 1;
+	private static final int RIGHT = 2;
+	private static final int BOTTOM = 3;
+
+	/*
+	 * Part of a tile touching the first (0 : top or left) or second (1)
+	 * half of a side. Without flip, the arcs surround the top left (part 0)
+	 * and bottom right (part 2) corners ; flipped, the top right (part 0) and
+	 * bottom left (part 2) corners.
+	 */
+	private static int side(boolean flipped, int side, int half) {
+		if (!flipped) {
+			switch (side) {
+			case LEFT:
+			case TOP:
+				return half == 0 ? 0 : 1;
+			default:
+				return half == 0 ? 1 : 2;
+			}
+		}
+		switch (side) {
+		case LEFT:
+			return half == 0 ? 1 : 2;
+		case TOP:
+			return half == 0 ? 1 : 0;
+		case RIGHT:
+			return half == 0 ? 0 : 1;
+		default:
+			return half == 0 ? 2 : 1;
+		}
+	}
+
+	private static int find(int[] parent, int p) {
+		while (parent[p] != p) {
+			parent[p] = parent[parent[p]];
+			p = parent[p];
+		}
+		return p;
+	}
+
+	private static void union(int[] parent, int p, int q) {
+		parent[find(parent, p)] = find(parent, q);
+	}
+
+	private static void checkArguments(int width, int height, int zones, int borderWidth, Color borderColor) {
+		if (borderColor == null) throw new NullPointerException("BorderColor cannot be null");
+		if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid size " + width + "x" + height);
+		}
+		if (zones < 1) throw new IllegalArgumentException("At least one zone is needed");
+		if (borderWidth < 1) throw new IllegalArgumentException("Border width must be at least 1");
+	}
+
+	/*
+	 * Borders, image, zone numbering and edges from the cell of every pixel, in
+	 * one pass from the last row to the first. A pixel is a border pixel if
+	 * the cell changes less than borderWidth pixels to its right or below it.
+	 */
+	private static SyntheticMap drawBorders(int width, int height, int[] cells, int cellCount, int borderWidth,
+			Color borderColor) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int borderRgb = borderColor.getRGB() & 0xFFFFFF;
+		int zoneRgb = borderRgb == 0xFFFFFF ? 0x000000 : 0xFFFFFF;
+		int[] below = new int[width];
+		int[] current = new int[width];
+		int[] columnRun = new int[width];
+		Arrays.fill(columnRun, Integer.MAX_VALUE / 2);
+		ContactCounter contacts = new ContactCounter();
+
+		for (int y = height - 1; y >= 0; y--) {
+			int offset = y * width;
+			System.arraycopy(cells, offset, current, 0, width);
+			int rowRun = Integer.MAX_VALUE / 2;
+			for (int x = width - 1; x >= 0; x--) {
+				int cell = current[x];
+				if (x + 1 < width && current[x + 1] != cell) {
+					contacts.add(cell, current[x + 1]);
+					rowRun = 1;
+				} else {
+					rowRun++;
+				}
+				if (y + 1 < height && below[x] != cell) {
+					contacts.add(cell, below[x]);
+					columnRun[x] = 1;
+				} else {
+					columnRun[x]++;
+				}
+				if (rowRun <= borderWidth || columnRun[x] <= borderWidth) {
+					cells[offset + x] = BORDER;
+					pixels[offset + x] = borderRgb;
+				} else {
+					pixels[offset + x] = zoneRgb;
+				}
+			}
+			int[] swap = below;
+			below = current;
+			current = swap;
+		}
+
+		// Pixel relié à sa cellule par un coin seulement : il rejoint la frontière
+		for (int y = 0, i = 0; y < height; y++) {
+			for (int x = 0; x < width; x++, i++) {
+				int cell = cells[i];
+				if (cell != BORDER && (x == 0 || cells[i - 1] != cell) && (x + 1 == width || cells[i + 1] != cell)
+						&& (y == 0 || cells[i - width] != cell) && (y + 1 == height || cells[i + width] != cell)) {
+					cells[i] = BORDER;
+					pixels[i] = borderRgb;
+				}
+			}
+		}
+
+		// Numérotation dans l'ordre du premier pixel de chaque zone
+		int[] zoneOf = new int[cellCount];
+		Arrays.fill(zoneOf, BORDER);
+		int zoneCount = 0;
+		for (int i = 0; i < cells.length; i++) {
+			int cell = cells[i];
+			if (cell != BORDER) {
+				if (zoneOf[cell] == BORDER) {
+					zoneOf[cell] = zoneCount++;
+				}
+				cells[i] = zoneOf[cell];
+			}
+		}
+		// Frontière commune d'au moins 4 fois l'épaisseur : elle survit aux jonctions
+		int minContact = 4 * borderWidth + 4;
+		List<Long> edges = new ArrayList<>();
+		List<Long> optionalEdges = new ArrayList<>();
+		for (int k = 0; k < contacts.keys.length; k++) {
+			long key = contacts.keys[k];
+			if (key == 0) continue;
+			int zone1 = zoneOf[(int) (key >>> 32) - 1];
+			int zone2 = zoneOf[(int) key - 1];
+			if (zone1 == BORDER || zone2 == BORDER) continue;
+			long edge = ((long) Math.min(zone1, zone2) << 32) | Math.max(zone1, zone2);
+			(contacts.counts[k] >= minContact ? edges : optionalEdges).add(edge);
+		}
+		return new SyntheticMap(image, cells, zoneCount, sorted(edges), sorted(optionalEdges));
+	}
+
+	private static long[] sorted(List<Long> list) {
+		long[] array = new long[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		Arrays.sort(array);
+		return array;
+	}
+
+	/*
+	 * Number of contacts between pairs of cells : open addressing table keyed
+	 * by (min + 1) << 32 | (max + 1), 0 marking a free slot.
+	 */
+	private static class ContactCounter {
+		long[] keys = new long[1024];
+		int[] counts = new int[1024];
+		int size;
+		long lastKey;
+		int lastSlot;
+
+		void add(int cell1, int cell2) {
+			long key = ((long) (Math.min(cell1, cell2) + 1) << 32) | (Math.max(cell1, cell2) + 1);
+			// Le long d'une frontière, la même paire revient à chaque pixel
+			if (key == lastKey) {
+				counts[lastSlot]++;
+				return;
+			}
+			int mask = keys.length - 1;
+			int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+			while (keys[slot] != 0 && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			if (keys[slot] == 0) {
+				keys[slot] = key;
+				if (++size * 2 > keys.length) {
+					counts[slot]++;
+					grow();
+					lastKey = 0;
+					return;
+				}
+			}
+			counts[slot]++;
+			lastKey = key;
+			lastSlot = slot;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			int[] oldCounts = counts;
+			keys = new long[2 * oldKeys.length];
+			counts = new int[2 * oldKeys.length];
+			int mask = keys.length - 1;
+			for (int k = 0; k < oldKeys.length; k++) {
+				if (oldKeys[k] == 0) continue;
+				int slot = (int) (oldKeys[k] * 0x9E3779B97F4A7C15L >>> 40) & mask;
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[k];
+				counts[slot] = oldCounts[k];
+			}
+		}
+	}
+}